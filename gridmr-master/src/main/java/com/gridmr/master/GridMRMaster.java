@@ -5,6 +5,7 @@ import com.gridmr.master.components.Scheduler;
 import com.gridmr.master.components.JobManager;
 import com.gridmr.master.components.ChunkManager;
 import com.gridmr.master.components.DomainAuthentication;
+import com.gridmr.master.components.TimerWheel;
 
 public class GridMRMaster {
     
@@ -13,14 +14,22 @@ public class GridMRMaster {
     private JobManager jobManager;
     private ChunkManager chunkManager;
     private DomainAuthentication domainAuthentication;
+    private TimerWheel timerWheel;
     
     public GridMRMaster() {
+        // Rueda de temporizadores compartida por todos los componentes
+        this.timerWheel = new TimerWheel();
+        
         // Inicialización de los 5 componentes esenciales
         this.resourceManager = new ResourceManager();
+        this.resourceManager.setTimerWheel(timerWheel);
         this.chunkManager = new ChunkManager();
+        this.chunkManager.setResourceManager(resourceManager);
         this.scheduler = new Scheduler(); // Scheduler ahora es un componente de Spring
-        this.jobManager = new JobManager(scheduler);
+        this.scheduler.setTimerWheel(timerWheel);
+        this.jobManager = new JobManager(scheduler, chunkManager, resourceManager);
         this.domainAuthentication = new DomainAuthentication();
+        this.domainAuthentication.setTimerWheel(timerWheel);
     }
     
     public void start() {
@@ -0,0 +1,152 @@
+package com.gridmr.master.components;
+
+import com.gridmr.master.model.Job;
+import java.util.*;
+
+/**
+ * AdmissionQueue - Cola acotada de trabajos a la espera de capacidad del cluster
+ *
+ * Los trabajos salen por prioridad (mayor primero); dentro de una misma prioridad
+ * se alterna entre clientes (round-robin), así una ráfaga de trabajos de un
+ * cliente no deja esperando a los demás. Cada cliente conserva su orden FIFO.
+ */
+public class AdmissionQueue {
+
+    private final int capacity;
+
+    // prioridad (mayor primero) -> cliente (en turno de salida) -> trabajos FIFO
+    private final NavigableMap<Integer, LinkedHashMap<String, ArrayDeque<Job>>> levels;
+
+    // jobId -> Job para consultas y cancelaciones
+    private final Map<String, Job> queuedJobs;
+
+    /**
+     * @param capacity Máximo de trabajos en espera
+     */
+    public AdmissionQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity debe ser positivo: " + capacity);
+        }
+        this.capacity = capacity;
+        this.levels = new TreeMap<>(Comparator.reverseOrder());
+        this.queuedJobs = new HashMap<>();
+    }
+
+    /**
+     * Encola un trabajo
+     * @param job Trabajo
+     * @return false si la cola está llena
+     */
+    public synchronized boolean offer(Job job) {
+        if (queuedJobs.size() >= capacity) {
+            return false;
+        }
+        levels.computeIfAbsent(job.getPriority(), p -> new LinkedHashMap<>())
+              .computeIfAbsent(job.getClientId(), c -> new ArrayDeque<>())
+              .addLast(job);
+        queuedJobs.put(job.getJobId(), job);
+        return true;
+    }
+
+    /**
+     * Saca el siguiente trabajo a admitir
+     * @return Trabajo o null si la cola está vacía
+     */
+    public synchronized Job poll() {
+        Map.Entry<Integer, LinkedHashMap<String, ArrayDeque<Job>>> level = levels.firstEntry();
+        if (level == null) {
+            return null;
+        }
+
+        LinkedHashMap<String, ArrayDeque<Job>> clients = level.getValue();
+        String clientId = clients.keySet().iterator().next();
+        ArrayDeque<Job> jobs = clients.remove(clientId);
+        Job job = jobs.pollFirst();
+
+        // El cliente pasa al final del turno si aún tiene trabajos
+        if (!jobs.isEmpty()) {
+            clients.put(clientId, jobs);
+        }
+        if (clients.isEmpty()) {
+            levels.remove(level.getKey());
+        }
+        queuedJobs.remove(job.getJobId());
+        return job;
+    }
+
+    /**
+     * Quita un trabajo de la cola (cancelación)
+     * @return Trabajo quitado o null si no estaba en espera
+     */
+    public synchronized Job remove(String jobId) {
+        Job job = queuedJobs.remove(jobId);
+        if (job == null) {
+            return null;
+        }
+        LinkedHashMap<String, ArrayDeque<Job>> clients = levels.get(job.getPriority());
+        ArrayDeque<Job> jobs = clients.get(job.getClientId());
+        jobs.remove(job);
+        if (jobs.isEmpty()) {
+            clients.remove(job.getClientId());
+        }
+        if (clients.isEmpty()) {
+            levels.remove(job.getPriority());
+        }
+        return job;
+    }
+
+    public synchronized Job get(String jobId) {
+        return queuedJobs.get(jobId);
+    }
+
+    /**
+     * Posición de un trabajo en el orden de admisión
+     * @return Posición (0 = siguiente en admitirse) o -1 si no está en espera
+     */
+    public synchronized int getPosition(String jobId) {
+        Job target = queuedJobs.get(jobId);
+        if (target == null) {
+            return -1;
+        }
+
+        int position = 0;
+        for (Map.Entry<Integer, LinkedHashMap<String, ArrayDeque<Job>>> level : levels.entrySet()) {
+            if (level.getKey() != target.getPriority()) {
+                for (ArrayDeque<Job> jobs : level.getValue().values()) {
+                    position += jobs.size();
+                }
+                continue;
+            }
+
+            // Round-robin: en cada vuelta sale un trabajo por cliente en orden de turno
+            List<Iterator<Job>> turns = new ArrayList<>();
+            for (ArrayDeque<Job> jobs : level.getValue().values()) {
+                turns.add(jobs.iterator());
+            }
+            while (true) {
+                for (Iterator<Job> turn : turns) {
+                    if (!turn.hasNext()) {
+                        continue;
+                    }
+                    if (turn.next() == target) {
+                        return position;
+                    }
+                    position++;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public synchronized int size() {
+        return queuedJobs.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return queuedJobs.isEmpty();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -1,7 +1,25 @@
 package com.gridmr.master.components;
 
+import com.gridmr.master.io.InputSplit;
+import com.gridmr.master.io.IntermediateFileReader;
+import com.gridmr.master.io.IntermediateFileWriter;
+import com.gridmr.master.io.KWayMergeIterator;
+import com.gridmr.master.io.KeyValue;
+import com.gridmr.master.io.LineRecordReader;
+import com.gridmr.master.io.RecordReader;
+import com.gridmr.master.io.SplitPlanner;
 import com.gridmr.master.model.DataChunk;
+import com.gridmr.master.model.Job;
+import com.gridmr.master.model.Worker;
+import com.gridmr.master.shuffle.Combiner;
+import com.gridmr.master.shuffle.CombiningCollector;
+import com.gridmr.master.shuffle.PartitionStatistics;
+import com.gridmr.master.shuffle.Partitioner;
+import com.gridmr.master.shuffle.ShuffleFetchResult;
+import com.gridmr.master.shuffle.ShufflePartition;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -20,9 +38,24 @@ public class ChunkManager {
     // Mapa de chunks por trabajo (jobId -> List<DataChunk>)
     private final Map<String, List<DataChunk>> jobChunks;
     
+    // Índice de shuffle: segmentos intermedios por reducer (jobId -> reducerId -> segmentos)
+    private final Map<String, Map<Integer, ShufflePartition>> shuffleIndex;
+    
+    // Salida Map aún sin confirmar, por intento (prefijo de la tarea -> attemptId -> segmentos)
+    private final Map<String, Map<String, List<DataChunk>>> pendingMapOutputs;
+    
     // Mapa de chunks en transferencia (chunkId -> WorkerId)
     private final Map<String, String> chunksInTransfer;
     
+    // Planificador de splits alineados a inicio de línea
+    private final SplitPlanner splitPlanner;
+    
+    // Envío de chunks a los workers (pool acotado, límite por worker)
+    private final ChunkTransferService transferService;
+    
+    // Para resolver la dirección de los workers destino
+    private ResourceManager resourceManager;
+    
     // Scheduler para tareas de limpieza
     private ScheduledExecutorService cleanupScheduler;
     
@@ -30,6 +63,7 @@ public class ChunkManager {
     private static final int MAX_STORAGE_GB = 10; // 10GB máximo de almacenamiento
     private static final int CLEANUP_INTERVAL_MINUTES = 30;
     private static final int CHUNK_RETENTION_HOURS = 24; // 24 horas de retención
+    private static final int COMBINE_BUFFER_MB = 32; // Memoria de agregación por tarea Map
     
     // Estadísticas
     private long totalChunksCreated;
@@ -41,7 +75,11 @@ public class ChunkManager {
         this.chunkStoragePath = System.getProperty("java.io.tmpdir") + "/gridmr-chunks";
         this.storedChunks = new ConcurrentHashMap<>();
         this.jobChunks = new ConcurrentHashMap<>();
+        this.shuffleIndex = new ConcurrentHashMap<>();
+        this.pendingMapOutputs = new ConcurrentHashMap<>();
         this.chunksInTransfer = new ConcurrentHashMap<>();
+        this.splitPlanner = new SplitPlanner();
+        this.transferService = new ChunkTransferService();
         
         this.totalChunksCreated = 0;
         this.totalChunksTransferred = 0;
@@ -86,16 +124,24 @@ public class ChunkManager {
             }
         }
         
+        transferService.stop();
+        
         // Limpiar todos los chunks al detener
         cleanupAllChunks();
         
         System.out.println("ChunkManager detenido");
     }
     
+    public void setResourceManager(ResourceManager resourceManager) {
+        this.resourceManager = resourceManager;
+    }
+    
     // ==================== MÉTODOS DE GESTIÓN DE CHUNKS ====================
     
     /**
-     * Crea chunks a partir de un archivo de entrada
+     * Crea chunks a partir de un archivo de entrada.
+     * Los chunks son splits lógicos (archivo, inicio, fin) alineados a fin de línea:
+     * no se copia ningún dato, los workers leen el rango directamente del archivo (NFS).
      * @param jobId ID del trabajo
      * @param inputFile Archivo de entrada
      * @param chunkSizeMB Tamaño del chunk en MB
@@ -106,6 +152,10 @@ public class ChunkManager {
         
         List<DataChunk> chunks = new ArrayList<>();
         
+        // Los IDs continúan la numeración del trabajo para no repetirse entre archivos
+        List<DataChunk> registeredChunks = jobChunks.computeIfAbsent(jobId, id -> Collections.synchronizedList(new ArrayList<>()));
+        int firstChunkIndex = registeredChunks.size();
+        
         try {
             // Verificar que el archivo existe
             Path filePath = Paths.get(inputFile);
@@ -113,49 +163,29 @@ public class ChunkManager {
                 throw new FileNotFoundException("Archivo no encontrado: " + inputFile);
             }
             
-            // Obtener tamaño real del archivo
-            long fileSizeBytes = Files.size(filePath);
-            long chunkSizeBytes = chunkSizeMB * 1024L * 1024L;
-            int numChunks = (int) Math.max(1, (fileSizeBytes + chunkSizeBytes - 1) / chunkSizeBytes);
+            long chunkSizeBytes = Math.max(1, chunkSizeMB) * 1024L * 1024L;
             
-            System.out.println("Archivo: " + inputFile + " - Tamaño: " + (fileSizeBytes / (1024 * 1024)) + " MB - Chunks: " + numChunks);
-            
-            // Leer y dividir el archivo en chunks reales
-            try (FileInputStream fis = new FileInputStream(inputFile)) {
-                for (int i = 0; i < numChunks; i++) {
-                    String chunkId = jobId + "_chunk_" + i;
-                    long startOffset = i * chunkSizeBytes;
-                    long endOffset = Math.min(startOffset + chunkSizeBytes, fileSizeBytes);
-                    long actualChunkSize = endOffset - startOffset;
-                    
-                    // Crear chunk con offsets reales
-                    DataChunk chunk = new DataChunk(chunkId, jobId, inputFile, startOffset, endOffset);
-                    
-                    // Leer contenido real del archivo
-                    byte[] chunkData = new byte[(int) actualChunkSize];
-                    fis.getChannel().position(startOffset);
-                    int bytesRead = fis.read(chunkData);
-                    
-                    if (bytesRead > 0) {
-                        // Almacenar chunk en disco
-                        String chunkFilePath = storeChunkToDisk(chunk, chunkData);
-                        chunk.setLocation(chunkFilePath);
-                        
-                        // Almacenar en memoria para acceso rápido
-                        storeChunk(chunk);
-                        chunks.add(chunk);
-                        
-                        totalChunksCreated++;
-                        
-                        System.out.println("Chunk " + chunkId + " creado - Tamaño: " + actualChunkSize + " bytes, Archivo: " + chunkFilePath);
-                    }
-                }
+            // Límites movidos al inicio de la línea siguiente (ventana mapeada acotada)
+            List<InputSplit> splits = splitPlanner.plan(filePath, chunkSizeBytes);
+            for (int i = 0; i < splits.size(); i++) {
+                InputSplit split = splits.get(i);
+                String chunkId = jobId + "_chunk_" + (firstChunkIndex + i);
+                DataChunk chunk = new DataChunk(chunkId, jobId, inputFile, split.getStart(), split.getEnd());
+                chunk.setLogical(true);
+                chunk.setLocation(inputFile);
+                
+                storeChunk(chunk);
+                chunks.add(chunk);
+                totalChunksCreated++;
             }
             
-            // Registrar chunks del trabajo
-            jobChunks.put(jobId, chunks);
+            System.out.println("Archivo: " + inputFile + " - Tamaño: " + (Files.size(filePath) / (1024 * 1024)) + 
+                            " MB - Splits lógicos: " + chunks.size());
+            
+            // Registrar chunks del trabajo (se acumulan si el trabajo tiene varios archivos)
+            registeredChunks.addAll(chunks);
             
-            System.out.println("Creados " + chunks.size() + " chunks reales para archivo " + inputFile);
+            System.out.println("Creados " + chunks.size() + " chunks lógicos para archivo " + inputFile);
             
         } catch (Exception e) {
             System.err.println("Error creando chunks para archivo " + inputFile + ": " + e.getMessage());
@@ -165,6 +195,57 @@ public class ChunkManager {
         return chunks;
     }
     
+    /**
+     * Abre un lector de líneas sobre un chunk de entrada.
+     * Cada línea se devuelve en exactamente un chunk (el que contiene su primer byte).
+     * @param chunk Chunk de entrada
+     * @return RecordReader (offset, línea); debe cerrarse
+     */
+    public RecordReader<Long, String> openRecordReader(DataChunk chunk) throws IOException {
+        if (chunk.isLogical()) {
+            return new LineRecordReader(new InputSplit(chunk.getOriginalFileName(), chunk.getStartOffset(), chunk.getEndOffset()));
+        }
+        // Chunk materializado: el archivo contiene solo el rango del chunk
+        return new LineRecordReader(new InputSplit(chunk.getLocation(), 0, chunk.getSizeBytes()));
+    }
+    
+    /**
+     * Materializa un chunk lógico en un archivo propio usando FileChannel.transferTo
+     * (copia en el kernel, sin pasar los datos por el heap).
+     * Solo es necesario si el worker no puede leer el archivo original.
+     * @param chunk Chunk lógico
+     * @return Ruta del archivo del chunk
+     */
+    public String materializeChunk(DataChunk chunk) throws IOException {
+        if (!chunk.isLogical()) {
+            return chunk.getLocation();
+        }
+        
+        Path chunkFilePath = resolveChunkFile(chunk.getJobId(), chunk.getChunkId() + ".chunk");
+        
+        try (FileChannel source = FileChannel.open(Paths.get(chunk.getOriginalFileName()), StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(chunkFilePath, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = chunk.getStartOffset();
+            long remaining = chunk.getSizeBytes();
+            while (remaining > 0) {
+                long transferred = source.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        
+        chunk.setLogical(false);
+        chunk.setLocation(chunkFilePath.toString());
+        totalStorageUsedBytes += chunk.getSizeBytes();
+        
+        System.out.println("Chunk " + chunk.getChunkId() + " materializado en disco: " + chunkFilePath);
+        return chunkFilePath.toString();
+    }
+    
     /**
      * Almacena un chunk en el sistema
      * @param chunk Chunk a almacenar
@@ -176,37 +257,29 @@ public class ChunkManager {
             cleanupOldChunks();
         }
         
-        // Almacenar en memoria para acceso rápido
-        storedChunks.put(chunk.getChunkId(), chunk);
-        totalStorageUsedBytes += chunk.getSizeBytes();
+        // Almacenar en memoria para acceso rápido (los splits lógicos no ocupan almacenamiento)
+        DataChunk previous = storedChunks.put(chunk.getChunkId(), chunk);
+        if (previous != null && !previous.isLogical()) {
+            totalStorageUsedBytes -= previous.getSizeBytes(); // Un reintento reemplaza el chunk anterior
+        }
+        if (!chunk.isLogical()) {
+            totalStorageUsedBytes += chunk.getSizeBytes();
+        }
         
         System.out.println("Chunk " + chunk.getChunkId() + " almacenado en memoria (" + 
                         chunk.getSizeBytes() + " bytes)");
     }
     
-    /**
-     * Almacena un chunk en disco
-     * @param chunk Chunk a almacenar
-     * @param chunkData Datos del chunk
-     * @return Ruta del archivo creado
-     */
-    private String storeChunkToDisk(DataChunk chunk, byte[] chunkData) throws IOException {
-        // Crear directorio específico para el trabajo
-        Path jobDir = Paths.get(chunkStoragePath, chunk.getJobId());
+    // Directorio de archivos de un trabajo (lo crea si no existe)
+    private Path resolveJobDir(String jobId) throws IOException {
+        Path jobDir = Paths.get(chunkStoragePath, jobId);
         Files.createDirectories(jobDir);
-        
-        // Crear archivo del chunk
-        String chunkFileName = chunk.getChunkId() + ".chunk";
-        Path chunkFilePath = jobDir.resolve(chunkFileName);
-        
-        // Escribir datos reales al archivo
-        try (FileOutputStream fos = new FileOutputStream(chunkFilePath.toFile())) {
-            fos.write(chunkData);
-            fos.flush();
-        }
-        
-        System.out.println("Chunk " + chunk.getChunkId() + " almacenado en disco: " + chunkFilePath);
-        return chunkFilePath.toString();
+        return jobDir;
+    }
+    
+    // Ruta de un archivo dentro del directorio del trabajo
+    private Path resolveChunkFile(String jobId, String fileName) throws IOException {
+        return resolveJobDir(jobId).resolve(fileName);
     }
     
     /**
@@ -224,7 +297,26 @@ public class ChunkManager {
             throw new FileNotFoundException("Archivo de chunk no encontrado: " + chunkFilePath);
         }
         
-        return Files.readAllBytes(chunkFilePath);
+        if (!chunk.isLogical()) {
+            return Files.readAllBytes(chunkFilePath);
+        }
+        
+        // Split lógico: leer solo el rango del archivo original
+        if (chunk.getSizeBytes() > Integer.MAX_VALUE) {
+            throw new IOException("Chunk " + chunk.getChunkId() + " demasiado grande para leerse en memoria");
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) chunk.getSizeBytes());
+        try (FileChannel channel = FileChannel.open(chunkFilePath, StandardOpenOption.READ)) {
+            long position = chunk.getStartOffset();
+            while (data.hasRemaining()) {
+                int read = channel.read(data, position);
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+            }
+        }
+        return data.array();
     }
     
     /**
@@ -250,7 +342,7 @@ public class ChunkManager {
      * @param chunkId ID del chunk
      * @param workerId ID del worker que lo está transfiriendo
      */
-    public void markChunkInTransfer(String chunkId, String workerId) {
+    public synchronized void markChunkInTransfer(String chunkId, String workerId) {
         chunksInTransfer.put(chunkId, workerId);
         activeTransfers++;
         
@@ -262,7 +354,7 @@ public class ChunkManager {
      * @param chunkId ID del chunk
      * @param success true si la transferencia fue exitosa
      */
-    public void markChunkTransferred(String chunkId, boolean success) {
+    public synchronized void markChunkTransferred(String chunkId, boolean success) {
         String workerId = chunksInTransfer.remove(chunkId);
         if (workerId != null) {
             activeTransfers--;
@@ -280,10 +372,11 @@ public class ChunkManager {
     
     /**
      * Transfiere un chunk a un worker (Map-modo1)
+     * Sin llamadores por ahora: los workers no implementan ReceiveChunk
      * @param chunkId ID del chunk
      * @param workerId ID del worker destino
      * @param transferMode Modo de transferencia
-     * @return true si la transferencia se inició exitosamente
+     * @return true si la transferencia se encoló exitosamente
      */
     public boolean transferChunkToWorker(String chunkId, String workerId, String transferMode) {
         DataChunk chunk = storedChunks.get(chunkId);
@@ -292,32 +385,32 @@ public class ChunkManager {
             return false;
         }
         
+        Worker worker = resourceManager != null ? resourceManager.getWorker(workerId) : null;
+        if (worker == null) {
+            System.err.println("Worker " + workerId + " no encontrado para transferencia de chunk " + chunkId);
+            return false;
+        }
+        
+        // Un chunk lógico se lee del archivo original; uno materializado, de su propio archivo
+        Path source = chunk.isLogical() ? Paths.get(chunk.getOriginalFileName()) : Paths.get(chunk.getLocation());
+        long offset = chunk.isLogical() ? chunk.getStartOffset() : 0;
+        
         // Marcar como en transferencia
         markChunkInTransfer(chunkId, workerId);
         
-        System.out.println("Iniciando transferencia real de chunk " + chunkId + 
+        System.out.println("Encolando transferencia de chunk " + chunkId + 
                         " a Worker " + workerId + " (Modo: " + transferMode + ")");
         
-        // Transferencia real asíncrona
-        new Thread(() -> {
-            try {
-                // Leer datos reales del chunk
-                byte[] chunkData = readChunkFromDisk(chunk);
-                
-                // TODO: Implementar transferencia gRPC real
-                // Por ahora, simular transferencia exitosa
-                System.out.println("Transferencia gRPC de chunk " + chunkId + " completada - " + 
-                                chunkData.length + " bytes enviados");
-                
-                markChunkTransferred(chunkId, true);
-                
-            } catch (Exception e) {
-                System.err.println("Error en transferencia de chunk " + chunkId + ": " + e.getMessage());
-                markChunkTransferred(chunkId, false);
-            }
-        }).start();
-        
-        return true;
+        boolean queued = transferService.submit(chunkId, chunk.getJobId(), workerId, worker.getHost(), worker.getPort(),
+                                                source, offset, chunk.getSizeBytes(), this::markChunkTransferred);
+        if (!queued) {
+            markChunkTransferred(chunkId, false);
+        }
+        return queued;
+    }
+    
+    public ChunkTransferService getTransferService() {
+        return transferService;
     }
     
     /**
@@ -341,36 +434,192 @@ public class ChunkManager {
     }
     
     /**
-     * Almacena resultado intermedio de una tarea Map
+     * Almacena resultado intermedio de una tarea Map en formato texto (una línea "clave\tvalor"
+     * por registro); se convierte a un run binario ordenado
      * @param jobId ID del trabajo
      * @param taskId ID de la tarea
+     * @param attemptId ID del intento que produjo el resultado
      * @param resultData Datos del resultado
      * @param reducerId ID del reducer destino
      */
-    public void storeIntermediateResult(String jobId, String taskId, String resultData, int reducerId) {
-        String chunkId = jobId + "_intermediate_" + taskId + "_reducer_" + reducerId;
+    public void storeIntermediateResult(String jobId, String taskId, String attemptId, String resultData, int reducerId) {
+        List<KeyValue> records = new ArrayList<>();
+        for (String line : resultData.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            int tab = line.indexOf('\t');
+            records.add(tab >= 0 ? KeyValue.of(line.substring(0, tab), line.substring(tab + 1)) : KeyValue.of(line, ""));
+        }
+        storeIntermediateRun(jobId, taskId, attemptId, reducerId, records);
+    }
+    
+    /**
+     * Almacena la salida de un intento Map para un reducer como run binario ordenado.
+     * El segmento no llega a los reducers hasta que el intento se confirma (commitMapAttempt)
+     * @param jobId ID del trabajo
+     * @param taskId ID de la tarea
+     * @param attemptId ID del intento (archivo y chunk propios: los intentos especulativos no se pisan)
+     * @param reducerId ID del reducer destino
+     * @param records Registros en cualquier orden
+     * @return Chunk del segmento o null si hubo error
+     */
+    public DataChunk storeIntermediateRun(String jobId, String taskId, String attemptId, int reducerId, List<KeyValue> records) {
+        String chunkId = intermediatePrefix(jobId, attemptId) + "_reducer_" + reducerId;
         
         try {
-            // Crear chunk para resultado intermedio
-            DataChunk chunk = new DataChunk(chunkId, jobId, "intermediate", 0, resultData.length());
-            
-            // Almacenar en disco
-            byte[] resultBytes = resultData.getBytes("UTF-8");
-            String chunkFilePath = storeChunkToDisk(chunk, resultBytes);
-            chunk.setLocation(chunkFilePath);
-            
-            // Marcar como intermedio usando el location
-            chunk.setLocation("intermediate_reducer_" + reducerId + ":" + chunkFilePath);
-            
-            // Almacenar en memoria
-            storeChunk(chunk);
+            Path runFilePath = resolveChunkFile(jobId, chunkId + ".run");
+            IntermediateFileWriter.writeSortedRun(runFilePath, records);
             
+            DataChunk chunk = registerIntermediateRun(jobId, taskId, attemptId, reducerId, runFilePath, records.size());
             System.out.println("Resultado intermedio almacenado: " + chunkId + 
-                            " (Reducer: " + reducerId + ", Tamaño: " + resultData.length() + " bytes, Archivo: " + chunkFilePath);
+                            " (Reducer: " + reducerId + ", Registros: " + records.size() + 
+                            ", Tamaño: " + chunk.getSizeBytes() + " bytes, Archivo: " + runFilePath + ")");
+            return chunk;
                             
         } catch (Exception e) {
             System.err.println("Error almacenando resultado intermedio " + chunkId + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Almacena la salida completa de una tarea Map aplicando el combiner del trabajo.
+     * La agregación en memoria está acotada (COMBINE_BUFFER_MB); al llenarse se vuelca
+     * a disco y los volcados se mezclan al final. Sin combiner se particiona tal cual.
+     * Si algún segmento no puede almacenarse se descarta toda la salida del intento
+     * y se lanza la excepción: el intento debe marcarse como fallido y nunca confirmarse
+     * @param job Trabajo (reducers, combiner y partitioner)
+     * @param taskId ID de la tarea Map
+     * @param attemptId ID del intento que produjo la salida
+     * @param records Salida del Map
+     * @return Segmentos almacenados, uno por reducer con datos
+     * @throws IOException Si la salida no pudo combinarse o escribirse por completo
+     */
+    public List<DataChunk> storeMapOutput(Job job, String taskId, String attemptId, Iterator<KeyValue> records)
+            throws IOException {
+        String jobId = job.getJobId();
+        int numReducers = Math.max(1, job.getNumReducers());
+        Partitioner partitioner = Partitioner.forJob(job);
+        Combiner combiner = Combiner.forFunction(job.getCombineFunction());
+        List<DataChunk> segments = new ArrayList<>();
+        
+        if (combiner == null) {
+            Map<Integer, List<KeyValue>> partitions = new TreeMap<>();
+            while (records.hasNext()) {
+                KeyValue record = records.next();
+                int reducerId = partitioner.getPartition(record.getKey(), numReducers);
+                partitions.computeIfAbsent(reducerId, id -> new ArrayList<>()).add(record);
+            }
+            for (Map.Entry<Integer, List<KeyValue>> partition : partitions.entrySet()) {
+                DataChunk segment = storeIntermediateRun(jobId, taskId, attemptId, partition.getKey(), partition.getValue());
+                if (segment == null) {
+                    discardMapAttempt(jobId, taskId, attemptId);
+                    throw new IOException("No se pudo almacenar el segmento del reducer " + partition.getKey() + 
+                                        " de " + attemptId);
+                }
+                segments.add(segment);
+            }
+            return segments;
+        }
+        
+        CombiningCollector collector = new CombiningCollector(resolveJobDir(jobId),
+            intermediatePrefix(jobId, attemptId), combiner, partitioner, numReducers, COMBINE_BUFFER_MB * 1024L * 1024L);
+        try {
+            while (records.hasNext()) {
+                collector.collect(records.next());
+            }
+            for (Map.Entry<Integer, Path> output : collector.finish().entrySet()) {
+                segments.add(registerIntermediateRun(jobId, taskId, attemptId, output.getKey(), output.getValue(),
+                                                     collector.getPartitionRecordCount(output.getKey())));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Un valor no combinable (NumberFormatException) o un error de disco invalidan todo el intento
+            collector.abort();
+            discardMapAttempt(jobId, taskId, attemptId);
+            System.err.println("Error combinando salida de Map " + attemptId + ": " + e.getMessage());
+            throw e instanceof IOException ? (IOException) e
+                                           : new IOException("Error combinando salida de Map " + attemptId, e);
+        }
+        
+        System.out.println("Salida de Map " + taskId + " combinada: " + collector.getRecordsCollected() + 
+                        " -> " + collector.getRecordsWritten() + " registros (" + collector.getSpillCount() + 
+                        " volcados, " + segments.size() + " segmentos)");
+        return segments;
+    }
+    
+    // Elimina los segmentos ya registrados de un intento Map que no llegó a completar su salida
+    private void discardMapAttempt(String jobId, String taskId, String attemptId) {
+        Map<String, List<DataChunk>> attempts = pendingMapOutputs.get(intermediatePrefix(jobId, taskId));
+        List<DataChunk> segments = attempts != null ? attempts.remove(attemptId) : null;
+        if (segments == null) {
+            return;
+        }
+        synchronized (segments) {
+            for (DataChunk segment : segments) {
+                removeChunk(segment.getChunkId());
+            }
+        }
+        System.out.println("[INFO] Salida incompleta del intento " + attemptId + " descartada (" + 
+                        segments.size() + " segmentos)");
+    }
+    
+    // Prefijo de los archivos y chunks de una tarea o de uno de sus intentos (taskId_attempt_N)
+    private String intermediatePrefix(String jobId, String taskOrAttemptId) {
+        return jobId + "_intermediate_" + taskOrAttemptId;
+    }
+    
+    // Registra un run ya escrito como salida pendiente de confirmar de un intento
+    private DataChunk registerIntermediateRun(String jobId, String taskId, String attemptId, int reducerId,
+                                              Path runFilePath, long recordCount) throws IOException {
+        String chunkId = intermediatePrefix(jobId, attemptId) + "_reducer_" + reducerId;
+        DataChunk chunk = new DataChunk(chunkId, jobId, "intermediate", 0, Files.size(runFilePath));
+        chunk.markIntermediate(taskId, reducerId);
+        chunk.setRecordCount(recordCount);
+        chunk.setLocation(runFilePath.toString());
+        
+        storeChunk(chunk);
+        pendingMapOutputs.computeIfAbsent(intermediatePrefix(jobId, taskId), key -> new ConcurrentHashMap<>())
+                         .computeIfAbsent(attemptId, id -> Collections.synchronizedList(new ArrayList<>()))
+                         .add(chunk);
+        return chunk;
+    }
+    
+    /**
+     * Confirma la salida del intento ganador de una tarea Map: sus segmentos se
+     * publican a los reducers (un reintento reemplaza el segmento anterior de la tarea)
+     * y se descarta la salida de los demás intentos
+     * @param jobId ID del trabajo
+     * @param taskId ID de la tarea Map
+     * @param attemptId ID del intento que terminó primero
+     * @return Número de segmentos publicados
+     */
+    public int commitMapAttempt(String jobId, String taskId, String attemptId) {
+        Map<String, List<DataChunk>> attempts = pendingMapOutputs.remove(intermediatePrefix(jobId, taskId));
+        if (attempts == null) {
+            return 0;
         }
+        
+        int published = 0;
+        for (Map.Entry<String, List<DataChunk>> attempt : attempts.entrySet()) {
+            List<DataChunk> segments;
+            synchronized (attempt.getValue()) {
+                segments = new ArrayList<>(attempt.getValue());
+            }
+            if (attempt.getKey().equals(attemptId)) {
+                for (DataChunk segment : segments) {
+                    getShufflePartition(jobId, segment.getPartitionId()).put(segment);
+                }
+                published = segments.size();
+            } else {
+                for (DataChunk segment : segments) {
+                    removeChunk(segment.getChunkId());
+                }
+                System.out.println("[INFO] Salida del intento " + attempt.getKey() + " descartada (" + 
+                                segments.size() + " segmentos)");
+            }
+        }
+        return published;
     }
     
     /**
@@ -380,42 +629,92 @@ public class ChunkManager {
      * @return Lista de chunks intermedios
      */
     public List<DataChunk> getIntermediateResults(String jobId, int reducerId) {
-        List<DataChunk> results = new ArrayList<>();
-        
-        for (DataChunk chunk : storedChunks.values()) {
-            if (chunk.getJobId().equals(jobId) && 
-                chunk.getLocation() != null && chunk.getLocation().contains("intermediate_reducer_" + reducerId)) {
-                results.add(chunk);
-            }
-        }
+        Map<Integer, ShufflePartition> jobPartitions = shuffleIndex.get(jobId);
+        ShufflePartition partition = jobPartitions != null ? jobPartitions.get(reducerId) : null;
+        List<DataChunk> results = partition != null ? partition.getSegments() : new ArrayList<>();
         
         System.out.println("Obtenidos " + results.size() + " resultados intermedios para Reducer " + reducerId);
         return results;
     }
     
     /**
-     * Lee el contenido de un resultado intermedio desde disco
+     * Obtiene el tamaño de cada partición de un trabajo a partir de los segmentos registrados
+     * @param jobId ID del trabajo
+     * @return Estadísticas por reducer (reducerId -> estadísticas); solo reducers con datos
+     */
+    public Map<Integer, PartitionStatistics> getPartitionStatistics(String jobId) {
+        Map<Integer, PartitionStatistics> statistics = new TreeMap<>();
+        Map<Integer, ShufflePartition> jobPartitions = shuffleIndex.get(jobId);
+        if (jobPartitions == null) {
+            return statistics;
+        }
+        for (Map.Entry<Integer, ShufflePartition> partition : jobPartitions.entrySet()) {
+            statistics.put(partition.getKey(),
+                           new PartitionStatistics(partition.getKey(), partition.getValue().getSegments()));
+        }
+        return statistics;
+    }
+    
+    /**
+     * Divide la partición de un reducer entre sub-tareas; los segmentos que lleguen
+     * después se asignan al grupo con menos bytes
+     * @param jobId ID del trabajo
+     * @param reducerId ID del reducer
+     * @param segmentGroups IDs de segmento de cada sub-tarea
+     */
+    public void splitPartition(String jobId, int reducerId, List<List<String>> segmentGroups) {
+        getShufflePartition(jobId, reducerId).split(segmentGroups);
+    }
+    
+    /**
+     * Petición incremental de segmentos de un reducer (shuffle con slow-start)
+     * @param jobId ID del trabajo
+     * @param reducerId ID del reducer
+     * @param group Sub-tarea de una partición dividida (-1 = toda la partición)
+     * @param cursor Cursor devuelto por la petición anterior (0 al empezar)
+     * @param maxSegments Máximo de segmentos a devolver
+     * @param mapPhaseComplete true si todas las tareas Map terminaron
+     * @return Segmentos nuevos, cursor siguiente y si la partición está completa
+     */
+    public ShuffleFetchResult fetchShuffleSegments(String jobId, int reducerId, int group, int cursor,
+                                                   int maxSegments, boolean mapPhaseComplete) {
+        return getShufflePartition(jobId, reducerId).fetch(group, cursor, maxSegments, mapPhaseComplete);
+    }
+    
+    private ShufflePartition getShufflePartition(String jobId, int reducerId) {
+        return shuffleIndex.computeIfAbsent(jobId, id -> new ConcurrentHashMap<>())
+                           .computeIfAbsent(reducerId, id -> new ShufflePartition());
+    }
+    
+    /**
+     * Abre un segmento intermedio para lectura en streaming
      * @param chunk Chunk intermedio
-     * @return Contenido del resultado
+     * @return Lector del run (debe cerrarse)
      */
-    public String readIntermediateResult(DataChunk chunk) throws IOException {
+    public IntermediateFileReader openIntermediateRun(DataChunk chunk) throws IOException {
         if (chunk.getLocation() == null) {
             throw new IOException("Chunk intermedio no tiene ubicación en disco");
         }
         
-        // Extraer ruta del archivo del location
-        String filePath = chunk.getLocation();
-        if (filePath.contains(":")) {
-            filePath = filePath.substring(filePath.indexOf(":") + 1);
-        }
-        
-        Path chunkFilePath = Paths.get(filePath);
+        Path chunkFilePath = Paths.get(chunk.getLocation());
         if (!Files.exists(chunkFilePath)) {
             throw new FileNotFoundException("Archivo de resultado intermedio no encontrado: " + chunkFilePath);
         }
-        
-        byte[] data = Files.readAllBytes(chunkFilePath);
-        return new String(data, "UTF-8");
+        return new IntermediateFileReader(chunkFilePath);
+    }
+    
+    /**
+     * Abre la entrada de un reducer: mezcla ordenada de todos sus segmentos con memoria acotada
+     * @param jobId ID del trabajo
+     * @param reducerId ID del reducer
+     * @return Iterador ordenado por clave (debe cerrarse)
+     */
+    public KWayMergeIterator openReducerInput(String jobId, int reducerId) throws IOException {
+        List<Path> runFiles = new ArrayList<>();
+        for (DataChunk segment : getIntermediateResults(jobId, reducerId)) {
+            runFiles.add(Paths.get(segment.getLocation()));
+        }
+        return KWayMergeIterator.open(runFiles);
     }
     
     // ==================== MÉTODOS DE LIMPIEZA ====================
@@ -425,11 +724,10 @@ public class ChunkManager {
         System.out.println("Iniciando limpieza de chunks antiguos...");
         
         List<String> chunksToRemove = new ArrayList<>();
-        java.time.LocalDateTime cutoffTime = java.time.LocalDateTime.now()
-            .minusHours(CHUNK_RETENTION_HOURS);
+        long retentionMs = TimeUnit.HOURS.toMillis(CHUNK_RETENTION_HOURS);
         
         for (DataChunk chunk : storedChunks.values()) {
-            if (chunk.getCreatedAt().isBefore(cutoffTime)) {
+            if (chunk.getAgeMs() > retentionMs) {
                 chunksToRemove.add(chunk.getChunkId());
             }
         }
@@ -449,6 +747,8 @@ public class ChunkManager {
         
         storedChunks.clear();
         jobChunks.clear();
+        shuffleIndex.clear();
+        pendingMapOutputs.clear();
         chunksInTransfer.clear();
         
         totalStorageUsedBytes = 0;
@@ -464,14 +764,10 @@ public class ChunkManager {
     private void removeChunk(String chunkId) {
         DataChunk chunk = storedChunks.remove(chunkId);
         if (chunk != null) {
-            // Remover archivo del disco si existe
-            if (chunk.getLocation() != null) {
+            // Remover archivo del disco si existe (nunca el archivo original de un split lógico)
+            if (chunk.getLocation() != null && !chunk.isLogical()) {
                 try {
-                    String filePath = chunk.getLocation();
-                    if (filePath.contains(":")) {
-                        filePath = filePath.substring(filePath.indexOf(":") + 1);
-                    }
-                    Path chunkFilePath = Paths.get(filePath);
+                    Path chunkFilePath = Paths.get(chunk.getLocation());
                     if (Files.exists(chunkFilePath)) {
                         Files.delete(chunkFilePath);
                         System.out.println("Archivo de chunk eliminado: " + chunkFilePath);
@@ -481,7 +777,12 @@ public class ChunkManager {
                 }
             }
             
-            totalStorageUsedBytes -= chunk.getSizeBytes();
+            if (!chunk.isLogical()) {
+                totalStorageUsedBytes -= chunk.getSizeBytes();
+            }
+            if (chunk.isIntermediate()) {
+                unindexIntermediate(chunk);
+            }
             System.out.println("Chunk " + chunkId + " removido del almacenamiento");
         }
     }
@@ -498,6 +799,47 @@ public class ChunkManager {
             }
             System.out.println("Chunks del trabajo " + jobId + " limpiados");
         }
+        
+        // Salidas de intentos que nunca se confirmaron
+        String jobPrefix = intermediatePrefix(jobId, "");
+        for (String key : new ArrayList<>(pendingMapOutputs.keySet())) {
+            if (!key.startsWith(jobPrefix)) {
+                continue;
+            }
+            Map<String, List<DataChunk>> attempts = pendingMapOutputs.remove(key);
+            if (attempts == null) {
+                continue;
+            }
+            for (List<DataChunk> segments : attempts.values()) {
+                synchronized (segments) {
+                    for (DataChunk segment : new ArrayList<>(segments)) {
+                        removeChunk(segment.getChunkId());
+                    }
+                }
+            }
+        }
+        
+        // Segmentos intermedios del trabajo
+        Map<Integer, ShufflePartition> jobPartitions = shuffleIndex.remove(jobId);
+        if (jobPartitions != null) {
+            for (ShufflePartition partition : jobPartitions.values()) {
+                for (DataChunk segment : partition.getSegments()) {
+                    removeChunk(segment.getChunkId());
+                }
+            }
+        }
+    }
+    
+    // Quita un segmento del índice de shuffle si sigue siendo el vigente de su tarea
+    private void unindexIntermediate(DataChunk chunk) {
+        Map<Integer, ShufflePartition> jobPartitions = shuffleIndex.get(chunk.getJobId());
+        if (jobPartitions == null) {
+            return;
+        }
+        ShufflePartition partition = jobPartitions.get(chunk.getPartitionId());
+        if (partition != null) {
+            partition.remove(chunk);
+        }
     }
     
     // ==================== MÉTODOS DE UTILIDAD ====================
@@ -531,6 +873,7 @@ public class ChunkManager {
         stats.append("Chunks transferidos: ").append(totalChunksTransferred).append("\n");
         stats.append("Almacenamiento usado: ").append(totalStorageUsedBytes / (1024 * 1024)).append(" MB\n");
         stats.append("Trabajos con chunks: ").append(jobChunks.size()).append("\n");
+        stats.append("Trabajos con shuffle: ").append(shuffleIndex.size()).append("\n");
         
         return stats.toString();
     }
@@ -0,0 +1,696 @@
+package com.gridmr.master.components;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ChunkTransferService - Envío de chunks a los workers por gRPC (Map-modo1)
+ *
+ * Cada chunk se envía como un stream cliente (WorkerService/ReceiveChunk) de frames
+ * de tamaño fijo leídos del archivo con FileChannel; nunca se carga el chunk completo
+ * en memoria. El envío respeta el control de flujo de gRPC: el siguiente frame solo
+ * se lee cuando el stream está listo (isReady/onReady), así un worker lento frena la
+ * lectura del disco en lugar de acumular frames en el heap.
+ *
+ * Las transferencias corren en un pool acotado y cada worker tiene un límite de
+ * transferencias simultáneas; las demás esperan en la cola de ese worker. Cada
+ * transferencia reutiliza un único buffer de frame, que se codifica directamente en
+ * el stream de salida de gRPC. Los reintentos se reprograman con backoff sin ocupar
+ * un hilo del pool mientras esperan.
+ *
+ * Estado: solo existe el lado del master. Los workers reales (workers/worker.proto,
+ * paquete worker) implementan únicamente ProcessMap, ProcessReduce y CheckHealth;
+ * worker_service.proto no se compila en ningún lado y ChunkManager.transferChunkToWorker
+ * no tiene llamadores. Hoy nada ejecuta este servicio, y si se usara cada transferencia
+ * fallaría con UNIMPLEMENTED, que no se reintenta.
+ */
+public class ChunkTransferService {
+
+    // Configuración
+    private static final int MAX_CONCURRENT_TRANSFERS = 16;
+    private static final int MAX_TRANSFERS_PER_WORKER = 2;
+    private static final int FRAME_SIZE_BYTES = 1024 * 1024; // 1MB (< 4MB máximo de gRPC)
+    private static final int MAX_TRANSFER_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final int TRANSFER_TIMEOUT_SECONDS = 120;
+    private static final int READY_TIMEOUT_SECONDS = 30;
+
+    // Método gRPC definido en worker_service.proto (ReceiveChunk); los mensajes se
+    // codifican a mano porque la compilación de los .proto está deshabilitada.
+    // Ningún worker implementa todavía este método (ver el estado en la clase)
+    private static final MethodDescriptor<ChunkFrame, ChunkAck> RECEIVE_CHUNK_METHOD =
+        MethodDescriptor.<ChunkFrame, ChunkAck>newBuilder()
+            .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("gridmr.worker.WorkerService", "ReceiveChunk"))
+            .setRequestMarshaller(new ChunkFrameMarshaller())
+            .setResponseMarshaller(new ChunkAckMarshaller())
+            .build();
+
+    /**
+     * Notificación de fin de transferencia
+     */
+    public interface TransferCallback {
+        void onTransferComplete(String chunkId, boolean success);
+    }
+
+    private final ThreadPoolExecutor transferExecutor;
+
+    // Reprograma los reintentos tras el backoff sin bloquear el pool de transferencias
+    private final ScheduledExecutorService retryScheduler;
+
+    // Transferencias esperando su reintento (conservan el permiso de su worker)
+    private final Set<TransferRequest> retryingRequests;
+
+    // Canales gRPC reutilizados por dirección (host:port -> canal)
+    private final Map<String, ManagedChannel> channels;
+
+    // Cola y permisos de cada worker (workerId -> WorkerLane)
+    private final Map<String, WorkerLane> workerLanes;
+
+    private volatile boolean running;
+
+    // Estadísticas
+    private final AtomicLong totalTransfersCompleted;
+    private final AtomicLong totalTransfersFailed;
+    private final AtomicLong totalRetries;
+    private final AtomicLong totalBytesTransferred;
+    private final AtomicLong totalTransferTimeMs;
+
+    public ChunkTransferService() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.transferExecutor = new ThreadPoolExecutor(
+            MAX_CONCURRENT_TRANSFERS, MAX_CONCURRENT_TRANSFERS,
+            60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "gridmr-chunk-transfer-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.transferExecutor.allowCoreThreadTimeOut(true);
+        ScheduledThreadPoolExecutor retryExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "gridmr-chunk-transfer-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryExecutor.setRemoveOnCancelPolicy(true);
+        this.retryScheduler = retryExecutor;
+        this.retryingRequests = ConcurrentHashMap.newKeySet();
+        this.channels = new ConcurrentHashMap<>();
+        this.workerLanes = new ConcurrentHashMap<>();
+        this.running = true;
+
+        this.totalTransfersCompleted = new AtomicLong();
+        this.totalTransfersFailed = new AtomicLong();
+        this.totalRetries = new AtomicLong();
+        this.totalBytesTransferred = new AtomicLong();
+        this.totalTransferTimeMs = new AtomicLong();
+
+        System.out.println("ChunkTransferService inicializado - Máx. " + MAX_CONCURRENT_TRANSFERS +
+                        " transferencias (" + MAX_TRANSFERS_PER_WORKER + " por worker)");
+    }
+
+    public void stop() {
+        running = false;
+        retryScheduler.shutdownNow();
+        transferExecutor.shutdownNow();
+        for (ManagedChannel channel : channels.values()) {
+            channel.shutdownNow();
+        }
+        channels.clear();
+
+        int discarded = 0;
+        for (TransferRequest request : retryingRequests) {
+            if (retryingRequests.remove(request)) {
+                request.callback.onTransferComplete(request.chunkId, false);
+                discarded++;
+            }
+        }
+        for (WorkerLane lane : workerLanes.values()) {
+            TransferRequest request;
+            while ((request = lane.waiting.poll()) != null) {
+                request.callback.onTransferComplete(request.chunkId, false);
+                discarded++;
+            }
+        }
+        System.out.println("ChunkTransferService detenido - " + discarded + " transferencias descartadas");
+    }
+
+    // ==================== MÉTODOS DE TRANSFERENCIA ====================
+
+    /**
+     * Encola la transferencia de un rango de archivo a un worker
+     * @param chunkId ID del chunk
+     * @param jobId ID del trabajo
+     * @param workerId ID del worker destino
+     * @param host Host del worker
+     * @param port Puerto gRPC del worker
+     * @param file Archivo que contiene los datos
+     * @param offset Offset inicial dentro del archivo
+     * @param length Número de bytes a enviar
+     * @param callback Notificación al terminar (éxito o fallo definitivo)
+     * @return true si la transferencia se encoló
+     */
+    public boolean submit(String chunkId, String jobId, String workerId, String host, int port,
+                          Path file, long offset, long length, TransferCallback callback) {
+        if (!running) {
+            return false;
+        }
+
+        TransferRequest request = new TransferRequest(chunkId, jobId, workerId, host, port,
+                                                      file, offset, length, callback);
+        WorkerLane lane = workerLanes.computeIfAbsent(workerId, id -> new WorkerLane());
+        lane.waiting.add(request);
+        drain(lane);
+        return true;
+    }
+
+    // Lanza transferencias de la cola del worker mientras tenga permisos libres
+    private void drain(WorkerLane lane) {
+        while (!lane.waiting.isEmpty() && lane.permits.tryAcquire()) {
+            TransferRequest request = lane.waiting.poll();
+            if (request == null) {
+                lane.permits.release();
+                break;
+            }
+            try {
+                transferExecutor.execute(() -> runTransfer(lane, request, 1));
+            } catch (RejectedExecutionException e) {
+                lane.permits.release();
+                totalTransfersFailed.incrementAndGet();
+                request.callback.onTransferComplete(request.chunkId, false);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta un intento de la transferencia. Si falla con un error reintentable se
+     * reprograma tras el backoff conservando el permiso del worker; el hilo del pool
+     * queda libre mientras tanto
+     */
+    private void runTransfer(WorkerLane lane, TransferRequest request, int attempt) {
+        if (!running) {
+            finishTransfer(lane, request, false);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            long bytesSent = streamChunk(request);
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+            totalTransfersCompleted.incrementAndGet();
+            totalBytesTransferred.addAndGet(bytesSent);
+            totalTransferTimeMs.addAndGet(elapsedMs);
+            System.out.println("[OK] Chunk " + request.chunkId + " enviado a Worker " + request.workerId +
+                            " - " + bytesSent + " bytes en " + elapsedMs + " ms (" +
+                            String.format("%.2f", throughputMBps(bytesSent, elapsedMs)) + " MB/s, intento " + attempt + ")");
+            finishTransfer(lane, request, true);
+        } catch (TransferException e) {
+            if (!e.retryable || attempt == MAX_TRANSFER_ATTEMPTS || !running) {
+                System.err.println("[ERROR] Transferencia de chunk " + request.chunkId + " a Worker " +
+                                request.workerId + " fallida (intento " + attempt + "): " + e.getMessage());
+                finishTransfer(lane, request, false);
+                return;
+            }
+            long backoffMs = INITIAL_BACKOFF_MS << (attempt - 1);
+            totalRetries.incrementAndGet();
+            System.out.println("[WARN] Reintentando chunk " + request.chunkId + " a Worker " +
+                            request.workerId + " en " + backoffMs + " ms: " + e.getMessage());
+            scheduleRetry(lane, request, attempt + 1, backoffMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finishTransfer(lane, request, false);
+        } catch (RuntimeException e) {
+            System.err.println("[ERROR] Transferencia de chunk " + request.chunkId + " a Worker " +
+                            request.workerId + " fallida (intento " + attempt + "): " + e.getMessage());
+            finishTransfer(lane, request, false);
+        }
+    }
+
+    // Devuelve la transferencia al pool cuando vence el backoff
+    private void scheduleRetry(WorkerLane lane, TransferRequest request, int attempt, long backoffMs) {
+        retryingRequests.add(request);
+        try {
+            retryScheduler.schedule(() -> {
+                if (!retryingRequests.remove(request)) {
+                    return; // Ya descartada por stop()
+                }
+                try {
+                    transferExecutor.execute(() -> runTransfer(lane, request, attempt));
+                } catch (RejectedExecutionException e) {
+                    finishTransfer(lane, request, false);
+                }
+            }, backoffMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            if (retryingRequests.remove(request)) {
+                finishTransfer(lane, request, false);
+            }
+        }
+    }
+
+    // Fin definitivo de una transferencia: libera el permiso, notifica y lanza la siguiente del worker
+    private void finishTransfer(WorkerLane lane, TransferRequest request, boolean success) {
+        if (!success) {
+            totalTransfersFailed.incrementAndGet();
+        }
+        lane.permits.release();
+        try {
+            request.callback.onTransferComplete(request.chunkId, success);
+        } finally {
+            drain(lane);
+        }
+    }
+
+    /**
+     * Envía el rango del chunk como un stream de frames respetando el control de flujo
+     * @return Bytes enviados
+     */
+    private long streamChunk(TransferRequest request) throws TransferException, InterruptedException {
+        ManagedChannel channel = getChannel(request.host, request.port);
+        ClientCall<ChunkFrame, ChunkAck> call = channel.newCall(RECEIVE_CHUNK_METHOD,
+            CallOptions.DEFAULT.withDeadlineAfter(TRANSFER_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Object readyLock = new Object();
+        CompletableFuture<ChunkAck> result = new CompletableFuture<>();
+        call.start(new ClientCall.Listener<ChunkAck>() {
+            private ChunkAck ack;
+
+            @Override
+            public void onMessage(ChunkAck message) {
+                ack = message;
+            }
+
+            @Override
+            public void onReady() {
+                synchronized (readyLock) {
+                    readyLock.notifyAll();
+                }
+            }
+
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+                if (status.isOk()) {
+                    result.complete(ack);
+                } else {
+                    result.completeExceptionally(status.asRuntimeException(trailers));
+                }
+                synchronized (readyLock) {
+                    readyLock.notifyAll();
+                }
+            }
+        }, new Metadata());
+        call.request(1);
+
+        long end = request.offset + request.length;
+        long position = request.offset;
+        // Un solo buffer por transferencia: sendMessage serializa el frame antes de
+        // volver, así que el buffer puede rellenarse de nuevo para el siguiente
+        ByteBuffer frame = ByteBuffer.allocate((int) Math.max(1, Math.min(FRAME_SIZE_BYTES, request.length)));
+        try (FileChannel fileChannel = FileChannel.open(request.file, StandardOpenOption.READ)) {
+            do {
+                awaitReady(call, readyLock, result);
+
+                int frameSize = (int) Math.min(frame.capacity(), end - position);
+                frame.clear().limit(frameSize);
+                while (frame.hasRemaining()) {
+                    if (fileChannel.read(frame, position + frame.position()) < 0) {
+                        throw new EOFException("Fin de archivo antes de completar el chunk");
+                    }
+                }
+
+                boolean last = position + frameSize >= end;
+                call.sendMessage(new ChunkFrame(request.chunkId, request.jobId,
+                                                position - request.offset, frame.array(), frameSize, last));
+                position += frameSize;
+            } while (position < end);
+        } catch (IOException e) {
+            call.cancel("Error leyendo chunk", e);
+            throw new TransferException("Error leyendo " + request.file + ": " + e.getMessage(), false);
+        }
+        call.halfClose();
+
+        ChunkAck ack = awaitAck(result, TRANSFER_TIMEOUT_SECONDS, call);
+        if (ack == null || !ack.success) {
+            throw new TransferException("Worker rechazó el chunk" +
+                                        (ack != null && !ack.message.isEmpty() ? ": " + ack.message : ""), false);
+        }
+        long bytesSent = position - request.offset;
+        if (ack.bytesReceived > 0 && ack.bytesReceived != bytesSent) {
+            throw new TransferException("Worker recibió " + ack.bytesReceived + " de " + bytesSent + " bytes", true);
+        }
+        return bytesSent;
+    }
+
+    // Espera a que el stream acepte otro frame (backpressure del worker)
+    private void awaitReady(ClientCall<ChunkFrame, ChunkAck> call, Object readyLock,
+                            CompletableFuture<ChunkAck> result) throws TransferException, InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(READY_TIMEOUT_SECONDS);
+        synchronized (readyLock) {
+            while (!call.isReady() && !result.isDone()) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if (remainingMs <= 0) {
+                    call.cancel("Worker no acepta datos", null);
+                    throw new TransferException("Worker no acepta datos tras " + READY_TIMEOUT_SECONDS + "s", true);
+                }
+                readyLock.wait(remainingMs);
+            }
+        }
+        if (result.isDone()) {
+            // El worker cerró el stream antes de terminar el envío
+            awaitAck(result, READY_TIMEOUT_SECONDS, call);
+            throw new TransferException("Stream cerrado por el worker antes de completar el chunk", true);
+        }
+    }
+
+    private ChunkAck awaitAck(CompletableFuture<ChunkAck> result, int timeoutSeconds,
+                              ClientCall<ChunkFrame, ChunkAck> call) throws TransferException, InterruptedException {
+        try {
+            return result.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            call.cancel("Timeout esperando confirmación", null);
+            throw new TransferException("Timeout esperando confirmación del worker", true);
+        } catch (ExecutionException e) {
+            Status status = e.getCause() instanceof StatusRuntimeException
+                ? ((StatusRuntimeException) e.getCause()).getStatus()
+                : Status.fromThrowable(e.getCause());
+            throw new TransferException("gRPC " + status.getCode() +
+                                        (status.getDescription() != null ? ": " + status.getDescription() : ""),
+                                        isRetryable(status.getCode()));
+        }
+    }
+
+    private boolean isRetryable(Status.Code code) {
+        return code == Status.Code.UNAVAILABLE
+            || code == Status.Code.DEADLINE_EXCEEDED
+            || code == Status.Code.RESOURCE_EXHAUSTED
+            || code == Status.Code.ABORTED;
+    }
+
+    private ManagedChannel getChannel(String host, int port) {
+        return channels.computeIfAbsent(host + ":" + port,
+            address -> ManagedChannelBuilder.forAddress(host, port).usePlaintext().build());
+    }
+
+    private static double throughputMBps(long bytes, long elapsedMs) {
+        return elapsedMs > 0 ? (bytes / (1024.0 * 1024.0)) / (elapsedMs / 1000.0) : 0.0;
+    }
+
+    // ==================== MÉTODOS DE CONSULTA ====================
+
+    /**
+     * Obtiene el número de transferencias esperando permiso de su worker
+     * @return Transferencias en cola
+     */
+    public int getQueuedTransfers() {
+        int queued = 0;
+        for (WorkerLane lane : workerLanes.values()) {
+            queued += lane.waiting.size();
+        }
+        return queued;
+    }
+
+    public int getRunningTransfers() {
+        return transferExecutor.getActiveCount();
+    }
+
+    public long getTotalTransfersCompleted() {
+        return totalTransfersCompleted.get();
+    }
+
+    public long getTotalTransfersFailed() {
+        return totalTransfersFailed.get();
+    }
+
+    public long getTotalRetries() {
+        return totalRetries.get();
+    }
+
+    public long getTotalBytesTransferred() {
+        return totalBytesTransferred.get();
+    }
+
+    /**
+     * Obtiene el throughput medio de las transferencias completadas
+     * @return MB/s
+     */
+    public double getAverageThroughputMBps() {
+        return throughputMBps(totalBytesTransferred.get(), totalTransferTimeMs.get());
+    }
+
+    // ==================== CLASES INTERNAS ====================
+
+    private static final class TransferRequest {
+        private final String chunkId;
+        private final String jobId;
+        private final String workerId;
+        private final String host;
+        private final int port;
+        private final Path file;
+        private final long offset;
+        private final long length;
+        private final TransferCallback callback;
+
+        private TransferRequest(String chunkId, String jobId, String workerId, String host, int port,
+                                Path file, long offset, long length, TransferCallback callback) {
+            this.chunkId = chunkId;
+            this.jobId = jobId;
+            this.workerId = workerId;
+            this.host = host;
+            this.port = port;
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.callback = callback;
+        }
+    }
+
+    // Cola de transferencias pendientes y permisos de un worker
+    private static final class WorkerLane {
+        private final Semaphore permits = new Semaphore(MAX_TRANSFERS_PER_WORKER);
+        private final Queue<TransferRequest> waiting = new ConcurrentLinkedQueue<>();
+    }
+
+    private static final class TransferException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean retryable;
+
+        private TransferException(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+    }
+
+    // message ChunkFrame { string chunk_id = 1; string job_id = 2; int64 offset = 3; bytes data = 4; bool last = 5; }
+    private static final class ChunkFrame {
+        private final String chunkId;
+        private final String jobId;
+        private final long offset;
+        private final byte[] data; // Solo los primeros length bytes son del frame
+        private final int length;
+        private final boolean last;
+
+        private ChunkFrame(String chunkId, String jobId, long offset, byte[] data, int length, boolean last) {
+            this.chunkId = chunkId;
+            this.jobId = jobId;
+            this.offset = offset;
+            this.data = data;
+            this.length = length;
+            this.last = last;
+        }
+
+        private int getSerializedSize() {
+            return CodedOutputStream.computeStringSize(1, chunkId)
+                 + CodedOutputStream.computeStringSize(2, jobId)
+                 + CodedOutputStream.computeInt64Size(3, offset)
+                 + CodedOutputStream.computeTagSize(4) + CodedOutputStream.computeUInt32SizeNoTag(length) + length
+                 + CodedOutputStream.computeBoolSize(5, last);
+        }
+
+        private void writeTo(CodedOutputStream output) throws IOException {
+            output.writeString(1, chunkId);
+            output.writeString(2, jobId);
+            output.writeInt64(3, offset);
+            output.writeByteArray(4, data, 0, length);
+            output.writeBool(5, last);
+        }
+    }
+
+    // message ChunkAck { bool success = 1; int64 bytes_received = 2; string message = 3; }
+    private static final class ChunkAck {
+        private boolean success;
+        private long bytesReceived;
+        private String message = "";
+    }
+
+    /**
+     * Stream de un ChunkFrame para gRPC. El framer de gRPC usa drainTo y los datos se
+     * codifican directamente en su salida sin copiarlos a un array intermedio; read()
+     * solo se usa como respaldo y entonces sí serializa el frame a memoria
+     */
+    private static final class ChunkFrameStream extends InputStream implements Drainable, KnownLength {
+        private ChunkFrame frame;
+        private final int size;
+        private ByteArrayInputStream fallback;
+
+        private ChunkFrameStream(ChunkFrame frame) {
+            this.frame = frame;
+            this.size = frame.getSerializedSize();
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            if (frame == null) {
+                return fallback != null ? (int) fallback.transferTo(target) : 0;
+            }
+            CodedOutputStream output = CodedOutputStream.newInstance(target,
+                Math.min(CodedOutputStream.DEFAULT_BUFFER_SIZE, size));
+            frame.writeTo(output);
+            output.flush();
+            frame = null;
+            return size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return encoded().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return encoded().read(buffer, offset, length);
+        }
+
+        @Override
+        public int available() {
+            if (frame != null) {
+                return size;
+            }
+            return fallback != null ? fallback.available() : 0;
+        }
+
+        private ByteArrayInputStream encoded() throws IOException {
+            if (fallback == null) {
+                byte[] bytes = new byte[frame != null ? size : 0];
+                if (frame != null) {
+                    CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+                    frame.writeTo(output);
+                    output.checkNoSpaceLeft();
+                    frame = null;
+                }
+                fallback = new ByteArrayInputStream(bytes);
+            }
+            return fallback;
+        }
+    }
+
+    private static final class ChunkFrameMarshaller implements MethodDescriptor.Marshaller<ChunkFrame> {
+        @Override
+        public InputStream stream(ChunkFrame frame) {
+            return new ChunkFrameStream(frame);
+        }
+
+        @Override
+        public ChunkFrame parse(InputStream stream) {
+            String chunkId = "";
+            String jobId = "";
+            long offset = 0;
+            byte[] data = new byte[0];
+            boolean last = false;
+            try {
+                CodedInputStream input = CodedInputStream.newInstance(stream);
+                input.setSizeLimit(Integer.MAX_VALUE);
+                int tag;
+                while ((tag = input.readTag()) != 0) {
+                    switch (tag >>> 3) {
+                        case 1: chunkId = input.readString(); break;
+                        case 2: jobId = input.readString(); break;
+                        case 3: offset = input.readInt64(); break;
+                        case 4: data = input.readByteArray(); break;
+                        case 5: last = input.readBool(); break;
+                        default: input.skipField(tag);
+                    }
+                }
+            } catch (IOException e) {
+                throw Status.INTERNAL.withDescription("ChunkFrame inválido").withCause(e).asRuntimeException();
+            }
+            return new ChunkFrame(chunkId, jobId, offset, data, data.length, last);
+        }
+    }
+
+    private static final class ChunkAckMarshaller implements MethodDescriptor.Marshaller<ChunkAck> {
+        @Override
+        public InputStream stream(ChunkAck ack) {
+            int size = CodedOutputStream.computeBoolSize(1, ack.success)
+                     + CodedOutputStream.computeInt64Size(2, ack.bytesReceived)
+                     + CodedOutputStream.computeStringSize(3, ack.message);
+            byte[] encoded = new byte[size];
+            CodedOutputStream output = CodedOutputStream.newInstance(encoded);
+            try {
+                output.writeBool(1, ack.success);
+                output.writeInt64(2, ack.bytesReceived);
+                output.writeString(3, ack.message);
+                output.checkNoSpaceLeft();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error codificando ChunkAck", e);
+            }
+            return new ByteArrayInputStream(encoded);
+        }
+
+        @Override
+        public ChunkAck parse(InputStream stream) {
+            ChunkAck ack = new ChunkAck();
+            try {
+                CodedInputStream input = CodedInputStream.newInstance(stream);
+                int tag;
+                while ((tag = input.readTag()) != 0) {
+                    switch (tag >>> 3) {
+                        case 1: ack.success = input.readBool(); break;
+                        case 2: ack.bytesReceived = input.readInt64(); break;
+                        case 3: ack.message = input.readString(); break;
+                        default: input.skipField(tag);
+                    }
+                }
+            } catch (IOException e) {
+                throw Status.INTERNAL.withDescription("ChunkAck inválido").withCause(e).asRuntimeException();
+            }
+            return ack;
+        }
+    }
+}
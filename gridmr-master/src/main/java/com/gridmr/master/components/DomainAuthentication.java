@@ -5,6 +5,7 @@ import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class DomainAuthentication {
     
@@ -23,6 +24,11 @@ public class DomainAuthentication {
     // Mapa de intentos de login fallidos (workerId -> LoginAttempts)
     private final Map<String, LoginAttempts> failedAttempts;
     
+    // Rueda de temporizadores compartida y plazo de expiración de cada sesión (workerId -> Timeout)
+    private TimerWheel timerWheel;
+    private boolean ownsTimerWheel;
+    private final Map<String, TimerWheel.Timeout> sessionTimers;
+    
     // Estadísticas
     private int totalAuthentications;
     private int failedAuthentications;
@@ -32,6 +38,7 @@ public class DomainAuthentication {
         this.authenticatedWorkers = new ConcurrentHashMap<>();
         this.activeTokens = new ConcurrentHashMap<>();
         this.failedAttempts = new ConcurrentHashMap<>();
+        this.sessionTimers = new ConcurrentHashMap<>();
         
         this.totalAuthentications = 0;
         this.failedAuthentications = 0;
@@ -40,24 +47,38 @@ public class DomainAuthentication {
         System.out.println("DomainAuthentication inicializado");
     }
     
+    /**
+     * Asigna la rueda de temporizadores compartida. Debe llamarse antes de start();
+     * si no se asigna, DomainAuthentication crea una propia.
+     * @param timerWheel Rueda de temporizadores
+     */
+    public void setTimerWheel(TimerWheel timerWheel) {
+        this.timerWheel = timerWheel;
+    }
+    
     public void start() {
         System.out.println("Iniciando DomainAuthentication");
         
-        // Iniciar limpieza periódica de sesiones expiradas
-        Timer cleanupTimer = new Timer(true);
-        cleanupTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                cleanupExpiredSessions();
-            }
-        }, 0, 60000); // Cada minuto
+        if (timerWheel == null) {
+            timerWheel = new TimerWheel();
+            ownsTimerWheel = true;
+        }
+        timerWheel.start();
         
-        System.out.println("DomainAuthentication iniciado - Limpieza automática activa");
+        System.out.println("DomainAuthentication iniciado - Expiración de sesiones por plazos activa");
     }
     
     public void stop() {
         System.out.println("Deteniendo DomainAuthentication");
         
+        for (TimerWheel.Timeout timeout : sessionTimers.values()) {
+            timeout.cancel();
+        }
+        sessionTimers.clear();
+        if (ownsTimerWheel && timerWheel != null) {
+            timerWheel.stop();
+        }
+        
         // Limpiar todas las sesiones
         authenticatedWorkers.clear();
         activeTokens.clear();
@@ -94,6 +115,7 @@ public class DomainAuthentication {
             SessionInfo session = new SessionInfo(workerId, workerHost, token, LocalDateTime.now());
             authenticatedWorkers.put(workerId, session);
             activeTokens.put(token, workerId);
+            armSessionTimer(workerId, TimeUnit.HOURS.toMillis(TOKEN_EXPIRY_HOURS));
             
             // Limpiar intentos fallidos
             failedAttempts.remove(workerId);
@@ -160,6 +182,7 @@ public class DomainAuthentication {
      */
     public boolean logoutWorker(String workerId) {
         SessionInfo session = authenticatedWorkers.remove(workerId);
+        cancelSessionTimer(workerId);
         if (session != null) {
             activeTokens.remove(session.getToken());
             activeSessions--;
@@ -178,6 +201,7 @@ public class DomainAuthentication {
         String workerId = activeTokens.remove(token);
         if (workerId != null) {
             authenticatedWorkers.remove(workerId);
+            cancelSessionTimer(workerId);
             activeSessions--;
             System.out.println("Sesión cerrada por token para worker: " + workerId);
             return true;
@@ -282,23 +306,42 @@ public class DomainAuthentication {
         }
     }
     
-    // Limpieza de sesiones expiradas
-    private void cleanupExpiredSessions() {
-        List<String> expiredWorkers = new ArrayList<>();
-        
-        for (Map.Entry<String, SessionInfo> entry : authenticatedWorkers.entrySet()) {
-            if (entry.getValue().isExpired(TOKEN_EXPIRY_HOURS)) {
-                expiredWorkers.add(entry.getKey());
-            }
+    // Programa el plazo de expiración de la sesión de un worker
+    private void armSessionTimer(String workerId, long delayMs) {
+        if (timerWheel == null) {
+            return;
+        }
+        TimerWheel.Timeout timeout = timerWheel.schedule(() -> onSessionDeadline(workerId), delayMs, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout previous = sessionTimers.put(workerId, timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+    
+    private void cancelSessionTimer(String workerId) {
+        TimerWheel.Timeout timeout = sessionTimers.remove(workerId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+    
+    // Vence el plazo de una sesión: si hubo accesos desde entonces se rearma por el tiempo restante
+    private void onSessionDeadline(String workerId) {
+        SessionInfo session = authenticatedWorkers.get(workerId);
+        if (session == null) {
+            sessionTimers.remove(workerId);
+            return;
         }
         
-        for (String workerId : expiredWorkers) {
+        if (session.isExpired(TOKEN_EXPIRY_HOURS)) {
             logoutWorker(workerId);
+            System.out.println("Sesión expirada removida para worker: " + workerId);
+            return;
         }
         
-        if (!expiredWorkers.isEmpty()) {
-            System.out.println("Limpieza de sesiones: " + expiredWorkers.size() + " sesiones expiradas removidas");
-        }
+        LocalDateTime expiresAt = session.getLastAccess().plusHours(TOKEN_EXPIRY_HOURS);
+        long remainingMs = java.time.Duration.between(LocalDateTime.now(), expiresAt).toMillis();
+        armSessionTimer(workerId, Math.max(1, remainingMs));
     }
     
     // ==================== MÉTODOS DE ESTADÍSTICAS ====================
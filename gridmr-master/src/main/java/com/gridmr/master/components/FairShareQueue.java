@@ -0,0 +1,355 @@
+package com.gridmr.master.components;
+
+import com.gridmr.master.model.Task;
+import com.gridmr.master.model.TaskType;
+import com.gridmr.master.model.Timestamps;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FairShareQueue - Tareas pendientes agrupadas por trabajo y cliente
+ *
+ * En lugar de una cola global (donde el primer trabajo grande acapara el cluster
+ * hasta vaciarse), cada trabajo tiene su propia cola por tipo de tarea. El siguiente
+ * trabajo a atender es el de mayor prioridad base (su nivel no vacío más alto); a
+ * igual prioridad, el del cliente con menor participación ponderada (tareas en
+ * ejecución / peso del cliente), luego el trabajo con menos tareas en ejecución y
+ * por último el más antiguo.
+ *
+ * Cada cola de trabajo tiene un nivel FIFO por prioridad de tarea (0-10). Dentro de
+ * un trabajo, la prioridad efectiva de un nivel sube un punto por cada
+ * AGING_INTERVAL_MS que espera su tarea más antigua, así sus tareas de relleno no
+ * quedan postergadas indefinidamente por las urgentes. El envejecimiento no se usa
+ * entre trabajos: la espera de un trabajo grande no le gana el turno a uno recién
+ * llegado de la misma prioridad, que recibe slots en la siguiente ronda según su cuota.
+ */
+public class FairShareQueue {
+
+    private static final double DEFAULT_CLIENT_WEIGHT = 1.0;
+    
+    public static final int MAX_PRIORITY = 10;
+    private static final long AGING_INTERVAL_MS = 30_000; // Un nivel de prioridad por cada 30s en espera
+
+    // jobId -> colas del trabajo
+    private final Map<String, JobQueue> jobQueues;
+
+    // clientId -> peso (mayor peso = mayor parte del cluster)
+    private final Map<String, Double> clientWeights;
+
+    private final AtomicInteger pendingMapTasks;
+    private final AtomicInteger pendingReduceTasks;
+    private final AtomicLong jobSequence;
+
+    public FairShareQueue() {
+        this.jobQueues = new ConcurrentHashMap<>();
+        this.clientWeights = new ConcurrentHashMap<>();
+        this.pendingMapTasks = new AtomicInteger();
+        this.pendingReduceTasks = new AtomicInteger();
+        this.jobSequence = new AtomicLong();
+    }
+
+    /**
+     * Agrega una tarea a la cola de su trabajo
+     */
+    public void add(Task task) {
+        task.setEnqueuedAtMs(Timestamps.now());
+        JobQueue queue = jobQueues.computeIfAbsent(task.getJobId(),
+            jobId -> new JobQueue(jobId, task.getClientId(), jobSequence.incrementAndGet()));
+        queue.forType(task.getType()).offer(task);
+        counterFor(task.getType()).incrementAndGet();
+    }
+
+    /**
+     * Devuelve a la cola una tarea que ya estuvo en ella (no llegó a asignarse o se
+     * reencola tras un timeout), conservando su antigüedad: vuelve al frente de su
+     * nivel con su hora de entrada original. Se descarta si el trabajo ya no tiene cola
+     */
+    public void restore(Task task) {
+        JobQueue queue = jobQueues.get(task.getJobId());
+        if (queue == null) {
+            return;
+        }
+        if (task.getEnqueuedAtMs() == 0) {
+            task.setEnqueuedAtMs(Timestamps.now());
+        }
+        queue.forType(task.getType()).offerFirst(task);
+        counterFor(task.getType()).incrementAndGet();
+    }
+
+    /**
+     * Quita una tarea pendiente (al asignarla)
+     * @return true si la tarea estaba en la cola
+     */
+    public boolean remove(Task task) {
+        JobQueue queue = jobQueues.get(task.getJobId());
+        if (queue == null || !queue.forType(task.getType()).remove(task)) {
+            return false;
+        }
+        counterFor(task.getType()).decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Elige el siguiente trabajo a atender
+     * @param type Tipo de tarea a asignar
+     * @param runningByJob Tareas en ejecución por trabajo
+     * @param runningByClient Tareas en ejecución por cliente
+     * @param skippedJobs Trabajos que no pudieron asignar nada en esta ronda
+     * @param now Tiempo actual en ms monótonos, Timestamps.now() (envejecimiento dentro del trabajo)
+     * @return Tareas pendientes del trabajo elegido, de mayor a menor prioridad efectiva,
+     *         o null si no hay candidatos
+     */
+    public Iterable<Task> nextJobTasks(TaskType type, Map<String, Integer> runningByJob,
+                                       Map<String, Integer> runningByClient, Set<String> skippedJobs, long now) {
+        JobQueue best = null;
+        int bestPriority = 0;
+        double bestShare = 0;
+        int bestRunning = 0;
+
+        for (JobQueue queue : jobQueues.values()) {
+            PriorityLevels levels = queue.forType(type);
+            if (skippedJobs.contains(queue.jobId)) {
+                continue;
+            }
+            int priority = levels.basePriority();
+            if (priority < 0) {
+                continue; // Sin tareas pendientes de este tipo
+            }
+
+            double share = runningByClient.getOrDefault(queue.clientId, 0) / getClientWeight(queue.clientId);
+            int running = runningByJob.getOrDefault(queue.jobId, 0);
+            if (best == null || priority > bestPriority ||
+                (priority == bestPriority && (share < bestShare ||
+                 (share == bestShare && (running < bestRunning ||
+                  (running == bestRunning && queue.sequence < best.sequence)))))) {
+                best = queue;
+                bestPriority = priority;
+                bestShare = share;
+                bestRunning = running;
+            }
+        }
+        return best != null ? best.forType(type).inPriorityOrder(now) : null;
+    }
+
+    /**
+     * Busca una tarea pendiente por ID
+     * @return Task o null si no está pendiente
+     */
+    public Task find(String taskId) {
+        for (JobQueue queue : jobQueues.values()) {
+            Task task = queue.mapTasks.find(taskId);
+            if (task == null) {
+                task = queue.reduceTasks.find(taskId);
+            }
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Descarta las colas de un trabajo terminado
+     */
+    public void removeJob(String jobId) {
+        JobQueue queue = jobQueues.remove(jobId);
+        if (queue != null) {
+            pendingMapTasks.addAndGet(-queue.mapTasks.size());
+            pendingReduceTasks.addAndGet(-queue.reduceTasks.size());
+        }
+    }
+
+    public int size(TaskType type) {
+        return counterFor(type).get();
+    }
+
+    public boolean isEmpty() {
+        return pendingMapTasks.get() == 0 && pendingReduceTasks.get() == 0;
+    }
+
+    public int getJobCount() {
+        return jobQueues.size();
+    }
+
+    public void setClientWeight(String clientId, double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("El peso debe ser positivo: " + weight);
+        }
+        clientWeights.put(clientId, weight);
+    }
+
+    public double getClientWeight(String clientId) {
+        return clientId != null ? clientWeights.getOrDefault(clientId, DEFAULT_CLIENT_WEIGHT) : DEFAULT_CLIENT_WEIGHT;
+    }
+
+    private AtomicInteger counterFor(TaskType type) {
+        return type == TaskType.MAP ? pendingMapTasks : pendingReduceTasks;
+    }
+
+    // Colas pendientes de un trabajo
+    private static final class JobQueue {
+        private final String jobId;
+        private final String clientId;
+        private final long sequence;
+        private final PriorityLevels mapTasks = new PriorityLevels();
+        private final PriorityLevels reduceTasks = new PriorityLevels();
+
+        private JobQueue(String jobId, String clientId, long sequence) {
+            this.jobId = jobId;
+            this.clientId = clientId;
+            this.sequence = sequence;
+        }
+
+        private PriorityLevels forType(TaskType type) {
+            return type == TaskType.MAP ? mapTasks : reduceTasks;
+        }
+    }
+
+    // Colas FIFO por nivel de prioridad de tarea, con envejecimiento
+    private static final class PriorityLevels {
+        private final Deque<Task>[] levels;
+        private final AtomicInteger size = new AtomicInteger();
+
+        // Recorrido reutilizable por prioridad efectiva (solo lo usa el hilo de despacho)
+        private final OrderedTasks orderedTasks = new OrderedTasks();
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private PriorityLevels() {
+            levels = new Deque[MAX_PRIORITY + 1];
+            for (int i = 0; i <= MAX_PRIORITY; i++) {
+                levels[i] = new ConcurrentLinkedDeque<>();
+            }
+        }
+
+        private void offer(Task task) {
+            levels[levelOf(task)].offer(task);
+            size.incrementAndGet();
+        }
+
+        // Al frente del nivel: la tarea es más antigua que las que llegaron después
+        private void offerFirst(Task task) {
+            levels[levelOf(task)].offerFirst(task);
+            size.incrementAndGet();
+        }
+
+        private boolean remove(Task task) {
+            if (levels[levelOf(task)].remove(task)) {
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private int size() {
+            return size.get();
+        }
+
+        private Task find(String taskId) {
+            for (Queue<Task> level : levels) {
+                for (Task task : level) {
+                    if (task.getTaskId().equals(taskId)) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Prioridad base de la cola para competir con otros trabajos: su nivel no
+         * vacío más alto, sin envejecimiento
+         * @return Prioridad o -1 si la cola está vacía
+         */
+        private int basePriority() {
+            for (int level = MAX_PRIORITY; level >= 0; level--) {
+                if (!levels[level].isEmpty()) {
+                    return level;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Recorre las tareas por nivel, empezando por el de mayor prioridad efectiva
+         * (a igual prioridad, el nivel más alto). No crea listas: ordena los niveles
+         * no vacíos por inserción en un arreglo reutilizable. El resultado es válido
+         * hasta la siguiente llamada.
+         */
+        private Iterable<Task> inPriorityOrder(long now) {
+            OrderedTasks ordered = orderedTasks;
+            int count = 0;
+            for (int level = MAX_PRIORITY; level >= 0; level--) {
+                Task head = levels[level].peek();
+                if (head == null) {
+                    continue;
+                }
+                int priority = agedPriority(level, head, now);
+                int i = count++;
+                while (i > 0 && ordered.priorities[i - 1] < priority) {
+                    ordered.levels[i] = ordered.levels[i - 1];
+                    ordered.priorities[i] = ordered.priorities[i - 1];
+                    i--;
+                }
+                ordered.levels[i] = level;
+                ordered.priorities[i] = priority;
+            }
+            ordered.count = count;
+            return ordered;
+        }
+
+        private static int agedPriority(int level, Task head, long now) {
+            if (head == null) {
+                return level;
+            }
+            long waited = Math.max(0, now - head.getEnqueuedAtMs());
+            return (int) Math.min(MAX_PRIORITY, level + waited / AGING_INTERVAL_MS);
+        }
+
+        private static int levelOf(Task task) {
+            return Math.min(MAX_PRIORITY, Math.max(0, task.getPriority()));
+        }
+
+        // Iterable e iterador a la vez: iterator() reinicia el recorrido sobre el orden calculado
+        private final class OrderedTasks implements Iterable<Task>, Iterator<Task> {
+            private final int[] levels = new int[MAX_PRIORITY + 1];
+            private final int[] priorities = new int[MAX_PRIORITY + 1];
+            private int count;
+            private int position;
+            private Iterator<Task> current;
+
+            @Override
+            public Iterator<Task> iterator() {
+                position = 0;
+                current = null;
+                return this;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (position >= count) {
+                        return false;
+                    }
+                    current = PriorityLevels.this.levels[levels[position++]].iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.gridmr.master.components;
+
+import com.gridmr.master.model.Worker;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HeartbeatIngestor - Ingesta de heartbeats de workers por lotes
+ *
+ * Los hilos HTTP/gRPC solo validan el worker y copian el reporte a un slot de un
+ * anillo preasignado (sin logs, sin objetos nuevos); un único hilo escritor vacía
+ * el anillo por lotes y aplica los reportes a los Worker. Así el coste por
+ * heartbeat es un par de escrituras y la notificación de disponibilidad al
+ * Scheduler se hace una vez por lote en lugar de una vez por heartbeat.
+ *
+ * El anillo sigue el esquema de cola acotada por secuencias: cada slot guarda la
+ * secuencia que espera; un productor reclama una posición con getAndIncrement y la
+ * publica con secuencia + 1, y el escritor la libera con secuencia + capacidad.
+ * Si el anillo está lleno, el productor espera (contrapresión) en lugar de perder
+ * el heartbeat.
+ *
+ * Sin escritor (antes de start o tras stop) la secuencia de reclamo vale CLOSED y
+ * los productores aplican el heartbeat directamente. Al detenerse, el escritor
+ * solo cierra el anillo con un CAS cuando todo lo reclamado ya fue aplicado, así
+ * ningún heartbeat queda publicado sin escritor ni ningún productor espera para siempre.
+ */
+public class HeartbeatIngestor {
+
+    // Métricas numéricas reconocidas en HeartbeatRequest.metrics (porcentaje 0-100)
+    public static final String METRIC_CPU_USAGE = "cpu_usage";
+    public static final String METRIC_MEMORY_USAGE = "memory_usage";
+
+    private static final int DEFAULT_CAPACITY = 16384;
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSED = -1; // Secuencia de reclamo sin hilo escritor
+
+    private final ResourceManager resourceManager;
+
+    private final Slot[] ring;
+    private final int mask;
+
+    // Siguiente posición a reclamar por los productores (CLOSED sin hilo escritor)
+    private final AtomicLong claimSequence;
+
+    // Siguiente posición a leer (solo la toca el hilo escritor)
+    private volatile long consumeSequence;
+
+    private Thread writerThread;
+    private volatile boolean running;
+    private volatile boolean writerIdle;
+
+    // Estadísticas
+    private final LongAdder totalHeartbeats;
+    private final LongAdder totalBatches;
+    private final LongAdder rejectedHeartbeats;
+
+    public HeartbeatIngestor(ResourceManager resourceManager) {
+        this(resourceManager, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param resourceManager ResourceManager donde se aplican los heartbeats
+     * @param capacity Slots del anillo (se redondea a potencia de 2)
+     */
+    public HeartbeatIngestor(ResourceManager resourceManager, int capacity) {
+        if (resourceManager == null) {
+            throw new IllegalArgumentException("resourceManager no puede ser null");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.resourceManager = resourceManager;
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot(i);
+        }
+        this.mask = size - 1;
+        this.claimSequence = new AtomicLong(CLOSED);
+        this.totalHeartbeats = new LongAdder();
+        this.totalBatches = new LongAdder();
+        this.rejectedHeartbeats = new LongAdder();
+
+        System.out.println("HeartbeatIngestor inicializado (" + size + " slots)");
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (writerThread != null && writerThread.isAlive()) {
+            // El escritor anterior aún vacía el anillo: esperar a que lo cierre
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        running = true;
+        claimSequence.set(consumeSequence); // Abrir el anillo
+        writerThread = new Thread(this::run, "gridmr-heartbeats");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        System.out.println("HeartbeatIngestor iniciado");
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("HeartbeatIngestor detenido - " + totalHeartbeats.sum() + " heartbeats en " + totalBatches.sum() + " lotes");
+    }
+
+    /**
+     * Encola el heartbeat de un worker
+     * @param workerId ID del worker
+     * @param activeTasks Tareas activas reportadas (-1 = no reportado)
+     * @param availableTasks Slots libres reportados (-1 = no reportado)
+     * @param metrics Métricas del worker (puede ser null)
+     * @return true si el worker está registrado
+     */
+    public boolean submit(String workerId, int activeTasks, int availableTasks, Map<String, String> metrics) {
+        Worker worker = workerId != null ? resourceManager.getWorker(workerId) : null;
+        if (worker == null) {
+            rejectedHeartbeats.increment();
+            System.out.println("[WARN] Heartbeat de worker inexistente: " + workerId);
+            return false;
+        }
+
+        double cpuUsage = parseMetric(metrics, METRIC_CPU_USAGE);
+        double memoryUsage = parseMetric(metrics, METRIC_MEMORY_USAGE);
+
+        long sequence;
+        do {
+            sequence = claimSequence.get();
+            if (sequence == CLOSED) {
+                // Sin hilo escritor (uso fuera de Spring o detenido): aplicar directamente
+                if (resourceManager.applyHeartbeat(worker, activeTasks, availableTasks, cpuUsage, memoryUsage)) {
+                    resourceManager.notifyWorkerAvailability();
+                }
+                totalHeartbeats.increment();
+                return true;
+            }
+        } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+
+        // Con una posición reclamada el escritor no cierra el anillo hasta aplicarla
+        Slot slot = ring[(int) (sequence & mask)];
+        while (slot.sequence != sequence) {
+            // Anillo lleno: esperar a que el escritor libere el slot
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+
+        slot.worker = worker;
+        slot.activeTasks = activeTasks;
+        slot.availableTasks = availableTasks;
+        slot.cpuUsage = cpuUsage;
+        slot.memoryUsage = memoryUsage;
+        slot.sequence = sequence + 1; // Publicar
+
+        if (writerIdle) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    // ==================== HILO ESCRITOR ====================
+
+    private void run() {
+        while (running) {
+            int applied = drainBatch();
+            if (applied > 0) {
+                continue;
+            }
+
+            // Sin heartbeats: dormir hasta que un productor despierte al escritor.
+            // El plazo del park solo cubre un aviso perdido justo antes de dormirse;
+            // normalmente es el unpark del productor el que lo despierta.
+            writerIdle = true;
+            if (!hasPublished()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            writerIdle = false;
+        }
+
+        // Aplicar lo reclamado antes de detenerse y cerrar el anillo cuando no quede nada:
+        // el CAS falla si un productor reclamó otra posición mientras tanto
+        while (true) {
+            drainBatch();
+            long consumed = consumeSequence;
+            if (claimSequence.compareAndSet(consumed, CLOSED)) {
+                break;
+            }
+            if (!hasPublished()) {
+                LockSupport.parkNanos(FULL_PARK_NANOS); // Un productor aún está copiando su slot
+            }
+        }
+    }
+
+    /**
+     * Aplica hasta MAX_BATCH_SIZE heartbeats publicados
+     * @return Número de heartbeats aplicados
+     */
+    private int drainBatch() {
+        int applied = 0;
+        boolean anyAvailable = false;
+
+        while (applied < MAX_BATCH_SIZE) {
+            Slot slot = ring[(int) (consumeSequence & mask)];
+            if (slot.sequence != consumeSequence + 1) {
+                break; // Aún no publicado
+            }
+
+            Worker worker = slot.worker;
+            int activeTasks = slot.activeTasks;
+            int availableTasks = slot.availableTasks;
+            double cpuUsage = slot.cpuUsage;
+            double memoryUsage = slot.memoryUsage;
+            slot.worker = null;
+            slot.sequence = consumeSequence + ring.length; // Liberar para la siguiente vuelta
+            consumeSequence++;
+
+            try {
+                anyAvailable |= resourceManager.applyHeartbeat(worker, activeTasks, availableTasks, cpuUsage, memoryUsage);
+            } catch (Exception e) {
+                System.err.println("[ERROR] Error aplicando heartbeat de " + worker.getWorkerId() + ": " + e.getMessage());
+            }
+            applied++;
+        }
+
+        if (applied > 0) {
+            totalHeartbeats.add(applied);
+            totalBatches.increment();
+            if (anyAvailable) {
+                resourceManager.notifyWorkerAvailability();
+            }
+        }
+        return applied;
+    }
+
+    private boolean hasPublished() {
+        return ring[(int) (consumeSequence & mask)].sequence == consumeSequence + 1;
+    }
+
+    private static double parseMetric(Map<String, String> metrics, String key) {
+        if (metrics == null) {
+            return Double.NaN;
+        }
+        String value = metrics.get(key);
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    // ==================== ESTADÍSTICAS ====================
+
+    public long getTotalHeartbeats() {
+        return totalHeartbeats.sum();
+    }
+
+    public long getTotalBatches() {
+        return totalBatches.sum();
+    }
+
+    public long getRejectedHeartbeats() {
+        return rejectedHeartbeats.sum();
+    }
+
+    /**
+     * Heartbeats reclamados que el escritor aún no aplicó
+     */
+    public long getPendingHeartbeats() {
+        long claimed = claimSequence.get();
+        return claimed == CLOSED ? 0 : Math.max(0, claimed - consumeSequence);
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Slot reutilizable del anillo
+    private static final class Slot {
+        private volatile long sequence;
+        private Worker worker;
+        private int activeTasks;
+        private int availableTasks;
+        private double cpuUsage;
+        private double memoryUsage;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
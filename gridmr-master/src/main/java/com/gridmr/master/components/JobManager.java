@@ -1,45 +1,126 @@
 package com.gridmr.master.components;
 
+import com.gridmr.master.model.DataChunk;
 import com.gridmr.master.model.Job;
+import com.gridmr.master.model.JobProgress;
 import com.gridmr.master.model.JobStatus;
 import com.gridmr.master.model.Task;
 import com.gridmr.master.model.TaskType;
 import com.gridmr.master.model.TaskStatus;
+import com.gridmr.master.shuffle.PartitionSampler;
+import com.gridmr.master.shuffle.PartitionStatistics;
+import com.gridmr.master.shuffle.ReducePlanner;
+import com.gridmr.master.shuffle.ShuffleFetchResult;
+import com.gridmr.master.shuffle.Partitioner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
-public class JobManager {
+public class JobManager implements TaskEventListener {
     
     // Referencia al Scheduler para enviar tareas
     private Scheduler scheduler;
     
+    // Referencia al ChunkManager para dividir los archivos de entrada
+    private ChunkManager chunkManager;
+    
+    // Referencia al ResourceManager para conocer los slots del cluster
+    private ResourceManager resourceManager;
+    
     // Mapa de trabajos activos (jobId -> Job)
     private final Map<String, Job> activeJobs;
     
     // Mapa de tareas por trabajo (jobId -> List<Task>)
     private final Map<String, List<Task>> jobTasks;
     
-    // Scheduler para tareas periódicas (monitoreo de progreso)
-    private ScheduledExecutorService progressScheduler;
+    // Tareas de mezcla de particiones divididas, a la espera de sus sub-tareas (taskId -> Task)
+    private final Map<String, Task> pendingMergeTasks;
+    
+    // Sub-tareas aún sin completar de cada mezcla (taskId de la mezcla -> taskIds)
+    private final Map<String, Set<String>> pendingMergeInputs;
+    
+    // Reduce retenidos en slow-start hasta que haya slots sin quitárselos a los Map (jobId -> tareas)
+    private final Map<String, List<Task>> deferredReduceTasks;
+    
+    // Planificación de la fase Reduce según el tamaño de cada partición
+    private final ReducePlanner reducePlanner;
+    
+    // Hilo único que aplica las transiciones de estado de los trabajos
+    private final ExecutorService jobEventExecutor;
+    
+    // Hilos para la planificación de splits y el muestreo de la entrada (E/S sobre los archivos)
+    private final ExecutorService jobPlanningExecutor;
+    
+    // Trabajos admitidos cuya entrada se está planificando (solo en el hilo de eventos)
+    private int jobsInPlanning;
+    
+    // Trabajos a la espera de capacidad del cluster
+    private final AdmissionQueue admissionQueue;
+    
+    // Indica si ya hay una ronda de admisión encolada (coalesce de eventos)
+    private final AtomicBoolean admissionRequested;
+    
+    // Duración media de los trabajos completados (para estimar el inicio de los encolados)
+    private volatile long averageJobRuntimeMs;
     
     // Configuración
-    private static final int PROGRESS_CHECK_INTERVAL_SECONDS = 5;
-    private static final int DEFAULT_CHUNK_SIZE_MB = 64; // 64MB por chunk
-    private static final int MAX_CONCURRENT_JOBS = 10;
+    private static final int DEFAULT_CHUNK_SIZE_MB = 64; // 64MB por chunk (sin workers registrados)
+    private static final int MIN_CHUNK_SIZE_MB = 16;
+    private static final int MAX_CHUNK_SIZE_MB = 256;
+    private static final int TARGET_WAVES = 2; // Rondas de tareas Map por slot del cluster
+    private static final int MAX_ACTIVE_JOBS = 64; // Tope de seguridad; la admisión la decide la capacidad libre
+    private static final int MAX_QUEUED_JOBS = 1000;
+    private static final double JOB_RUNTIME_ALPHA = 0.3; // Peso de la última duración en la media móvil
+    private static final double DEFAULT_REDUCE_SLOWSTART = 0.8; // Fracción de Maps completados para lanzar los Reduce
+    private static final double MAX_EARLY_REDUCE_SLOT_FRACTION = 0.5; // Slots del cluster que pueden ocupar los Reduce en slow-start
+    private static final int MAX_FETCH_SEGMENTS = 100; // Segmentos por petición de shuffle
+    private static final int PLANNING_THREADS = 2;
     
     // Estadísticas
     private int totalJobsSubmitted;
     private int totalJobsCompleted;
     private int totalJobsFailed;
     
-    public JobManager(Scheduler scheduler) {
+    public JobManager(Scheduler scheduler, ChunkManager chunkManager, ResourceManager resourceManager) {
         this.scheduler = scheduler;
+        this.chunkManager = chunkManager;
+        this.resourceManager = resourceManager;
         this.activeJobs = new ConcurrentHashMap<>();
         this.jobTasks = new ConcurrentHashMap<>();
+        this.pendingMergeTasks = new ConcurrentHashMap<>();
+        this.pendingMergeInputs = new ConcurrentHashMap<>();
+        this.deferredReduceTasks = new ConcurrentHashMap<>();
+        this.reducePlanner = new ReducePlanner();
+        this.admissionQueue = new AdmissionQueue(MAX_QUEUED_JOBS);
+        this.admissionRequested = new AtomicBoolean(false);
+        this.jobEventExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "gridmr-job-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.jobPlanningExecutor = Executors.newFixedThreadPool(PLANNING_THREADS, r -> {
+            Thread thread = new Thread(r, "gridmr-job-planning");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // El progreso de los trabajos avanza con los eventos de sus tareas
+        if (scheduler != null) {
+            scheduler.addTaskEventListener(this);
+        }
+        
+        // Admitir trabajos en espera cuando se libera capacidad
+        if (resourceManager != null) {
+            resourceManager.addWorkerAvailabilityListener(this::requestAdmission);
+        }
         
         this.totalJobsSubmitted = 0;
         this.totalJobsCompleted = 0;
@@ -51,44 +132,37 @@ public class JobManager {
     public void start() {
         System.out.println("JobManager iniciando...");
         
-        // Iniciar scheduler para tareas periódicas
-        this.progressScheduler = Executors.newScheduledThreadPool(2);
-        
-        // Tarea periódica para verificar progreso de trabajos
-        progressScheduler.scheduleAtFixedRate(
-            this::checkJobProgress,
-            PROGRESS_CHECK_INTERVAL_SECONDS,
-            PROGRESS_CHECK_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
-        
-        System.out.println("JobManager iniciado - Monitoreo de trabajos activo");
+        System.out.println("JobManager iniciado - Progreso de trabajos por eventos de tareas");
     }
     
     public void stop() {
         System.out.println("JobManager deteniendo...");
         
-        if (progressScheduler != null && !progressScheduler.isShutdown()) {
-            progressScheduler.shutdown();
-            try {
-                if (!progressScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    progressScheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                progressScheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
+        shutdownExecutor(jobPlanningExecutor);
+        shutdownExecutor(jobEventExecutor);
         
         System.out.println("JobManager detenido");
     }
     
+    private void shutdownExecutor(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
     // ==================== MÉTODOS DE GESTIÓN DE TRABAJOS ====================
     
     /**
-     * Envía un nuevo trabajo MapReduce al sistema
+     * Envía un nuevo trabajo MapReduce al sistema. El trabajo entra a la cola de
+     * admisión y empieza en cuanto el cluster tiene slots libres.
      * @param job Trabajo a procesar
-     * @return true si el trabajo se envió exitosamente
+     * @return true si el trabajo se encoló; false si es inválido o la cola está llena
      */
     public boolean submitJob(Job job) {
         if (job == null) {
@@ -96,12 +170,6 @@ public class JobManager {
             return false;
         }
         
-        // Verificar límite de trabajos concurrentes
-        if (activeJobs.size() >= MAX_CONCURRENT_JOBS) {
-            System.out.println("Error: Límite de trabajos concurrentes alcanzado (" + MAX_CONCURRENT_JOBS + ")");
-            return false;
-        }
-        
         // Verificar que el trabajo tenga archivos de entrada
         if (job.getInputFiles().isEmpty()) {
             System.out.println("Error: Trabajo " + job.getJobId() + " no tiene archivos de entrada");
@@ -109,33 +177,56 @@ public class JobManager {
         }
         
         // Configurar trabajo
-        job.setStatus(JobStatus.PENDING);
+        job.setStatus(JobStatus.QUEUED);
         // El createdAt se establece en el constructor de Job
         
-        // Registrar trabajo
-        activeJobs.put(job.getJobId(), job);
-        jobTasks.put(job.getJobId(), new ArrayList<>());
+        if (!admissionQueue.offer(job)) {
+            System.out.println("Error: Cola de admisión llena (" + MAX_QUEUED_JOBS + " trabajos)");
+            return false;
+        }
         
         // Actualizar estadísticas
         totalJobsSubmitted++;
         
-        System.out.println("Trabajo " + job.getJobId() + " enviado - Archivos: " + 
-                        job.getInputFiles().size() + ", Mappers: " + job.getNumMappers() + 
-                        ", Reducers: " + job.getNumReducers());
-        
-        // Iniciar procesamiento del trabajo
-        processJob(job);
+        System.out.println("Trabajo " + job.getJobId() + " encolado - Cliente: " + job.getClientId() + 
+                        ", Prioridad: " + job.getPriority() + ", Archivos: " + job.getInputFiles().size() + 
+                        ", Mappers: " + job.getNumMappers() + ", Reducers: " + job.getNumReducers());
         
+        requestAdmission();
         return true;
     }
     
     /**
      * Obtiene el estado de un trabajo
      * @param jobId ID del trabajo
-     * @return Job o null si no existe
+     * @return Job (activo o en cola) o null si no existe
      */
     public Job getJob(String jobId) {
-        return activeJobs.get(jobId);
+        Job job = activeJobs.get(jobId);
+        return job != null ? job : admissionQueue.get(jobId);
+    }
+    
+    /**
+     * Obtiene la posición de un trabajo en la cola de admisión
+     * @param jobId ID del trabajo
+     * @return Posición (0 = siguiente) o -1 si no está en cola
+     */
+    public int getQueuePosition(String jobId) {
+        return admissionQueue.getPosition(jobId);
+    }
+    
+    /**
+     * Estima cuánto falta para que un trabajo en cola empiece, suponiendo que los
+     * trabajos activos terminan al ritmo de la duración media observada
+     * @param jobId ID del trabajo
+     * @return Espera estimada en milisegundos o -1 si no hay datos suficientes
+     */
+    public long getEstimatedWaitMs(String jobId) {
+        int position = admissionQueue.getPosition(jobId);
+        if (position < 0 || averageJobRuntimeMs <= 0) {
+            return -1;
+        }
+        return (position + 1) * averageJobRuntimeMs / Math.max(1, activeJobs.size());
     }
     
     /**
@@ -153,6 +244,13 @@ public class JobManager {
      * @return true si el trabajo se canceló exitosamente
      */
     public boolean cancelJob(String jobId, String reason) {
+        Job queued = admissionQueue.remove(jobId);
+        if (queued != null) {
+            queued.setStatus(JobStatus.CANCELLED);
+            System.out.println("Trabajo " + jobId + " cancelado en cola - Razón: " + reason);
+            return true;
+        }
+        
         Job job = activeJobs.get(jobId);
         if (job == null) {
             System.out.println("Trabajo " + jobId + " no encontrado");
@@ -161,6 +259,7 @@ public class JobManager {
         
         // Cambiar estado a cancelado
         job.setStatus(JobStatus.CANCELLED);
+        jobEventExecutor.execute(() -> completeJob(jobId));
         
         // TODO: Cancelar tareas pendientes en el Scheduler
         
@@ -168,158 +267,550 @@ public class JobManager {
         return true;
     }
     
+    // ==================== MÉTODOS DE ADMISIÓN ====================
+    
+    /**
+     * Encola una ronda de admisión en el hilo de eventos (una sola a la vez)
+     */
+    private void requestAdmission() {
+        if (admissionQueue.isEmpty() || !admissionRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            jobEventExecutor.execute(this::admitJobs);
+        } catch (RejectedExecutionException e) {
+            admissionRequested.set(false); // JobManager detenido
+        }
+    }
+    
+    /**
+     * Admite trabajos de la cola mientras el cluster tenga capacidad libre
+     */
+    private void admitJobs() {
+        admissionRequested.set(false);
+        
+        while (!admissionQueue.isEmpty() && hasCapacityForJob()) {
+            Job job = admissionQueue.poll();
+            if (job == null) {
+                break;
+            }
+            
+            job.setStatus(JobStatus.PENDING);
+            activeJobs.put(job.getJobId(), job);
+            jobTasks.put(job.getJobId(), new ArrayList<>());
+            
+            System.out.println("[INFO] Trabajo " + job.getJobId() + " admitido - " + 
+                            admissionQueue.size() + " trabajos en cola");
+            processJob(job);
+        }
+    }
+    
+    /**
+     * Indica si se puede admitir otro trabajo: siempre si no hay ninguno activo, y si no
+     * cuando quedan slots libres después de las tareas que ya esperan en el Scheduler.
+     * Mientras un trabajo planifica su entrada sus tareas aún no cuentan, así que se
+     * espera a que termine antes de admitir el siguiente.
+     * @return true si hay capacidad
+     */
+    private boolean hasCapacityForJob() {
+        if (activeJobs.isEmpty()) {
+            return true;
+        }
+        if (activeJobs.size() >= MAX_ACTIVE_JOBS || resourceManager == null || jobsInPlanning > 0) {
+            return false;
+        }
+        
+        int queuedTasks = scheduler.getPendingTaskCount(TaskType.MAP) + 
+                          scheduler.getPendingTaskCount(TaskType.REDUCE);
+        return resourceManager.getFreeTaskSlots() > queuedTasks;
+    }
+    
     // ==================== MÉTODOS DE PROCESAMIENTO DE TRABAJOS ====================
     
     /**
-     * Procesa un trabajo MapReduce completo
+     * Procesa un trabajo MapReduce completo. Los splits y el muestreo leen los archivos
+     * de entrada, así que se calculan en jobPlanningExecutor y el resultado vuelve al
+     * hilo de eventos para crear las tareas Map.
      * @param job Trabajo a procesar
      */
     private void processJob(Job job) {
         System.out.println("Iniciando procesamiento del trabajo " + job.getJobId());
         
+        // Cambiar estado a fase Map
+        job.setStatus(JobStatus.MAP_PHASE);
+        job.setStartedAt(java.time.LocalDateTime.now());
+        
+        jobsInPlanning++;
+        try {
+            jobPlanningExecutor.execute(() -> planMapInput(job));
+        } catch (RejectedExecutionException e) {
+            jobsInPlanning--; // JobManager detenido
+        }
+    }
+    
+    /**
+     * Calcula los splits de cada archivo de entrada y el partitioner del trabajo
+     * (en jobPlanningExecutor) y publica el resultado en el hilo de eventos
+     * @param job Trabajo a planificar
+     */
+    private void planMapInput(Job job) {
+        Map<String, List<DataChunk>> chunksByFile = new LinkedHashMap<>();
+        Exception failure = null;
         try {
-            // Fase 1: Crear y enviar tareas Map
-            createAndSubmitMapTasks(job);
+            int chunkSizeMB = calculateChunkSizeMB(job);
+            System.out.println("Trabajo " + job.getJobId() + " - Tamaño de split: " + chunkSizeMB + " MB" +
+                            (job.getChunkSizeMB() > 0 ? " (configurado)" : " (automático)"));
             
-            // El progreso se monitoreará en checkJobProgress()
+            // Crear los splits de cada archivo de entrada
+            List<DataChunk> allChunks = new ArrayList<>();
+            for (String inputFile : job.getInputFiles()) {
+                List<DataChunk> chunks = chunkManager != null
+                    ? chunkManager.createChunksFromFile(job.getJobId(), inputFile, chunkSizeMB)
+                    : Collections.emptyList();
+                chunksByFile.put(inputFile, chunks);
+                allChunks.addAll(chunks);
+            }
             
+            // El partitioner debe estar definido antes de crear las tareas Map
+            configurePartitioner(job, allChunks);
         } catch (Exception e) {
-            System.err.println("Error procesando trabajo " + job.getJobId() + ": " + e.getMessage());
+            failure = e;
+        }
+        
+        Exception planningFailure = failure;
+        try {
+            jobEventExecutor.execute(() -> onMapInputPlanned(job, chunksByFile, planningFailure));
+        } catch (RejectedExecutionException e) {
+            // JobManager detenido
+        }
+    }
+    
+    /**
+     * Termina la planificación de un trabajo en el hilo de eventos: crea y envía
+     * sus tareas Map, o lo da por fallido
+     */
+    private void onMapInputPlanned(Job job, Map<String, List<DataChunk>> chunksByFile, Exception failure) {
+        jobsInPlanning--;
+        
+        if (activeJobs.get(job.getJobId()) != job) {
+            // Cancelado durante la planificación: completeJob ya corrió, descartar los splits
+            if (chunkManager != null) {
+                chunkManager.cleanupJobChunks(job.getJobId());
+            }
+        } else if (failure != null) {
+            System.err.println("Error procesando trabajo " + job.getJobId() + ": " + failure.getMessage());
             job.setStatus(JobStatus.FAILED);
-            totalJobsFailed++;
+            completeJob(job.getJobId());
+            return;
+        } else {
+            try {
+                createAndSubmitMapTasks(job, chunksByFile);
+                
+                // El progreso avanzará con los eventos de las tareas (advanceJob)
+                
+            } catch (Exception e) {
+                System.err.println("Error procesando trabajo " + job.getJobId() + ": " + e.getMessage());
+                job.setStatus(JobStatus.FAILED);
+                completeJob(job.getJobId());
+                return;
+            }
         }
+        
+        // Sus tareas ya cuentan para la capacidad: admitir el siguiente trabajo
+        requestAdmission();
     }
     
     /**
-     * Crea y envía tareas Map para un trabajo
+     * Crea y envía tareas Map para un trabajo: una tarea por cada split real
+     * (DataChunk) de los archivos de entrada
      * @param job Trabajo del cual crear tareas Map
+     * @param chunksByFile Splits de cada archivo de entrada (vacío si no es accesible)
      */
-    private void createAndSubmitMapTasks(Job job) {
+    private void createAndSubmitMapTasks(Job job, Map<String, List<DataChunk>> chunksByFile) {
         System.out.println("Creando tareas Map para trabajo " + job.getJobId());
         
-        // Cambiar estado a fase Map
-        job.setStatus(JobStatus.MAP_PHASE);
-        job.setStartedAt(java.time.LocalDateTime.now());
-        
         List<Task> mapTasks = new ArrayList<>();
         int taskIndex = 0;
         
         // Crear tareas Map para cada archivo de entrada
-        for (String inputFile : job.getInputFiles()) {
-            // Simular división en chunks (en un sistema real, esto sería más complejo)
-            int numChunks = calculateNumberOfChunks(inputFile, DEFAULT_CHUNK_SIZE_MB);
+        for (Map.Entry<String, List<DataChunk>> input : chunksByFile.entrySet()) {
+            if (input.getValue().isEmpty()) {
+                // Archivo no accesible desde el master: el worker lo leerá completo
+                System.out.println("[WARN] No se pudieron crear splits para " + input.getKey() + 
+                                " - Se creará una única tarea Map para el archivo");
+                mapTasks.add(createMapTask(job, taskIndex++, input.getKey(), null));
+                continue;
+            }
             
-            for (int chunkIndex = 0; chunkIndex < numChunks; chunkIndex++) {
-                String taskId = job.getJobId() + "_map_" + taskIndex;
-                
-                // Crear tarea Map
-                Task mapTask = new Task(taskId, job.getJobId(), TaskType.MAP);
-                mapTask.setInputData(inputFile + "_chunk_" + chunkIndex);
-                mapTask.setFunctionCode(job.getMapFunction());
-                mapTask.setPriority(5); // Prioridad media para tareas Map
-                
-                // Agregar a la lista de tareas del trabajo
-                mapTasks.add(mapTask);
-                job.addMapTask(mapTask);
-                
-                // Enviar tarea al Scheduler
-                if (scheduler.addTask(mapTask)) {
-                    System.out.println("Tarea Map " + taskId + " enviada al Scheduler");
-                } else {
-                    System.err.println("Error enviando tarea Map " + taskId + " al Scheduler");
-                }
-                
-                taskIndex++;
+            for (DataChunk chunk : input.getValue()) {
+                mapTasks.add(createMapTask(job, taskIndex++, chunk.getLocation(), chunk));
             }
         }
         
-        // Registrar tareas del trabajo
+        // Registrar tareas del trabajo antes de enviarlas
         jobTasks.put(job.getJobId(), mapTasks);
+        job.getProgress().getMap().allTasksCreated();
+        
+        // Enviar tareas al Scheduler
+        for (Task mapTask : mapTasks) {
+            if (scheduler.addTask(mapTask)) {
+                System.out.println("Tarea Map " + mapTask.getTaskId() + " enviada al Scheduler");
+            } else {
+                System.err.println("Error enviando tarea Map " + mapTask.getTaskId() + " al Scheduler");
+            }
+        }
         
         System.out.println("Creadas " + mapTasks.size() + " tareas Map para trabajo " + job.getJobId());
     }
     
     /**
-     * Calcula el número de chunks para un archivo
+     * Crea una tarea Map para un split
+     * @param job Trabajo
+     * @param taskIndex Índice de la tarea dentro del trabajo
+     * @param inputData Entrada de la tarea (archivo original del split o archivo completo)
+     * @param chunk Chunk de entrada o null si la tarea procesa el archivo completo
+     * @return Tarea Map
+     */
+    private Task createMapTask(Job job, int taskIndex, String inputData, DataChunk chunk) {
+        String taskId = job.getJobId() + "_map_" + taskIndex;
+        
+        Task mapTask = new Task(taskId, job.getJobId(), TaskType.MAP);
+        mapTask.setClientId(job.getClientId());
+        mapTask.setInputData(inputData);
+        mapTask.setFunctionCode(job.getMapFunction());
+        mapTask.setCombineFunction(job.getCombineFunction());
+        mapTask.setPartitioner(job.getPartitioner());
+        mapTask.setPartitionSplitPoints(job.getPartitionSplitPoints());
+        mapTask.setPriority(job.getPriority()); // Prioridad del trabajo (5 por defecto)
+        
+        if (chunk != null) {
+            mapTask.setInputChunkId(chunk.getChunkId());
+            mapTask.setInputSizeBytes(chunk.getSizeBytes());
+            if (chunk.isLogical()) {
+                mapTask.setInputRange(chunk.getStartOffset(), chunk.getEndOffset());
+            }
+            scheduler.applyChunkLocality(mapTask, chunk);
+        }
+        
+        job.addMapTask(mapTask);
+        return mapTask;
+    }
+    
+    /**
+     * Define el partitioner del trabajo. SORT con varios reducers usa rangos
+     * calculados muestreando la entrada, para que cada reducer produzca un tramo
+     * ordenado del resultado global; el resto usa hash.
+     * @param job Trabajo
+     * @param chunks Chunks de entrada del trabajo
+     */
+    private void configurePartitioner(Job job, List<DataChunk> chunks) {
+        job.setPartitioner(Partitioner.HASH);
+        if (!"SORT".equalsIgnoreCase(job.getMapFunction()) || job.getNumReducers() <= 1 || chunks.isEmpty()) {
+            return;
+        }
+        
+        try {
+            List<String> splitPoints = new PartitionSampler(chunkManager::openRecordReader)
+                .sampleSplitPoints(chunks, job.getNumReducers());
+            if (splitPoints.isEmpty()) {
+                System.out.println("[WARN] Muestra vacía para " + job.getJobId() + " - Se usará partitioner hash");
+                return;
+            }
+            job.setPartitioner(Partitioner.TOTAL_ORDER);
+            job.setPartitionSplitPoints(splitPoints);
+            System.out.println("Trabajo " + job.getJobId() + " - Partitioner por rangos con " + 
+                            splitPoints.size() + " puntos de corte para " + job.getNumReducers() + " reducers");
+        } catch (Exception e) {
+            System.err.println("[WARN] Error muestreando entrada de " + job.getJobId() + 
+                            ": " + e.getMessage() + " - Se usará partitioner hash");
+        }
+    }
+    
+    /**
+     * Calcula el tamaño de split de un trabajo.
+     * Si el trabajo no fija uno, se reparte la entrada total en TARGET_WAVES rondas
+     * sobre los slots activos del cluster (workers x maxConcurrentTasks),
+     * acotado entre MIN_CHUNK_SIZE_MB y MAX_CHUNK_SIZE_MB.
+     * @param job Trabajo
+     * @return Tamaño de split en MB
+     */
+    private int calculateChunkSizeMB(Job job) {
+        if (job.getChunkSizeMB() > 0) {
+            return job.getChunkSizeMB();
+        }
+        
+        long totalInputBytes = 0;
+        for (String inputFile : job.getInputFiles()) {
+            totalInputBytes += getFileSizeBytes(inputFile);
+        }
+        
+        int slots = resourceManager != null ? resourceManager.getTotalTaskSlots() : 0;
+        int targetTasks = Math.max(slots * TARGET_WAVES, job.getNumMappers());
+        if (totalInputBytes <= 0 || targetTasks <= 0) {
+            return DEFAULT_CHUNK_SIZE_MB;
+        }
+        
+        long bytesPerTask = (totalInputBytes + targetTasks - 1) / targetTasks;
+        long chunkSizeMB = (bytesPerTask + (1024L * 1024L) - 1) / (1024L * 1024L);
+        return (int) Math.max(MIN_CHUNK_SIZE_MB, Math.min(MAX_CHUNK_SIZE_MB, chunkSizeMB));
+    }
+    
+    /**
+     * Obtiene el tamaño real de un archivo de entrada
      * @param fileName Nombre del archivo
-     * @param chunkSizeMB Tamaño del chunk en MB
-     * @return Número de chunks
+     * @return Tamaño en bytes o 0 si no es accesible
      */
-    private int calculateNumberOfChunks(String fileName, int chunkSizeMB) {
-        // Simulación: asumir que cada archivo tiene 100MB por defecto
-        // En un sistema real, esto consultaría el tamaño real del archivo
-        int fileSizeMB = 100;
-        return Math.max(1, (fileSizeMB + chunkSizeMB - 1) / chunkSizeMB);
+    private long getFileSizeBytes(String fileName) {
+        try {
+            Path path = Paths.get(fileName);
+            return Files.isRegularFile(path) ? Files.size(path) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
     }
     
     /**
      * Crea y envía tareas Reduce para un trabajo
      * @param job Trabajo del cual crear tareas Reduce
+     * @param earlyStart true en slow-start: solo se envían los Reduce que caben sin
+     *                   quitar slots a los Map pendientes; el resto queda retenido
      */
-    private void createAndSubmitReduceTasks(Job job) {
+    private void createAndSubmitReduceTasks(Job job, boolean earlyStart) {
         System.out.println("Creando tareas Reduce para trabajo " + job.getJobId());
         
-        // Cambiar estado a fase Reduce
-        job.setStatus(JobStatus.REDUCE_PHASE);
-        
         List<Task> reduceTasks = new ArrayList<>();
+        List<Task> submittable = new ArrayList<>();
+        
+        // Tamaño real de cada partición según la salida de los Map
+        Map<Integer, PartitionStatistics> statistics = chunkManager != null
+            ? chunkManager.getPartitionStatistics(job.getJobId())
+            : Collections.emptyMap();
+        List<ReducePlanner.PartitionPlan> plans = reducePlanner.plan(statistics, job.getNumReducers());
         
-        // Crear tareas Reduce (una por cada reducer configurado)
-        for (int i = 0; i < job.getNumReducers(); i++) {
+        // Crear tareas Reduce (una por reducer, o sub-tareas + mezcla si la partición está sesgada)
+        for (ReducePlanner.PartitionPlan plan : plans) {
+            int i = plan.getPartitionId();
             String taskId = job.getJobId() + "_reduce_" + i;
             
-            // Crear tarea Reduce
-            Task reduceTask = new Task(taskId, job.getJobId(), TaskType.REDUCE);
-            reduceTask.setInputData("intermediate_results_reducer_" + i);
-            reduceTask.setFunctionCode(job.getReduceFunction());
-            reduceTask.setPriority(3); // Prioridad menor para tareas Reduce
+            if (!plan.isSplit()) {
+                Task reduceTask = createReduceTask(job, taskId, i);
+                reduceTasks.add(reduceTask);
+                submittable.add(reduceTask);
+                continue;
+            }
             
-            // Agregar a la lista de tareas del trabajo
-            reduceTasks.add(reduceTask);
-            job.addReduceTask(reduceTask);
+            PartitionStatistics partition = statistics.get(i);
+            System.out.println("[INFO] Partición " + i + " de " + job.getJobId() + " sesgada (" + 
+                            partition.getTotalBytes() / (1024 * 1024) + " MB, " + partition.getTotalRecords() + 
+                            " registros) - Dividida en " + plan.getSegmentGroups().size() + " sub-tareas");
             
-            // Enviar tarea al Scheduler
-            if (scheduler.addTask(reduceTask)) {
-                System.out.println("Tarea Reduce " + taskId + " enviada al Scheduler");
-            } else {
-                System.err.println("Error enviando tarea Reduce " + taskId + " al Scheduler");
+            // Los segmentos que lleguen después (slow-start) van a la sub-tarea más liviana
+            chunkManager.splitPartition(job.getJobId(), i, plan.getSegmentGroups());
+            
+            List<String> subTaskIds = new ArrayList<>();
+            for (int k = 0; k < plan.getSegmentGroups().size(); k++) {
+                Task subTask = createReduceTask(job, taskId + "_part_" + k, i);
+                subTask.setPartitionGroup(k);
+                subTask.setInputSegmentIds(plan.getSegmentGroups().get(k));
+                subTaskIds.add(subTask.getTaskId());
+                reduceTasks.add(subTask);
+                submittable.add(subTask);
             }
+            
+            // La mezcla conserva el ID del reducer y se envía al terminar sus sub-tareas
+            Task mergeTask = createReduceTask(job, taskId, i);
+            mergeTask.setMergeInputTaskIds(subTaskIds);
+            reduceTasks.add(mergeTask);
+            Set<String> remaining = ConcurrentHashMap.newKeySet();
+            remaining.addAll(subTaskIds);
+            pendingMergeInputs.put(mergeTask.getTaskId(), remaining);
+            pendingMergeTasks.put(mergeTask.getTaskId(), mergeTask);
         }
         
         // Agregar tareas Reduce a las existentes
         List<Task> allTasks = jobTasks.get(job.getJobId());
         allTasks.addAll(reduceTasks);
+        job.getProgress().getReduce().allTasksCreated();
         
         System.out.println("Creadas " + reduceTasks.size() + " tareas Reduce para trabajo " + job.getJobId());
+        
+        if (earlyStart) {
+            deferredReduceTasks.put(job.getJobId(), submittable);
+            releaseDeferredReduceTasks(job, false);
+            if (deferredReduceTasks.containsKey(job.getJobId())) {
+                System.out.println("[INFO] " + submittable.size() + " tareas Reduce de " + job.getJobId() + 
+                                " retenidas para no quitar slots a los Map pendientes");
+            }
+        } else {
+            submittable.forEach(this::submitReduceTask);
+        }
+    }
+    
+    /**
+     * Envía los Reduce retenidos en slow-start. Un Reduce temprano ocupa su slot
+     * mientras espera segmentos, así que mientras queden Map sin terminar solo se
+     * envían los que caben en los slots libres que no necesitan los Map pendientes,
+     * y nunca más de MAX_EARLY_REDUCE_SLOT_FRACTION del cluster: los Map reencolados
+     * tras un fallo siempre encuentran sitio y el trabajo no se bloquea.
+     * @param job Trabajo
+     * @param mapPhaseCompleted true si ya terminaron todos los Map (se envía el resto)
+     */
+    private void releaseDeferredReduceTasks(Job job, boolean mapPhaseCompleted) {
+        List<Task> deferred = deferredReduceTasks.get(job.getJobId());
+        if (deferred == null) {
+            return;
+        }
+        
+        int limit = deferred.size();
+        if (!mapPhaseCompleted) {
+            limit = Math.min(limit, getEarlyReduceSlots(job));
+        }
+        
+        for (int i = 0; i < limit; i++) {
+            submitReduceTask(deferred.remove(0));
+        }
+        if (deferred.isEmpty()) {
+            deferredReduceTasks.remove(job.getJobId());
+        }
+    }
+    
+    // Reduce que aún pueden lanzarse antes de terminar la fase Map
+    private int getEarlyReduceSlots(Job job) {
+        if (resourceManager == null) {
+            return 0;
+        }
+        int pendingMaps = job.getProgress().getMap().getPending();
+        int freeForReduce = resourceManager.getFreeTaskSlots() - pendingMaps;
+        
+        // El tope es global: varios trabajos en slow-start no pueden sumar más del límite
+        int earlyRunning = 0;
+        for (Job active : activeJobs.values()) {
+            if (active.areMapTasksCompleted()) {
+                continue;
+            }
+            for (Task reduceTask : active.getReduceTasks()) {
+                if (reduceTask.getStatus() == TaskStatus.ASSIGNED || reduceTask.getStatus() == TaskStatus.RUNNING) {
+                    earlyRunning++;
+                }
+            }
+        }
+        int maxEarly = (int) (resourceManager.getTotalTaskSlots() * MAX_EARLY_REDUCE_SLOT_FRACTION) - earlyRunning;
+        return Math.max(0, Math.min(freeForReduce, maxEarly));
+    }
+    
+    private Task createReduceTask(Job job, String taskId, int partitionId) {
+        Task reduceTask = new Task(taskId, job.getJobId(), TaskType.REDUCE);
+        reduceTask.setClientId(job.getClientId());
+        reduceTask.setInputData("intermediate_results_reducer_" + partitionId);
+        reduceTask.setPartitionId(partitionId);
+        reduceTask.setFunctionCode(job.getReduceFunction());
+        reduceTask.setPriority(Math.max(0, job.getPriority() - 2)); // Prioridad menor para tareas Reduce (3 por defecto)
+        job.addReduceTask(reduceTask);
+        return reduceTask;
+    }
+    
+    private void submitReduceTask(Task reduceTask) {
+        if (scheduler.addTask(reduceTask)) {
+            System.out.println("Tarea Reduce " + reduceTask.getTaskId() + " enviada al Scheduler");
+        } else {
+            System.err.println("Error enviando tarea Reduce " + reduceTask.getTaskId() + " al Scheduler");
+        }
+    }
+    
+    /**
+     * Descuenta una sub-tarea completada de su mezcla y la envía cuando no quedan pendientes
+     * @param job Trabajo
+     * @param task Tarea Reduce completada
+     */
+    private void releaseMergeTask(Job job, Task task) {
+        if (task.getPartitionGroup() < 0) {
+            return;
+        }
+        
+        String mergeTaskId = job.getJobId() + "_reduce_" + task.getPartitionId();
+        Set<String> remaining = pendingMergeInputs.get(mergeTaskId);
+        if (remaining == null || !remaining.remove(task.getTaskId()) || !remaining.isEmpty()) {
+            return;
+        }
+        
+        pendingMergeInputs.remove(mergeTaskId);
+        Task mergeTask = pendingMergeTasks.remove(mergeTaskId);
+        if (mergeTask != null) {
+            submitReduceTask(mergeTask);
+        }
     }
     
     // ==================== MÉTODOS DE MONITOREO ====================
     
+    @Override
+    public void onTaskStarted(Task task) {
+        Job job = activeJobs.get(task.getJobId());
+        if (job != null) {
+            job.getProgress().forType(task.getType()).taskStarted();
+        }
+    }
+    
+    @Override
+    public void onTaskRequeued(Task task) {
+        Job job = activeJobs.get(task.getJobId());
+        if (job != null) {
+            job.getProgress().forType(task.getType()).taskRequeued();
+        }
+    }
+    
+    @Override
+    public void onTaskCompleted(Task task) {
+        Job job = activeJobs.get(task.getJobId());
+        if (job != null) {
+            // Publicar la salida del intento ganador antes de contar el Map como completado
+            if (task.getType() == TaskType.MAP && chunkManager != null && task.getCommittedAttemptId() != null) {
+                chunkManager.commitMapAttempt(task.getJobId(), task.getTaskId(), task.getCommittedAttemptId());
+            }
+            job.getProgress().forType(task.getType()).taskCompleted();
+            jobEventExecutor.execute(() -> advanceJob(job, task));
+        }
+    }
+    
+    @Override
+    public void onTaskFailed(Task task) {
+        Job job = activeJobs.get(task.getJobId());
+        if (job != null) {
+            job.getProgress().forType(task.getType()).taskFailed();
+            jobEventExecutor.execute(() -> advanceJob(job, task));
+        }
+    }
+    
     /**
-     * Verifica el progreso de todos los trabajos activos
-     * Se ejecuta periódicamente
+     * Avanza la máquina de estados de un trabajo tras el fin de una de sus tareas.
+     * Se ejecuta en el hilo de eventos, así las transiciones de un trabajo no compiten entre sí.
+     * @param job Trabajo
+     * @param task Tarea que terminó
      */
-    private void checkJobProgress() {
-        List<String> jobsToComplete = new ArrayList<>();
+    private void advanceJob(Job job, Task task) {
+        if (activeJobs.get(job.getJobId()) != job) {
+            return; // Trabajo ya finalizado
+        }
         
-        for (Job job : activeJobs.values()) {
+        try {
+            if (task.getType() == TaskType.REDUCE && task.getStatus() == TaskStatus.COMPLETED) {
+                releaseMergeTask(job, task);
+            }
+            
             if (job.getStatus() == JobStatus.MAP_PHASE) {
                 checkMapPhaseProgress(job);
-            } else if (job.getStatus() == JobStatus.REDUCE_PHASE) {
-                checkReducePhaseProgress(job);
             }
-            
-            // Verificar si el trabajo está completado
-            if (job.getStatus() == JobStatus.COMPLETED || 
-                job.getStatus() == JobStatus.FAILED || 
-                job.getStatus() == JobStatus.CANCELLED) {
-                jobsToComplete.add(job.getJobId());
+            if (job.getStatus() == JobStatus.REDUCE_PHASE) {
+                checkReducePhaseProgress(job);
             }
+        } catch (Exception e) {
+            System.err.println("[ERROR] Error avanzando trabajo " + job.getJobId() + ": " + e.getMessage());
+            job.setStatus(JobStatus.FAILED);
         }
         
-        // Completar trabajos terminados
-        for (String jobId : jobsToComplete) {
-            completeJob(jobId);
+        if (job.getStatus() == JobStatus.COMPLETED || 
+            job.getStatus() == JobStatus.FAILED || 
+            job.getStatus() == JobStatus.CANCELLED) {
+            completeJob(job.getJobId());
         }
     }
     
@@ -328,28 +819,59 @@ public class JobManager {
      * @param job Trabajo a verificar
      */
     private void checkMapPhaseProgress(Job job) {
-        List<Task> mapTasks = job.getMapTasks();
-        int completedTasks = 0;
-        int failedTasks = 0;
-        
-        for (Task task : mapTasks) {
-            if (task.getStatus() == TaskStatus.COMPLETED) {
-                completedTasks++;
-            } else if (task.getStatus() == TaskStatus.FAILED) {
-                failedTasks++;
-            }
-        }
+        JobProgress.PhaseCounters map = job.getProgress().getMap();
+        int completedTasks = map.getCompleted();
+        int failedTasks = map.getFailed();
+        boolean reducersLaunched = !job.getReduceTasks().isEmpty();
         
         // Si todas las tareas Map están completadas, iniciar fase Reduce
-        if (completedTasks == mapTasks.size()) {
+        if (map.isComplete()) {
             System.out.println("Fase Map completada para trabajo " + job.getJobId() + 
                             " - Iniciando fase Reduce");
-            createAndSubmitReduceTasks(job);
+            if (!reducersLaunched) {
+                createAndSubmitReduceTasks(job, false);
+            } else {
+                releaseDeferredReduceTasks(job, true);
+            }
+            job.setStatus(JobStatus.REDUCE_PHASE);
         } else if (failedTasks > 0) {
             System.out.println("Trabajo " + job.getJobId() + " falló en fase Map - " + 
                             failedTasks + " tareas fallidas");
             job.setStatus(JobStatus.FAILED);
+        } else if (!reducersLaunched && completedTasks >= slowStartThreshold(job, map.getTotal())) {
+            // Slow-start: los reducers empiezan a traer y mezclar segmentos durante la cola de Maps
+            System.out.println("Slow-start de Reduce para trabajo " + job.getJobId() + " - " + 
+                            completedTasks + "/" + map.getTotal() + " tareas Map completadas");
+            createAndSubmitReduceTasks(job, true);
+        } else if (reducersLaunched) {
+            // Cada Map completado libera un slot: enviar más Reduce retenidos si caben
+            releaseDeferredReduceTasks(job, false);
+        }
+    }
+    
+    // Número de tareas Map completadas a partir del cual se lanzan los Reduce
+    private int slowStartThreshold(Job job, int totalMapTasks) {
+        double fraction = job.getReduceSlowStart() >= 0 ? job.getReduceSlowStart() : DEFAULT_REDUCE_SLOWSTART;
+        return (int) Math.ceil(fraction * totalMapTasks);
+    }
+    
+    /**
+     * Devuelve a un reducer los segmentos Map nuevos desde su cursor. Con slow-start el
+     * reducer llama repetidamente, pre-mezcla lo recibido y solo espera por la mezcla
+     * final cuando la respuesta indica que la partición está completa.
+     * @param jobId ID del trabajo
+     * @param reducerId ID del reducer
+     * @param group Sub-tarea de una partición dividida (-1 = toda la partición)
+     * @param cursor Cursor de la petición anterior (0 al empezar)
+     * @return Resultado o null si el trabajo no existe
+     */
+    public ShuffleFetchResult fetchShuffleSegments(String jobId, int reducerId, int group, int cursor) {
+        Job job = activeJobs.get(jobId);
+        if (job == null || chunkManager == null) {
+            return null;
         }
+        return chunkManager.fetchShuffleSegments(jobId, reducerId, group, cursor, MAX_FETCH_SEGMENTS, 
+                                                 job.areMapTasksCompleted());
     }
     
     /**
@@ -357,20 +879,11 @@ public class JobManager {
      * @param job Trabajo a verificar
      */
     private void checkReducePhaseProgress(Job job) {
-        List<Task> reduceTasks = job.getReduceTasks();
-        int completedTasks = 0;
-        int failedTasks = 0;
-        
-        for (Task task : reduceTasks) {
-            if (task.getStatus() == TaskStatus.COMPLETED) {
-                completedTasks++;
-            } else if (task.getStatus() == TaskStatus.FAILED) {
-                failedTasks++;
-            }
-        }
+        JobProgress.PhaseCounters reduce = job.getProgress().getReduce();
+        int failedTasks = reduce.getFailed();
         
         // Si todas las tareas Reduce están completadas, marcar trabajo como completado
-        if (completedTasks == reduceTasks.size()) {
+        if (reduce.isComplete()) {
             System.out.println("Fase Reduce completada para trabajo " + job.getJobId());
             job.setStatus(JobStatus.COMPLETED);
             job.setCompletedAt(java.time.LocalDateTime.now());
@@ -388,9 +901,17 @@ public class JobManager {
     private void completeJob(String jobId) {
         Job job = activeJobs.remove(jobId);
         jobTasks.remove(jobId);
+        pendingMergeTasks.values().removeIf(task -> task.getJobId().equals(jobId));
+        deferredReduceTasks.remove(jobId);
+        pendingMergeInputs.keySet().removeIf(taskId -> taskId.startsWith(jobId + "_reduce_"));
+        scheduler.clearJobStatistics(jobId);
+        if (chunkManager != null) {
+            chunkManager.cleanupJobChunks(jobId);
+        }
         
         if (job != null) {
             if (job.getStatus() == JobStatus.COMPLETED) {
+                recordJobRuntime(job);
                 totalJobsCompleted++;
                 System.out.println("Trabajo " + jobId + " completado exitosamente");
             } else {
@@ -398,6 +919,19 @@ public class JobManager {
                 System.out.println("Trabajo " + jobId + " terminado con estado: " + job.getStatus());
             }
         }
+        
+        // Se liberó capacidad: admitir trabajos en espera
+        requestAdmission();
+    }
+    
+    // Actualiza la duración media de los trabajos (desde su admisión hasta completarse)
+    private void recordJobRuntime(Job job) {
+        if (job.getStartedAt() == null) {
+            return;
+        }
+        long runtimeMs = java.time.Duration.between(job.getStartedAt(), java.time.LocalDateTime.now()).toMillis();
+        long average = averageJobRuntimeMs;
+        averageJobRuntimeMs = average <= 0 ? runtimeMs : (long) (JOB_RUNTIME_ALPHA * runtimeMs + (1 - JOB_RUNTIME_ALPHA) * average);
     }
     
     // ==================== MÉTODOS DE ESTADÍSTICAS ====================
@@ -410,6 +944,7 @@ public class JobManager {
         StringBuilder stats = new StringBuilder();
         stats.append("=== ESTADÍSTICAS DEL JOB MANAGER ===\n");
         stats.append("Trabajos activos: ").append(activeJobs.size()).append("\n");
+        stats.append("Trabajos en cola: ").append(admissionQueue.size()).append("\n");
         stats.append("Trabajos enviados: ").append(totalJobsSubmitted).append("\n");
         stats.append("Trabajos completados: ").append(totalJobsCompleted).append("\n");
         stats.append("Trabajos fallidos: ").append(totalJobsFailed).append("\n");
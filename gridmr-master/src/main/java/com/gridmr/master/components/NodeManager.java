@@ -2,12 +2,12 @@ package com.gridmr.master.components;
 
 import com.gridmr.master.model.NodeInfo;
 import com.gridmr.master.model.NodeStatus;
+import com.gridmr.master.model.WorkerStateDelta;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.time.LocalDateTime;
 
 public class NodeManager {
     
@@ -20,15 +20,26 @@ public class NodeManager {
     // Mapa de nodos inactivos (nodeId -> NodeInfo)
     private final Map<String, NodeInfo> inactiveNodes;
     
-    // Scheduler para tareas periódicas
+    // Scheduler para tareas periódicas (descubrimiento)
     private ScheduledExecutorService scheduler;
     
+    // ResourceManager donde se aplican los cambios de workers reportados por los nodos
+    private ResourceManager resourceManager;
+    
+    // Rueda de temporizadores compartida para los plazos de heartbeat
+    private TimerWheel timerWheel;
+    private boolean ownsTimerWheel;
+    
+    // Plazo vigente de cada nodo (nodeId -> Timeout)
+    private final Map<String, TimerWheel.Timeout> livenessTimers;
+    
     // Configuración de tolerancia a fallos de nodos
     private static final int NODE_HEARTBEAT_INTERVAL_SECONDS = 10;
     private static final int NODE_TIMEOUT_SECONDS = 30;
     private static final int NODE_DISCOVERY_INTERVAL_SECONDS = 15;
     private static final int NODE_CLEANUP_INTERVAL_SECONDS = 60;
     private static final int MAX_NODE_RETRY_ATTEMPTS = 3;
+    private static final int NODE_RETRY_INTERVAL_SECONDS = 5; // Espera entre reintentos de un nodo sin heartbeat
     
     // Contador de reintentos por nodo
     private final Map<String, Integer> nodeRetryCount;
@@ -36,26 +47,44 @@ public class NodeManager {
     // Estadísticas
     private int totalNodesRegistered;
     private int totalNodesActive;
-    private int totalWorkersAcrossNodes;
     
     public NodeManager() {
         this.registeredNodes = new ConcurrentHashMap<>();
         this.activeNodes = new ConcurrentHashMap<>();
         this.inactiveNodes = new ConcurrentHashMap<>();
         this.nodeRetryCount = new ConcurrentHashMap<>();
+        this.livenessTimers = new ConcurrentHashMap<>();
         
         this.totalNodesRegistered = 0;
         this.totalNodesActive = 0;
-        this.totalWorkersAcrossNodes = 0;
         
         System.out.println("NodeManager inicializado con tolerancia a fallos de nodos");
     }
     
+    /**
+     * Asigna la rueda de temporizadores compartida. Debe llamarse antes de start();
+     * si no se asigna, el NodeManager crea una propia.
+     * @param timerWheel Rueda de temporizadores
+     */
+    public void setTimerWheel(TimerWheel timerWheel) {
+        this.timerWheel = timerWheel;
+    }
+    
+    public void setResourceManager(ResourceManager resourceManager) {
+        this.resourceManager = resourceManager;
+    }
+    
     public void start() {
         System.out.println("Iniciando NodeManager con tolerancia a fallos de nodos...");
         
+        if (timerWheel == null) {
+            timerWheel = new TimerWheel();
+            ownsTimerWheel = true;
+        }
+        timerWheel.start();
+        
         // Iniciar scheduler para tareas periódicas
-        this.scheduler = Executors.newScheduledThreadPool(4);
+        this.scheduler = Executors.newScheduledThreadPool(1);
         
         // Tarea periódica para descubrimiento de nodos
         scheduler.scheduleAtFixedRate(
@@ -65,36 +94,17 @@ public class NodeManager {
             TimeUnit.SECONDS
         );
         
-        // Tarea periódica para verificar heartbeats de nodos
-        scheduler.scheduleAtFixedRate(
-            this::checkNodeHeartbeats,
-            NODE_HEARTBEAT_INTERVAL_SECONDS,
-            NODE_HEARTBEAT_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
-        
-        // Tarea periódica para health checks proactivos de nodos
-        scheduler.scheduleAtFixedRate(
-            this::performNodeHealthChecks,
-            5, // Cada 5 segundos
-            5,
-            TimeUnit.SECONDS
-        );
-        
-        // Tarea periódica para limpieza de nodos inactivos
-        scheduler.scheduleAtFixedRate(
-            this::cleanupInactiveNodes,
-            NODE_CLEANUP_INTERVAL_SECONDS,
-            NODE_CLEANUP_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
+        // Los plazos de heartbeat se registran por nodo; no hay barridos periódicos
+        for (NodeInfo node : registeredNodes.values()) {
+            armLivenessTimer(node.getNodeId(), NODE_TIMEOUT_SECONDS * 1000L);
+        }
         
         System.out.println("[OK] NodeManager iniciado - Monitoreo de nodos activo:");
         System.out.println("   - Descubrimiento cada " + NODE_DISCOVERY_INTERVAL_SECONDS + "s");
-        System.out.println("   - Heartbeats cada " + NODE_HEARTBEAT_INTERVAL_SECONDS + "s");
-        System.out.println("   - Health checks cada 5s");
+        System.out.println("   - Heartbeats esperados cada " + NODE_HEARTBEAT_INTERVAL_SECONDS + "s");
+        System.out.println("   - Reintentos cada " + NODE_RETRY_INTERVAL_SECONDS + "s");
         System.out.println("   - Timeout: " + NODE_TIMEOUT_SECONDS + "s");
-        System.out.println("   - Cleanup cada " + NODE_CLEANUP_INTERVAL_SECONDS + "s");
+        System.out.println("   - Baja de inactivos tras " + NODE_CLEANUP_INTERVAL_SECONDS + "s");
     }
     
     public void stop() {
@@ -112,6 +122,15 @@ public class NodeManager {
             }
         }
         
+        for (TimerWheel.Timeout timeout : livenessTimers.values()) {
+            timeout.cancel();
+        }
+        livenessTimers.clear();
+        
+        if (ownsTimerWheel && timerWheel != null) {
+            timerWheel.stop();
+        }
+        
         System.out.println("NodeManager detenido");
     }
     
@@ -127,6 +146,7 @@ public class NodeManager {
         NodeInfo node = new NodeInfo(nodeId, host, port, maxWorkers, nodeType);
         registeredNodes.put(nodeId, node);
         activeNodes.put(nodeId, node);
+        armLivenessTimer(nodeId, NODE_TIMEOUT_SECONDS * 1000L);
         
         totalNodesRegistered++;
         totalNodesActive++;
@@ -138,6 +158,19 @@ public class NodeManager {
     
     // Actualiza el heartbeat de un nodo
     public boolean updateNodeHeartbeat(String nodeId) {
+        return applyNodeHeartbeat(nodeId, Collections.emptyList());
+    }
+    
+    /**
+     * Aplica el heartbeat agregado de un nodo: renueva la vida del nodo (y con ella
+     * la de todos los workers que cubre) y aplica de una vez los cambios de estado
+     * de sus workers. Los workers sin cambios no viajan en el heartbeat, así la carga
+     * del Master crece con el número de nodos y no con el de workers.
+     * @param nodeId ID del nodo
+     * @param workerDeltas Cambios de estado de los workers del nodo (puede estar vacío)
+     * @return true si el nodo está registrado
+     */
+    public boolean applyNodeHeartbeat(String nodeId, List<WorkerStateDelta> workerDeltas) {
         NodeInfo node = registeredNodes.get(nodeId);
         if (node == null) {
             System.out.println("[WARN] Heartbeat de nodo inexistente: " + nodeId);
@@ -147,17 +180,31 @@ public class NodeManager {
         node.updateHeartbeat();
         
         // Resetear contador de reintentos al recibir heartbeat
-        nodeRetryCount.put(nodeId, 0);
+        nodeRetryCount.remove(nodeId);
         
         // Si el nodo estaba inactivo, reactivarlo
+        boolean reactivated = false;
         if (node.getStatus() == NodeStatus.OFFLINE) {
             node.setStatus(NodeStatus.ACTIVE);
             inactiveNodes.remove(nodeId);
             activeNodes.put(nodeId, node);
             totalNodesActive++;
+            armLivenessTimer(nodeId, NODE_TIMEOUT_SECONDS * 1000L);
+            reactivated = true;
             System.out.println("[OK] Nodo " + nodeId + " reactivado exitosamente");
-        } else {
-            System.out.println("[INFO] Heartbeat recibido de nodo " + nodeId + " - Estado: " + node.getStatus());
+        }
+        
+        if (resourceManager != null) {
+            boolean anyAvailable = false;
+            for (WorkerStateDelta delta : workerDeltas) {
+                anyAvailable |= resourceManager.applyWorkerDelta(node, delta);
+            }
+            if (reactivated) {
+                anyAvailable |= resourceManager.reactivateNodeWorkers(node);
+            }
+            if (anyAvailable) {
+                resourceManager.notifyWorkerAvailability();
+            }
         }
         
         return true;
@@ -185,61 +232,42 @@ public class NodeManager {
         }
     }
     
-    // Verifica los heartbeats de todos los nodos
-    private void checkNodeHeartbeats() {
-        List<String> inactiveNodeIds = new ArrayList<>();
-        
-        for (NodeInfo node : registeredNodes.values()) {
-            if (!node.isActive(NODE_TIMEOUT_SECONDS)) {
-                inactiveNodeIds.add(node.getNodeId());
-            }
-        }
-        
-        // Marcar nodos inactivos
-        for (String nodeId : inactiveNodeIds) {
-            markNodeAsInactive(nodeId);
+    // Programa (o reprograma) el plazo de heartbeat de un nodo.
+    // Al vencer se comprueba el último heartbeat y, si el nodo sigue vivo, se rearma por el tiempo restante.
+    private void armLivenessTimer(String nodeId, long delayMs) {
+        if (timerWheel == null) {
+            return;
         }
-        
-        if (!inactiveNodeIds.isEmpty()) {
-            System.out.println("[WARN] Nodos inactivos detectados: " + inactiveNodeIds);
+        TimerWheel.Timeout timeout = timerWheel.schedule(() -> onLivenessDeadline(nodeId), delayMs, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout previous = livenessTimers.put(nodeId, timeout);
+        if (previous != null) {
+            previous.cancel();
         }
     }
     
-    // Realiza health checks proactivos de nodos
-    private void performNodeHealthChecks() {
-        try {
-            long currentTime = System.currentTimeMillis();
-            List<String> problematicNodes = new ArrayList<>();
-            
-            // Verificar nodos activos
-            for (Map.Entry<String, NodeInfo> entry : activeNodes.entrySet()) {
-                String nodeId = entry.getKey();
-                NodeInfo node = entry.getValue();
-                
-                if (isNodeProblematic(node, currentTime)) {
-                    problematicNodes.add(nodeId);
-                    incrementNodeRetryCount(nodeId);
-                }
-            }
-            
-            // Manejar nodos problemáticos
-            for (String nodeId : problematicNodes) {
-                handleProblematicNode(nodeId);
-            }
-            
-        } catch (Exception e) {
-            System.err.println("[ERROR] Error en health check de nodos: " + e.getMessage());
+    private void cancelLivenessTimer(String nodeId) {
+        TimerWheel.Timeout timeout = livenessTimers.remove(nodeId);
+        if (timeout != null) {
+            timeout.cancel();
         }
     }
     
-    // Verifica si un nodo tiene problemas
-    private boolean isNodeProblematic(NodeInfo node, long currentTime) {
-        if (node == null || node.getLastHeartbeat() == null) {
-            return true;
+    // Vence el plazo de heartbeat de un nodo (hilo de la rueda)
+    private void onLivenessDeadline(String nodeId) {
+        NodeInfo node = registeredNodes.get(nodeId);
+        if (node == null || node.getStatus() == NodeStatus.OFFLINE) {
+            livenessTimers.remove(nodeId);
+            return;
         }
         
-        long timeSinceLastHeartbeat = currentTime - node.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
-        return timeSinceLastHeartbeat > (NODE_TIMEOUT_SECONDS * 1000);
+        long remainingMs = NODE_TIMEOUT_SECONDS * 1000L - node.getMillisSinceHeartbeat();
+        if (remainingMs > 0) {
+            armLivenessTimer(nodeId, remainingMs);
+            return;
+        }
+        
+        incrementNodeRetryCount(nodeId);
+        handleProblematicNode(nodeId);
     }
     
     // Incrementa el contador de reintentos de un nodo
@@ -259,6 +287,7 @@ public class NodeManager {
             nodeRetryCount.remove(nodeId);
         } else {
             System.out.println("[WARN] Nodo " + nodeId + " problemático - Reintento " + retryCount + "/" + MAX_NODE_RETRY_ATTEMPTS);
+            armLivenessTimer(nodeId, NODE_RETRY_INTERVAL_SECONDS * 1000L);
         }
     }
     
@@ -285,33 +314,29 @@ public class NodeManager {
         // Limpiar contador de reintentos
         nodeRetryCount.remove(nodeId);
         
+        // Programar la baja si no vuelve a reportarse
+        cancelLivenessTimer(nodeId);
+        if (timerWheel != null) {
+            livenessTimers.put(nodeId, timerWheel.schedule(
+                () -> cleanupInactiveNode(nodeId), NODE_CLEANUP_INTERVAL_SECONDS, TimeUnit.SECONDS));
+        }
+        
         System.out.println("[ERROR] Nodo " + nodeId + " marcado como inactivo:");
         System.out.println("   - Estado anterior: " + (wasActive ? "activo" : "desconocido"));
         System.out.println("   - Reintentos fallidos: " + retryCount);
         System.out.println("   - Nodos activos restantes: " + totalNodesActive);
     }
     
-    // Limpia nodos inactivos del sistema
-    private void cleanupInactiveNodes() {
-        if (inactiveNodes.isEmpty()) {
-            return;
-        }
-        
-        List<String> nodesToRemove = new ArrayList<>();
-        
-        for (NodeInfo node : inactiveNodes.values()) {
-            // Remover nodos que han estado inactivos por más del timeout configurado
-            long inactiveTime = java.time.Duration.between(node.getLastHeartbeat(), LocalDateTime.now()).getSeconds();
-            if (inactiveTime > NODE_TIMEOUT_SECONDS) {
-                nodesToRemove.add(node.getNodeId());
-            }
+    // Da de baja un nodo que sigue inactivo al vencer su plazo de limpieza
+    private void cleanupInactiveNode(String nodeId) {
+        NodeInfo node = inactiveNodes.get(nodeId);
+        if (node == null || node.getStatus() != NodeStatus.OFFLINE) {
+            return; // Se reactivó o ya fue dado de baja
         }
         
-        // Remover nodos inactivos
-        for (String nodeId : nodesToRemove) {
-            unregisterNode(nodeId);
-            System.out.println("[INFO] Nodo " + nodeId + " removido por inactividad prolongada");
-        }
+        livenessTimers.remove(nodeId);
+        unregisterNode(nodeId);
+        System.out.println("[INFO] Nodo " + nodeId + " removido por inactividad prolongada");
     }
     
     // Da de baja a un nodo del sistema
@@ -323,11 +348,17 @@ public class NodeManager {
         }
         
         // Remover de todos los mapas
-        activeNodes.remove(nodeId);
+        boolean wasActive = activeNodes.remove(nodeId) != null;
         inactiveNodes.remove(nodeId);
         nodeRetryCount.remove(nodeId);
+        cancelLivenessTimer(nodeId);
+        if (resourceManager != null) {
+            resourceManager.detachNodeWorkers(nodeId);
+        }
         
-        totalNodesActive--;
+        if (wasActive) {
+            totalNodesActive--;
+        }
         
         System.out.println("Nodo dado de baja: " + nodeId);
         return true;
@@ -370,8 +401,7 @@ public class NodeManager {
         score += availableSlots * 10.0;
         
         // Salud del nodo
-        boolean isHealthy = node.getLastHeartbeat() != null && 
-                           (System.currentTimeMillis() - node.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli()) < (NODE_TIMEOUT_SECONDS * 1000);
+        boolean isHealthy = node.isActive(NODE_TIMEOUT_SECONDS);
         score += isHealthy ? 50.0 : 0.0;
         
         // Penalizar por reintentos
@@ -379,16 +409,22 @@ public class NodeManager {
         score -= retryCount * 5.0;
         
         // Penalizar por tiempo sin heartbeat
-        if (node.getLastHeartbeat() != null) {
-            long timeSinceHeartbeat = System.currentTimeMillis() - node.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
-            if (timeSinceHeartbeat > 10000) { // Más de 10 segundos
-                score -= 10.0;
-            }
+        if (node.getMillisSinceHeartbeat() > 10000) { // Más de 10 segundos
+            score -= 10.0;
         }
         
         return score;
     }
     
+    // MÉTODOS DE LOCALIDAD
+    
+    // Obtiene el host de un nodo (usado por el Scheduler para localidad de datos)
+    public String getNodeHost(String nodeId) {
+        if (nodeId == null) return null;
+        NodeInfo node = registeredNodes.get(nodeId);
+        return node != null ? node.getHost() : null;
+    }
+    
     // MÉTODOS DE ESTADÍSTICAS
     
     // Obtiene estadísticas del sistema de nodos
@@ -398,7 +434,7 @@ public class NodeManager {
         stats.append("Nodos registrados: ").append(totalNodesRegistered).append("\n");
         stats.append("Nodos activos: ").append(totalNodesActive).append("\n");
         stats.append("Nodos inactivos: ").append(inactiveNodes.size()).append("\n");
-        stats.append("Workers totales en nodos: ").append(totalWorkersAcrossNodes).append("\n");
+        stats.append("Workers totales en nodos: ").append(getTotalWorkersAcrossNodes()).append("\n");
         
         // Configuración de tolerancia a fallos
         stats.append("\n=== CONFIGURACIÓN DE TOLERANCIA A FALLOS DE NODOS ===\n");
@@ -412,8 +448,7 @@ public class NodeManager {
         stats.append("\n=== DETALLES POR NODO ===\n");
         for (NodeInfo node : registeredNodes.values()) {
             int retryCount = nodeRetryCount.getOrDefault(node.getNodeId(), 0);
-            boolean isHealthy = node.getLastHeartbeat() != null && 
-                              (System.currentTimeMillis() - node.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli()) < (NODE_TIMEOUT_SECONDS * 1000);
+            boolean isHealthy = node.isActive(NODE_TIMEOUT_SECONDS);
             
             stats.append("Nodo ").append(node.getNodeId())
                 .append(" - Estado: ").append(node.getStatus())
@@ -438,7 +473,7 @@ public class NodeManager {
         stats.put("totalNodes", totalNodesRegistered);
         stats.put("activeNodes", totalNodesActive);
         stats.put("inactiveNodes", inactiveNodes.size());
-        stats.put("totalWorkersAcrossNodes", totalWorkersAcrossNodes);
+        stats.put("totalWorkersAcrossNodes", getTotalWorkersAcrossNodes());
         
         // Configuración de tolerancia a fallos
         Map<String, Object> config = new HashMap<>();
@@ -463,16 +498,11 @@ public class NodeManager {
             nodeInfo.put("retryCount", nodeRetryCount.getOrDefault(node.getNodeId(), 0));
             
             // Verificar salud del nodo
-            boolean isHealthy = node.getLastHeartbeat() != null && 
-                              (System.currentTimeMillis() - node.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli()) < (NODE_TIMEOUT_SECONDS * 1000);
+            boolean isHealthy = node.isActive(NODE_TIMEOUT_SECONDS);
             nodeInfo.put("isHealthy", isHealthy);
             
-            if (node.getLastHeartbeat() != null) {
-                long timeSinceHeartbeat = System.currentTimeMillis() - node.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
-                nodeInfo.put("timeSinceLastHeartbeatMs", timeSinceHeartbeat);
-            } else {
-                nodeInfo.put("timeSinceLastHeartbeatMs", -1);
-            }
+            long timeSinceHeartbeat = node.getMillisSinceHeartbeat();
+            nodeInfo.put("timeSinceLastHeartbeatMs", timeSinceHeartbeat != Long.MAX_VALUE ? timeSinceHeartbeat : -1);
             
             nodeStats.add(nodeInfo);
         }
@@ -491,6 +521,13 @@ public class NodeManager {
     public int getInactiveNodesCount() {
         return inactiveNodes.size();
     }
+    public int getTotalWorkersAcrossNodes() {
+        int workers = 0;
+        for (NodeInfo node : registeredNodes.values()) {
+            workers += node.getCurrentWorkers();
+        }
+        return workers;
+    }
     public List<NodeInfo> getAllNodes() {
         return new ArrayList<>(registeredNodes.values());
     }
@@ -1,56 +1,96 @@
 package com.gridmr.master.components;
 
+import com.gridmr.master.model.NodeInfo;
+import com.gridmr.master.model.Task;
+import com.gridmr.master.model.TaskType;
+import com.gridmr.master.model.Timestamps;
 import com.gridmr.master.model.Worker;
+import com.gridmr.master.model.WorkerPerformance;
+import com.gridmr.master.model.WorkerStateDelta;
 import com.gridmr.master.model.WorkerStatus;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
 
 @Component
 public class ResourceManager {
     
-    // Mapa de workers registrados (workerId -> Worker)
+    // Mapa de workers registrados (workerId -> Worker). El estado y la carga de cada
+    // worker viven en el propio Worker (transiciones CAS); las vistas de disponibles,
+    // ocupados e inactivos se derivan de ese estado
     private final Map<String, Worker> registeredWorkers;
     
-    // Mapa de workers disponibles para asignación (workerId -> Worker)
-    private final Map<String, Worker> availableWorkers;
+    // Índice ordenado por score de los workers disponibles (se refresca tras cada transición)
+    private final WorkerSelectionIndex workerIndex;
     
-    // Mapa de workers ocupados (workerId -> Worker)
-    private final Map<String, Worker> busyWorkers;
+    // Workers agrupados por nodo (nodeId -> workers cubiertos por sus heartbeats)
+    private final Map<String, Set<Worker>> workersByNode;
     
-    // Mapa de workers inactivos (workerId -> Worker)
-    private final Map<String, Worker> inactiveWorkers;
+    // Rueda de temporizadores compartida para los plazos de heartbeat
+    private TimerWheel timerWheel;
+    private boolean ownsTimerWheel;
+    private volatile boolean started;
     
-    // Scheduler para tareas periódicas (heartbeats, limpieza)
-    private ScheduledExecutorService scheduler;
+    // Plazo de heartbeat vigente de cada worker (workerId -> Timeout)
+    private final Map<String, TimerWheel.Timeout> livenessTimers;
     
     // Configuración mejorada para tolerancia a fallos
-    private static final int HEARTBEAT_INTERVAL_SECONDS = 30; // Aumentado para testing
-    private static final int WORKER_TIMEOUT_SECONDS = 60; // Aumentado para testing
-    private static final int CLEANUP_INTERVAL_SECONDS = 120; // Aumentado para testing
+    private static final int HEARTBEAT_INTERVAL_SECONDS = 30; // Intervalo esperado de heartbeats
+    private static final int WORKER_TIMEOUT_SECONDS = 60; // Sin heartbeat por este tiempo = inactivo
+    private static final int CLEANUP_INTERVAL_SECONDS = 120; // Tiempo inactivo antes de dar de baja
     private static final int MAX_RETRY_ATTEMPTS = 3; // Máximo de reintentos por worker
-    private static final int HEALTH_CHECK_INTERVAL_SECONDS = 30; // Aumentado para testing
+    private static final int HEALTH_CHECK_INTERVAL_SECONDS = 30; // Re-verificación de workers ocupados sin heartbeat
+    
+    // Modelo de rendimiento
+    private static final int PERFORMANCE_PRIOR_SAMPLES = 3; // Peso (en tareas) de la estimación inicial por computePower
+    private static final double QUEUE_DELAY_SHRINK_RATIO = 0.5; // Demora/ejecución por encima de la cual se quita un slot
+    private static final double QUEUE_DELAY_GROW_RATIO = 0.1; // Demora/ejecución por debajo de la cual se devuelve un slot
+    private static final long MIN_QUEUE_DELAY_MS = 1000; // Demora mínima para considerar al worker sobresuscrito
+    private static final double REFERENCE_COMPUTE_POWER = 100.0; // computePower con velocidad esperada 1.0 (fijo: no envejece al cambiar el cluster)
+    private static final int TYPE_RANKING_CANDIDATES = 8; // Candidatos del índice reordenados por el rendimiento del tipo de tarea
+    private static final int HIGH_PRIORITY_THRESHOLD = 8; // Desde esta prioridad se elige el worker más rápido para el tipo
+    
+    // Criterios de selección por tipo de tarea (índice = TaskType.ordinal()), creados
+    // una vez para no asignar objetos en cada asignación
+    private static final List<ToDoubleFunction<Worker>> TYPE_SELECTION_RANKINGS = new ArrayList<>();
+    private static final List<ToDoubleFunction<Worker>> TYPE_PERFORMANCE_RANKINGS = new ArrayList<>();
+    static {
+        for (TaskType type : TaskType.values()) {
+            TYPE_SELECTION_RANKINGS.add(worker -> worker.getSelectionScore(type));
+            TYPE_PERFORMANCE_RANKINGS.add(worker -> worker.getPerformanceScore(type));
+        }
+    }
     
     // Estadísticas
-    private int totalWorkersRegistered;
-    private int totalTasksAssigned;
+    private final LongAdder totalWorkersRegistered;
+    private final LongAdder totalTasksAssigned;
+    
+    // Rendimiento de referencia del cluster (todas las tareas terminadas)
+    private final WorkerPerformance clusterPerformance;
     
     // Contador de reintentos por worker para tolerancia a fallos
     private final Map<String, Integer> workerRetryCount;
     
+    // Oyentes notificados cuando un worker gana capacidad libre
+    private final List<Runnable> workerAvailabilityListeners;
+    
     public ResourceManager() {
         this.registeredWorkers = new ConcurrentHashMap<>();
-        this.availableWorkers = new ConcurrentHashMap<>();
-        this.busyWorkers = new ConcurrentHashMap<>();
-        this.inactiveWorkers = new ConcurrentHashMap<>();
+        this.workerIndex = new WorkerSelectionIndex();
+        this.workersByNode = new ConcurrentHashMap<>();
         this.workerRetryCount = new ConcurrentHashMap<>();
+        this.workerAvailabilityListeners = new CopyOnWriteArrayList<>();
+        this.livenessTimers = new ConcurrentHashMap<>();
         
-        this.totalWorkersRegistered = 0;
-        this.totalTasksAssigned = 0;
+        this.totalWorkersRegistered = new LongAdder();
+        this.totalTasksAssigned = new LongAdder();
+        this.clusterPerformance = new WorkerPerformance();
         
         System.out.println("ResourceManager inicializado con tolerancia a fallos mejorada");
     }
@@ -62,57 +102,56 @@ public class ResourceManager {
         System.out.println("[DEBUG] ResourceManager inicializado completamente");
     }
     
+    /**
+     * Asigna la rueda de temporizadores compartida. Debe llamarse antes de start();
+     * si no se asigna, el ResourceManager crea una propia.
+     * @param timerWheel Rueda de temporizadores
+     */
+    @Autowired(required = false)
+    public void setTimerWheel(TimerWheel timerWheel) {
+        if (!started) {
+            this.timerWheel = timerWheel;
+        }
+    }
+    
     public void start() {
+        // Evitar doble inicio (bean de configuración + @PostConstruct)
+        if (started) {
+            return;
+        }
+        started = true;
+        
         System.out.println("Iniciando ResourceManager con tolerancia a fallos...");
         
-        // Iniciar scheduler para tareas periódicas
-        this.scheduler = Executors.newScheduledThreadPool(3); // Aumentado para health checks
-        
-        // Tarea periódica para verificar heartbeats (más frecuente)
-        scheduler.scheduleAtFixedRate(
-            this::checkWorkerHeartbeats,
-            HEARTBEAT_INTERVAL_SECONDS,
-            HEARTBEAT_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
-        
-        // Tarea periódica para health checks proactivos
-        scheduler.scheduleAtFixedRate(
-            this::performProactiveHealthChecks,
-            HEALTH_CHECK_INTERVAL_SECONDS,
-            HEALTH_CHECK_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
-        
-        // Tarea periódica para limpieza de workers inactivos (más frecuente)
-        scheduler.scheduleAtFixedRate(
-            this::cleanupInactiveWorkers,
-            CLEANUP_INTERVAL_SECONDS,
-            CLEANUP_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
-        
-        System.out.println("[OK] ResourceManager iniciado - Monitoreo avanzado activo:");
-        System.out.println("   - Heartbeats cada " + HEARTBEAT_INTERVAL_SECONDS + "s");
-        System.out.println("   - Health checks cada " + HEALTH_CHECK_INTERVAL_SECONDS + "s");
+        if (timerWheel == null) {
+            timerWheel = new TimerWheel();
+            ownsTimerWheel = true;
+        }
+        timerWheel.start();
+        
+        // Los plazos de heartbeat se registran por worker al registrarse; no hay barridos periódicos
+        for (Worker worker : registeredWorkers.values()) {
+            armLivenessTimer(worker.getWorkerId(), WORKER_TIMEOUT_SECONDS * 1000L);
+        }
+        
+        System.out.println("[OK] ResourceManager iniciado - Monitoreo por plazos activo:");
+        System.out.println("   - Heartbeats esperados cada " + HEARTBEAT_INTERVAL_SECONDS + "s");
         System.out.println("   - Timeout: " + WORKER_TIMEOUT_SECONDS + "s");
-        System.out.println("   - Cleanup cada " + CLEANUP_INTERVAL_SECONDS + "s");
+        System.out.println("   - Baja de inactivos tras " + CLEANUP_INTERVAL_SECONDS + "s");
     }
     
     public void stop() {
         System.out.println("Deteniendo ResourceManager...");
         
-        if (scheduler != null && !scheduler.isShutdown()) {
-            scheduler.shutdown();
-            try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+        for (TimerWheel.Timeout timeout : livenessTimers.values()) {
+            timeout.cancel();
         }
+        livenessTimers.clear();
+        
+        if (ownsTimerWheel && timerWheel != null) {
+            timerWheel.stop();
+        }
+        started = false;
         
         System.out.println("ResourceManager detenido");
     }
@@ -135,13 +174,7 @@ public class ResourceManager {
         
         System.out.println("[DEBUG] Intentando registrar worker: " + workerId);
         System.out.println("[DEBUG] Workers registrados antes: " + registeredWorkers.size());
-        System.out.println("[DEBUG] Workers disponibles antes: " + availableWorkers.size());
-        
-        // Verificar si el worker ya está registrado
-        if (registeredWorkers.containsKey(workerId)) {
-            System.out.println("Worker " + workerId + " ya está registrado");
-            return false;
-        }
+        System.out.println("[DEBUG] Workers disponibles antes: " + getAvailableWorkersCount());
         
         // Creación de nuevo worker
         Worker worker = new Worker(workerId, host, port);
@@ -155,15 +188,22 @@ public class ResourceManager {
         // Establecer heartbeat inicial para evitar que se marque como inactivo inmediatamente
         worker.updateHeartbeat();
         
-        registeredWorkers.put(workerId, worker);
-        availableWorkers.put(workerId, worker);
+        // Verificar si el worker ya está registrado
+        if (registeredWorkers.putIfAbsent(workerId, worker) != null) {
+            System.out.println("Worker " + workerId + " ya está registrado");
+            return false;
+        }
+        updatePerformanceScores(worker);
+        workerIndex.refresh(worker);
+        armLivenessTimer(workerId, WORKER_TIMEOUT_SECONDS * 1000L);
         
-        totalWorkersRegistered++;
+        totalWorkersRegistered.increment();
         
         System.out.println("[DEBUG] Workers registrados después: " + registeredWorkers.size());
-        System.out.println("[DEBUG] Workers disponibles después: " + availableWorkers.size());
+        System.out.println("[DEBUG] Workers disponibles después: " + getAvailableWorkersCount());
         System.out.println("Worker registrado: " + workerId + " (" + host + ":" + port + ") - CPU: " + cpuCores + ", Memoria: " + memoryMB + "MB, " + "Poder: " + computePower + ", MaxTareas: " + maxConcurrentTasks);
         
+        notifyWorkerAvailability();
         return true;
     }
     
@@ -179,10 +219,10 @@ public class ResourceManager {
             return false;
         }
         
-        // Remover de todos los mapas
-        availableWorkers.remove(workerId);
-        busyWorkers.remove(workerId);
-        inactiveWorkers.remove(workerId);
+        workerIndex.remove(workerId);
+        workerRetryCount.remove(workerId);
+        cancelLivenessTimer(workerId);
+        detachWorkerFromNode(worker);
         
         System.out.println("Worker dado de baja: " + workerId);
         return true;
@@ -200,22 +240,155 @@ public class ResourceManager {
             return false;
         }
         
-        worker.updateHeartbeat();
+        if (applyHeartbeat(worker, -1, -1, Double.NaN, Double.NaN)) {
+            notifyWorkerAvailability();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Aplica un heartbeat a un worker sin logs ni objetos nuevos (camino del
+     * HeartbeatIngestor; el llamador notifica la disponibilidad una vez por lote)
+     * @param worker Worker que envió el heartbeat
+     * @param activeTasks Tareas activas reportadas (-1 = no reportado)
+     * @param availableTasks Slots libres reportados (-1 = no reportado)
+     * @param cpuUsage Uso de CPU en % (NaN = no reportado)
+     * @param memoryUsage Uso de memoria en % (NaN = no reportado)
+     * @return true si el worker sigue registrado y tiene capacidad libre
+     */
+    boolean applyHeartbeat(Worker worker, int activeTasks, int availableTasks, double cpuUsage, double memoryUsage) {
+        String workerId = worker.getWorkerId();
+        if (registeredWorkers.get(workerId) != worker) {
+            return false; // Dado de baja mientras el heartbeat esperaba
+        }
+        
+        boolean scoreChanged = worker.recordHeartbeat(activeTasks, availableTasks, cpuUsage, memoryUsage);
         
         // Resetear contador de reintentos al recibir heartbeat
-        workerRetryCount.put(workerId, 0);
+        workerRetryCount.remove(workerId);
         
-        // Si el worker estaba inactivo, moverlo a disponible
-        if (worker.getStatus() == WorkerStatus.OFFLINE) {
-            worker.setStatus(WorkerStatus.READY);
-            inactiveWorkers.remove(workerId);
-            availableWorkers.put(workerId, worker);
+        // Si el worker estaba inactivo, reactivarlo
+        if (worker.reactivate()) {
+            workerIndex.refresh(worker);
+            armLivenessTimer(workerId, WORKER_TIMEOUT_SECONDS * 1000L);
             System.out.println("[OK] Worker " + workerId + " reactivado exitosamente");
-        } else {
-            System.out.println("[INFO] Heartbeat recibido de worker " + workerId + " - Estado: " + worker.getStatus());
+        } else if (scoreChanged) {
+            // Slots libres o salud reportados distintos: reposicionar en el índice
+            workerIndex.refresh(worker);
         }
         
-        return true;
+        return worker.isAvailable();
+    }
+    
+    // MÉTODOS DE AGREGACIÓN POR NODO
+    
+    /**
+     * Aplica el cambio de estado de un worker reportado en el heartbeat de su nodo.
+     * El primer reporte asocia el worker al nodo; desde entonces el heartbeat del
+     * nodo mantiene vivo al worker sin que este tenga que reportarse al Master.
+     * @param node Nodo que envió el heartbeat
+     * @param delta Cambio de estado del worker
+     * @return true si el worker quedó con capacidad libre (el llamador notifica una vez por lote)
+     */
+    boolean applyWorkerDelta(NodeInfo node, WorkerStateDelta delta) {
+        Worker worker = registeredWorkers.get(delta.getWorkerId());
+        if (worker == null) {
+            System.out.println("[WARN] Nodo " + node.getNodeId() + " reporta worker inexistente: " + delta.getWorkerId());
+            return false;
+        }
+        
+        if (worker.currentNode() != node) {
+            attachWorkerToNode(worker, node);
+        }
+        
+        // Excepción: el nodo sigue vivo pero el worker cayó
+        if (!delta.isAlive()) {
+            if (worker.isCoveredByNode()) {
+                worker.setCoveredByNode(false);
+                System.out.println("[WARN] Nodo " + node.getNodeId() + " reporta caído al worker " + worker.getWorkerId());
+                markWorkerAsInactive(worker.getWorkerId());
+            }
+            return false;
+        }
+        
+        worker.setCoveredByNode(true);
+        return applyHeartbeat(worker, delta.getActiveTasks(), delta.getAvailableTasks(),
+                              delta.getCpuUsage(), delta.getMemoryUsage());
+    }
+    
+    /**
+     * Reactiva los workers cubiertos por un nodo que vuelve a reportarse
+     * (solo se llama cuando el nodo pasa de OFFLINE a activo)
+     * @param node Nodo reactivado
+     * @return true si algún worker quedó con capacidad libre
+     */
+    boolean reactivateNodeWorkers(NodeInfo node) {
+        Set<Worker> workers = workersByNode.get(node.getNodeId());
+        if (workers == null) {
+            return false;
+        }
+        
+        boolean anyAvailable = false;
+        for (Worker worker : workers) {
+            if (worker.isCoveredByNode() && worker.getStatus() == WorkerStatus.OFFLINE) {
+                anyAvailable |= applyHeartbeat(worker, -1, -1, Double.NaN, Double.NaN);
+            }
+        }
+        return anyAvailable;
+    }
+    
+    /**
+     * Desasocia los workers de un nodo dado de baja (vuelven a depender de sus propios heartbeats)
+     * @param nodeId ID del nodo
+     */
+    void detachNodeWorkers(String nodeId) {
+        Set<Worker> workers = workersByNode.remove(nodeId);
+        if (workers == null) {
+            return;
+        }
+        for (Worker worker : workers) {
+            worker.setNode(null);
+        }
+        System.out.println("[INFO] " + workers.size() + " workers desasociados del nodo " + nodeId);
+    }
+    
+    /**
+     * Obtiene el número de workers asociados a un nodo
+     * @param nodeId ID del nodo
+     * @return Número de workers cubiertos por el nodo
+     */
+    public int getNodeWorkerCount(String nodeId) {
+        Set<Worker> workers = workersByNode.get(nodeId);
+        return workers != null ? workers.size() : 0;
+    }
+    
+    private void attachWorkerToNode(Worker worker, NodeInfo node) {
+        synchronized (worker) {
+            if (worker.currentNode() == node) {
+                return;
+            }
+            detachWorkerFromNode(worker);
+            worker.setNode(node);
+            workersByNode.computeIfAbsent(node.getNodeId(), id -> ConcurrentHashMap.newKeySet()).add(worker);
+        }
+        
+        if (!node.assignWorker()) {
+            System.out.println("[WARN] Nodo " + node.getNodeId() + " reporta más workers que su capacidad (" + node.getMaxWorkers() + ")");
+        }
+        System.out.println("[INFO] Worker " + worker.getWorkerId() + " asociado al nodo " + node.getNodeId());
+    }
+    
+    private void detachWorkerFromNode(Worker worker) {
+        NodeInfo previous = worker.currentNode();
+        if (previous == null) {
+            return;
+        }
+        worker.setNode(null);
+        Set<Worker> workers = workersByNode.get(previous.getNodeId());
+        if (workers != null && workers.remove(worker)) {
+            previous.releaseWorker();
+        }
     }
     
     /**
@@ -233,8 +406,8 @@ public class ResourceManager {
      */
     public List<Worker> getAllWorkers() {
         System.out.println("[DEBUG] getAllWorkers() - Workers registrados: " + registeredWorkers.size());
-        System.out.println("[DEBUG] getAllWorkers() - Workers disponibles: " + availableWorkers.size());
-        System.out.println("[DEBUG] getAllWorkers() - Workers ocupados: " + busyWorkers.size());
+        System.out.println("[DEBUG] getAllWorkers() - Workers disponibles: " + getAvailableWorkersCount());
+        System.out.println("[DEBUG] getAllWorkers() - Workers ocupados: " + countWorkers(WorkerStatus.BUSY));
         return new ArrayList<>(registeredWorkers.values());
     }
     
@@ -243,7 +416,13 @@ public class ResourceManager {
      * @return Lista de workers disponibles
      */
     public List<Worker> getAvailableWorkers() {
-        return new ArrayList<>(availableWorkers.values());
+        List<Worker> workers = new ArrayList<>();
+        for (Worker worker : registeredWorkers.values()) {
+            if (worker.isAvailable()) {
+                workers.add(worker);
+            }
+        }
+        return workers;
     }
     
     /**
@@ -251,36 +430,118 @@ public class ResourceManager {
      * @return Lista de workers ocupados
      */
     public List<Worker> getBusyWorkers() {
-        return new ArrayList<>(busyWorkers.values());
+        List<Worker> workers = new ArrayList<>();
+        for (Worker worker : registeredWorkers.values()) {
+            if (worker.getStatus() == WorkerStatus.BUSY) {
+                workers.add(worker);
+            }
+        }
+        return workers;
+    }
+    
+    // Cuenta los workers registrados en un estado
+    private int countWorkers(WorkerStatus status) {
+        int count = 0;
+        for (Worker worker : registeredWorkers.values()) {
+            if (worker.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    // MÉTODOS DE NOTIFICACIÓN
+    
+    /**
+     * Registra un oyente que se ejecuta cuando un worker queda con capacidad libre
+     * (registro, heartbeat, liberación de tarea)
+     * @param listener Acción a ejecutar; debe ser rápida y no bloquear
+     */
+    public void addWorkerAvailabilityListener(Runnable listener) {
+        if (listener != null) {
+            workerAvailabilityListeners.add(listener);
+        }
+    }
+    
+    /**
+     * Notifica a los oyentes que hay capacidad disponible
+     */
+    void notifyWorkerAvailability() {
+        for (Runnable listener : workerAvailabilityListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                System.err.println("[ERROR] Error notificando disponibilidad de worker: " + e.getMessage());
+            }
+        }
     }
     
     // MÉTODOS DE ASIGNACIÓN DE TAREAS
     
     /**
-     * Encuentra el mejor worker disponible para una tarea
+     * Encuentra el mejor worker disponible para una tarea. Los primeros candidatos del
+     * índice (ordenado por score global) se reordenan con el rendimiento observado para
+     * el tipo de tarea; las tareas de prioridad alta van al más rápido para ese tipo
+     * aunque tenga menos slots libres, las demás equilibran rendimiento y disponibilidad
      * @param taskType Tipo de tarea (MAP o REDUCE)
      * @param taskPriority Prioridad de la tarea (1-10, mayor = más prioridad)
      * @return Worker disponible o null si no hay workers disponibles
      */
     public Worker findBestAvailableWorker(String taskType, int taskPriority) {
-        if (availableWorkers.isEmpty()) {
+        TaskType type = parseTaskType(taskType);
+        if (type == null) {
+            return workerIndex.findBest(WORKER_TIMEOUT_SECONDS);
+        }
+        List<ToDoubleFunction<Worker>> rankings = taskPriority >= HIGH_PRIORITY_THRESHOLD
+            ? TYPE_PERFORMANCE_RANKINGS
+            : TYPE_SELECTION_RANKINGS;
+        return workerIndex.findBest(rankings.get(type.ordinal()), TYPE_RANKING_CANDIDATES, WORKER_TIMEOUT_SECONDS);
+    }
+    
+    private static TaskType parseTaskType(String taskType) {
+        if (taskType == null) {
             return null;
         }
-        
-        // Filtrar workers que pueden manejar el tipo de tarea
-        List<Worker> candidates = availableWorkers.values().stream()
-            .filter(Worker::isAvailable)
-            .filter(worker -> worker.isActive(WORKER_TIMEOUT_SECONDS))
-            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
-        
-        if (candidates.isEmpty()) {
+        try {
+            return TaskType.valueOf(taskType.toUpperCase());
+        } catch (IllegalArgumentException e) {
             return null;
         }
-        
-        // Ordenar por score de prioridad (mayor score = mejor candidato)
-        candidates.sort((w1, w2) -> Double.compare(w2.getPriorityScore(), w1.getPriorityScore()));
-        
-        return candidates.get(0);
+    }
+    
+    /**
+     * Encuentra el mejor worker disponible distinto de uno dado
+     * (para lanzar un intento especulativo en otra máquina)
+     * @param excludedWorkerId ID del worker a excluir
+     * @return Worker disponible o null si no hay otro candidato
+     */
+    public Worker findBestAvailableWorkerExcluding(String excludedWorkerId) {
+        return workerIndex.findBestExcluding(excludedWorkerId, WORKER_TIMEOUT_SECONDS);
+    }
+    
+    /**
+     * Encuentra el mejor worker disponible que corra en un host concreto
+     * @param host Host preferido (localidad de datos)
+     * @return Worker disponible en ese host o null si no hay
+     */
+    public Worker findBestAvailableWorkerOnHost(String host) {
+        return workerIndex.findBestOnHost(host, WORKER_TIMEOUT_SECONDS);
+    }
+    
+    /**
+     * Obtiene un worker concreto solo si está disponible y activo
+     * @param workerId ID del worker
+     * @return Worker o null si no existe o no puede recibir tareas
+     */
+    public Worker getAvailableWorker(String workerId) {
+        if (workerId == null) {
+            return null;
+        }
+        Worker worker = registeredWorkers.get(workerId);
+        if (worker != null && worker.isAvailable() && worker.isActive(WORKER_TIMEOUT_SECONDS)) {
+            return worker;
+        }
+        return null;
     }
     
     /**
@@ -291,20 +552,16 @@ public class ResourceManager {
      */
     public boolean assignTaskToWorker(String workerId, String taskId) {
         Worker worker = registeredWorkers.get(workerId);
-        if (worker == null || !worker.isAvailable()) {
+        if (worker == null) {
             return false;
         }
         
-        // Asignar tarea al worker
+        // Ocupar un slot con CAS: si otro hilo tomó el último, la asignación falla
         if (worker.assignTask(taskId)) {
-            // Mover worker de disponible a ocupado si está al límite
-            if (worker.isOverloaded()) {
-                availableWorkers.remove(workerId);
-                busyWorkers.put(workerId, worker);
-                worker.setStatus(WorkerStatus.BUSY);
-            }
+            // Pasa a BUSY (y sale del índice) si quedó lleno
+            workerIndex.refresh(worker);
             
-            totalTasksAssigned++;
+            totalTasksAssigned.increment();
             System.out.println("Tarea " + taskId + " asignada a worker " + workerId);
             return true;
         }
@@ -321,6 +578,19 @@ public class ResourceManager {
      * @return true si la liberación fue exitosa
      */
     public boolean releaseTaskFromWorker(String workerId, String taskId, long executionTimeMs, boolean success) {
+        return releaseTaskFromWorker(workerId, taskId, executionTimeMs, success, null);
+    }
+    
+    /**
+     * Libera una tarea de un worker y alimenta su modelo de rendimiento
+     * @param workerId ID del worker
+     * @param taskId ID de la tarea
+     * @param executionTimeMs Tiempo de ejecución en milisegundos
+     * @param success true si la tarea se completó exitosamente
+     * @param task Tarea liberada (null = no actualizar el modelo de rendimiento)
+     * @return true si la liberación fue exitosa
+     */
+    public boolean releaseTaskFromWorker(String workerId, String taskId, long executionTimeMs, boolean success, Task task) {
         Worker worker = registeredWorkers.get(workerId);
         if (worker == null) {
             return false;
@@ -334,21 +604,148 @@ public class ResourceManager {
             } else {
                 worker.recordTaskFailure();
             }
-            
-            // Mover worker de ocupado a disponible si tiene capacidad
-            if (worker.isAvailable() && busyWorkers.containsKey(workerId)) {
-                busyWorkers.remove(workerId);
-                availableWorkers.put(workerId, worker);
-                worker.setStatus(WorkerStatus.READY);
+            if (task != null) {
+                updatePerformanceModel(worker, task, executionTimeMs, success);
             }
             
+            onWorkerSlotFreed(worker);
+            
             System.out.println("Tarea " + taskId + " liberada del worker " + workerId + " (éxito: " + success + ", tiempo: " + executionTimeMs + "ms)");
+            notifyWorkerAvailability();
             return true;
         }
         
         return false;
     }
     
+    /**
+     * Cancela una tarea en un worker sin registrar éxito ni fallo
+     * (intento especulativo perdedor)
+     * @param workerId ID del worker
+     * @param taskId ID de la tarea
+     * @return true si la tarea estaba en el worker y se liberó
+     */
+    public boolean cancelTaskOnWorker(String workerId, String taskId) {
+        Worker worker = registeredWorkers.get(workerId);
+        if (worker == null || !worker.releaseTask(taskId)) {
+            return false;
+        }
+        
+        onWorkerSlotFreed(worker);
+        
+        System.out.println("Tarea " + taskId + " cancelada en worker " + workerId);
+        notifyWorkerAvailability();
+        return true;
+    }
+    
+    // El worker ya volvió a READY al liberar el slot; reposicionarlo en el índice
+    private void onWorkerSlotFreed(Worker worker) {
+        workerIndex.refresh(worker);
+    }
+    
+    // MODELO DE RENDIMIENTO
+    
+    /**
+     * Actualiza las EWMA del worker y del cluster con el resultado de una tarea y
+     * recalcula el score de rendimiento y los slots habilitados del worker
+     */
+    private void updatePerformanceModel(Worker worker, Task task, long executionTimeMs, boolean success) {
+        TaskType type = task.getType();
+        if (success) {
+            // Demora en cola: tiempo desde la asignación en que la tarea no se estuvo ejecutando
+            long startedAtMs = task.getStartedAtMs();
+            long wallTimeMs = startedAtMs > 0 ? Timestamps.now() - startedAtMs : executionTimeMs;
+            long queueDelayMs = Math.max(0, wallTimeMs - executionTimeMs);
+            worker.performance().recordSuccess(type, task.getInputSizeBytes(), executionTimeMs, queueDelayMs);
+            clusterPerformance.recordSuccess(type, task.getInputSizeBytes(), executionTimeMs, queueDelayMs);
+        } else {
+            worker.performance().recordFailure(type);
+            clusterPerformance.recordFailure(type);
+        }
+        
+        updatePerformanceScores(worker);
+        adjustSlotLimit(worker, type);
+    }
+    
+    // Recalcula el score global y los scores por tipo de tarea del worker
+    private void updatePerformanceScores(Worker worker) {
+        double[] typeScores = new double[TaskType.values().length];
+        for (TaskType type : TaskType.values()) {
+            typeScores[type.ordinal()] = computePerformanceScore(worker, type);
+        }
+        worker.setTypePerformanceScores(typeScores);
+        worker.setPerformanceScore(computePerformanceScore(worker, null));
+    }
+    
+    /**
+     * Calcula el rendimiento de un worker en [0, 1] (0.5 = media del cluster).
+     * La velocidad relativa observada se pondera por el número de tareas y se mezcla
+     * con la estimación inicial por computePower, que pesa PERFORMANCE_PRIOR_SAMPLES
+     * tareas; la tasa de fallos descuenta el resultado.
+     * @param worker Worker
+     * @param onlyType Tipo de tarea a evaluar o null para mezclar todos los tipos
+     */
+    private double computePerformanceScore(Worker worker, TaskType onlyType) {
+        WorkerPerformance performance = worker.performance();
+        double priorSpeed = getPriorRelativeSpeed(worker);
+        
+        double weightedSpeed = 0.0;
+        double weightedFailures = 0.0;
+        long samples = 0;
+        for (TaskType type : TaskType.values()) {
+            long typeSamples = performance.getSamples(type);
+            if (typeSamples == 0 || (onlyType != null && type != onlyType)) {
+                continue;
+            }
+            double speed = performance.getRelativeSpeed(type, clusterPerformance);
+            weightedSpeed += typeSamples * (Double.isNaN(speed) ? priorSpeed : speed);
+            weightedFailures += typeSamples * performance.getFailureRate(type);
+            samples += typeSamples;
+        }
+        
+        double speed = (weightedSpeed + PERFORMANCE_PRIOR_SAMPLES * priorSpeed) / (samples + PERFORMANCE_PRIOR_SAMPLES);
+        double failureRate = weightedFailures / (samples + PERFORMANCE_PRIOR_SAMPLES);
+        return speed / (1.0 + speed) * (1.0 - failureRate);
+    }
+    
+    // Velocidad esperada antes de observar tareas: computePower frente a una referencia
+    // fija, así el score guardado de un worker no depende de quién esté registrado
+    private double getPriorRelativeSpeed(Worker worker) {
+        if (worker.getComputePower() <= 0) {
+            return 1.0;
+        }
+        return worker.getComputePower() / REFERENCE_COMPUTE_POWER;
+    }
+    
+    /**
+     * Ajusta los slots habilitados de un worker según la demora en cola observada:
+     * si las tareas esperan en el worker una fracción grande de lo que tardan en
+     * ejecutarse, está sobresuscrito y pierde un slot; si apenas esperan, recupera uno
+     */
+    private void adjustSlotLimit(Worker worker, TaskType type) {
+        WorkerPerformance performance = worker.performance();
+        if (performance.getSamples(type) < PERFORMANCE_PRIOR_SAMPLES) {
+            return;
+        }
+        double executionTimeMs = performance.getExecutionTimeMs(type);
+        double queueDelayMs = performance.getQueueDelayMs(type);
+        if (Double.isNaN(executionTimeMs) || Double.isNaN(queueDelayMs)) {
+            return;
+        }
+        
+        double ratio = queueDelayMs / Math.max(1.0, executionTimeMs);
+        int slotLimit = worker.getSlotLimit();
+        if (ratio > QUEUE_DELAY_SHRINK_RATIO && queueDelayMs > MIN_QUEUE_DELAY_MS && slotLimit > 1) {
+            worker.setSlotLimit(slotLimit - 1);
+            System.out.println("[WARN] Worker " + worker.getWorkerId() + " sobresuscrito (demora " + Math.round(queueDelayMs) + 
+                            "ms) - slots habilitados: " + (slotLimit - 1) + "/" + worker.getMaxConcurrentTasks());
+        } else if (ratio < QUEUE_DELAY_GROW_RATIO && slotLimit < worker.getMaxConcurrentTasks()) {
+            worker.setSlotLimit(slotLimit + 1);
+            System.out.println("[INFO] Worker " + worker.getWorkerId() + " recupera un slot - slots habilitados: " + 
+                            (slotLimit + 1) + "/" + worker.getMaxConcurrentTasks());
+        }
+    }
+    
     /**
      * Obtiene el número de tareas activas de un worker
      * @param workerId ID del worker
@@ -372,84 +769,57 @@ public class ResourceManager {
     // MÉTODOS DE MONITOREO Y LIMPIEZA
     
     /**
-     * Verifica los heartbeats de todos los workers
-     * Se ejecuta periódicamente para detectar workers inactivos
+     * Programa (o reprograma) el plazo de heartbeat de un worker.
+     * El plazo no se mueve en cada heartbeat: al vencer se comprueba el último
+     * heartbeat y, si el worker sigue vivo, se vuelve a armar por el tiempo restante.
+     * @param workerId ID del worker
+     * @param delayMs Tiempo hasta el vencimiento
      */
-    private void checkWorkerHeartbeats() {
-        List<String> inactiveWorkerIds = new ArrayList<>();
-        
-        for (Worker worker : registeredWorkers.values()) {
-            // NO marcar como inactivo si está procesando tareas
-            if (!worker.isActive(WORKER_TIMEOUT_SECONDS) && worker.getCurrentLoad() == 0) {
-                inactiveWorkerIds.add(worker.getWorkerId());
-            }
+    private void armLivenessTimer(String workerId, long delayMs) {
+        if (timerWheel == null) {
+            return;
         }
-        
-        // Marcar workers inactivos solo si no están procesando tareas
-        for (String workerId : inactiveWorkerIds) {
-            markWorkerAsInactive(workerId);
-        }
-        
-        if (!inactiveWorkerIds.isEmpty()) {
-            System.out.println("[WARN] Workers inactivos detectados: " + inactiveWorkerIds);
+        TimerWheel.Timeout timeout = timerWheel.schedule(() -> onLivenessDeadline(workerId), delayMs, TimeUnit.MILLISECONDS);
+        TimerWheel.Timeout previous = livenessTimers.put(workerId, timeout);
+        if (previous != null) {
+            previous.cancel();
         }
     }
     
-    /**
-     * Realiza health checks proactivos para detectar problemas temprano
-     * Se ejecuta más frecuentemente que el check de heartbeats
-     */
-    private void performProactiveHealthChecks() {
-        try {
-            long currentTime = System.currentTimeMillis();
-            List<String> problematicWorkers = new ArrayList<>();
-            
-            // Verificar workers disponibles
-            for (Map.Entry<String, Worker> entry : availableWorkers.entrySet()) {
-                String workerId = entry.getKey();
-                Worker worker = entry.getValue();
-                
-                if (isWorkerProblematic(worker, currentTime)) {
-                    problematicWorkers.add(workerId);
-                    incrementRetryCount(workerId);
-                }
-            }
-            
-            // Verificar workers ocupados
-            for (Map.Entry<String, Worker> entry : busyWorkers.entrySet()) {
-                String workerId = entry.getKey();
-                Worker worker = entry.getValue();
-                
-                if (isWorkerProblematic(worker, currentTime)) {
-                    problematicWorkers.add(workerId);
-                    incrementRetryCount(workerId);
-                }
-            }
-            
-            // Manejar workers problemáticos
-            for (String workerId : problematicWorkers) {
-                handleProblematicWorker(workerId);
-            }
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error en health check proactivo: " + e.getMessage());
+    private void cancelLivenessTimer(String workerId) {
+        TimerWheel.Timeout timeout = livenessTimers.remove(workerId);
+        if (timeout != null) {
+            timeout.cancel();
         }
     }
     
     /**
-     * Verifica si un worker tiene problemas
+     * Vence el plazo de heartbeat de un worker (hilo de la rueda)
+     * @param workerId ID del worker
      */
-    private boolean isWorkerProblematic(Worker worker, long currentTime) {
-        if (worker == null || worker.getLastHeartbeat() == null) {
-            // NO marcar como problemático si está procesando tareas
-            return worker != null && worker.getCurrentLoad() == 0;
+    private void onLivenessDeadline(String workerId) {
+        Worker worker = registeredWorkers.get(workerId);
+        if (worker == null || worker.getStatus() == WorkerStatus.OFFLINE) {
+            livenessTimers.remove(workerId);
+            return;
         }
         
-        long timeSinceLastHeartbeat = currentTime - worker.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
-        boolean isTimeout = timeSinceLastHeartbeat > (WORKER_TIMEOUT_SECONDS * 1000);
+        long remainingMs = WORKER_TIMEOUT_SECONDS * 1000L - worker.getMillisSinceHeartbeat();
+        if (remainingMs > 0) {
+            // Hubo heartbeats desde que se armó el plazo
+            armLivenessTimer(workerId, remainingMs);
+            return;
+        }
         
-        // NO marcar como problemático si está procesando tareas
-        return isTimeout && worker.getCurrentLoad() == 0;
+        // NO marcar como inactivo si está procesando tareas; volver a verificar más tarde
+        if (worker.getCurrentLoad() > 0) {
+            incrementRetryCount(workerId);
+            armLivenessTimer(workerId, HEALTH_CHECK_INTERVAL_SECONDS * 1000L);
+            return;
+        }
+        
+        System.out.println("[WARN] Worker inactivo detectado: " + workerId);
+        markWorkerAsInactive(workerId);
     }
     
     /**
@@ -458,22 +828,7 @@ public class ResourceManager {
     private void incrementRetryCount(String workerId) {
         int currentRetries = workerRetryCount.getOrDefault(workerId, 0);
         workerRetryCount.put(workerId, currentRetries + 1);
-        System.out.println("[WARN] Worker " + workerId + " - Reintento #" + (currentRetries + 1));
-    }
-    
-    /**
-     * Maneja un worker problemático según su número de reintentos
-     */
-    private void handleProblematicWorker(String workerId) {
-        int retryCount = workerRetryCount.getOrDefault(workerId, 0);
-        
-        if (retryCount >= MAX_RETRY_ATTEMPTS) {
-            System.out.println("[ERROR] Worker " + workerId + " excedió reintentos máximos (" + MAX_RETRY_ATTEMPTS + ") - Marcando como inactivo");
-            markWorkerAsInactive(workerId);
-            workerRetryCount.remove(workerId);
-        } else {
-            System.out.println("[WARN] Worker " + workerId + " problemático - Reintento " + retryCount + "/" + MAX_RETRY_ATTEMPTS);
-        }
+        System.out.println("[WARN] Worker " + workerId + " sin heartbeat con tareas en curso - Reintento #" + (currentRetries + 1));
     }
     
     /**
@@ -491,46 +846,41 @@ public class ResourceManager {
         int retryCount = workerRetryCount.getOrDefault(workerId, 0);
         
         // Cambiar estado a OFFLINE
-        worker.setStatus(WorkerStatus.OFFLINE);
-        
-        // Mover de disponible/ocupado a inactivo
-        boolean wasAvailable = availableWorkers.remove(workerId) != null;
-        boolean wasBusy = busyWorkers.remove(workerId) != null;
-        inactiveWorkers.put(workerId, worker);
+        WorkerStatus previousStatus = worker.markOffline();
+        if (previousStatus == WorkerStatus.OFFLINE) {
+            return; // Ya estaba inactivo
+        }
+        workerIndex.refresh(worker);
         
         // Limpiar contador de reintentos
         workerRetryCount.remove(workerId);
         
+        // Programar la baja si no vuelve a reportarse
+        cancelLivenessTimer(workerId);
+        if (timerWheel != null) {
+            livenessTimers.put(workerId, timerWheel.schedule(
+                () -> cleanupInactiveWorker(workerId), CLEANUP_INTERVAL_SECONDS, TimeUnit.SECONDS));
+        }
+        
         System.out.println("[ERROR] Worker " + workerId + " marcado como inactivo:");
-        System.out.println("   - Estado anterior: " + (wasAvailable ? "disponible" : (wasBusy ? "ocupado" : "desconocido")));
+        System.out.println("   - Estado anterior: " + (previousStatus == WorkerStatus.READY ? "disponible" : (previousStatus == WorkerStatus.BUSY ? "ocupado" : "desconocido")));
         System.out.println("   - Reintentos fallidos: " + retryCount);
         System.out.println("   - Workers activos restantes: " + getActiveWorkersCount());
     }
     
     /**
-     * Limpia workers inactivos del sistema
-     * Se ejecuta periódicamente para liberar recursos
+     * Da de baja un worker que sigue inactivo al vencer su plazo de limpieza
+     * @param workerId ID del worker
      */
-    private void cleanupInactiveWorkers() {
-        if (inactiveWorkers.isEmpty()) {
-            return;
-        }
-        
-        List<String> workersToRemove = new ArrayList<>();
-        
-        for (Worker worker : inactiveWorkers.values()) {
-            // Remover workers que han estado inactivos por más del timeout configurado
-            long inactiveTime = java.time.Duration.between(worker.getLastHeartbeat(), java.time.LocalDateTime.now()).getSeconds();
-            if (inactiveTime > WORKER_TIMEOUT_SECONDS) {
-                workersToRemove.add(worker.getWorkerId());
-            }
+    private void cleanupInactiveWorker(String workerId) {
+        Worker worker = registeredWorkers.get(workerId);
+        if (worker == null || worker.getStatus() != WorkerStatus.OFFLINE) {
+            return; // Se reactivó o ya fue dado de baja
         }
         
-        // Remover workers inactivos
-        for (String workerId : workersToRemove) {
-            unregisterWorker(workerId);
-            System.out.println("Worker " + workerId + " removido por inactividad prolongada");
-        }
+        livenessTimers.remove(workerId);
+        unregisterWorker(workerId);
+        System.out.println("Worker " + workerId + " removido por inactividad prolongada");
     }
     
     // MÉTODOS DE ESTADÍSTICAS
@@ -542,12 +892,12 @@ public class ResourceManager {
     public String getSystemStatistics() {
         StringBuilder stats = new StringBuilder();
         stats.append("=== ESTADÍSTICAS DEL SISTEMA (TOLERANCIA A FALLOS) ===\n");
-        stats.append("Workers registrados: ").append(totalWorkersRegistered).append("\n");
+        stats.append("Workers registrados: ").append(getTotalWorkersCount()).append("\n");
         stats.append("Workers activos: ").append(getActiveWorkersCount()).append("\n");
-        stats.append("Workers disponibles: ").append(availableWorkers.size()).append("\n");
-        stats.append("Workers ocupados: ").append(busyWorkers.size()).append("\n");
-        stats.append("Workers inactivos: ").append(inactiveWorkers.size()).append("\n");
-        stats.append("Tareas asignadas: ").append(totalTasksAssigned).append("\n");
+        stats.append("Workers disponibles: ").append(getAvailableWorkersCount()).append("\n");
+        stats.append("Workers ocupados: ").append(countWorkers(WorkerStatus.BUSY)).append("\n");
+        stats.append("Workers inactivos: ").append(countWorkers(WorkerStatus.OFFLINE)).append("\n");
+        stats.append("Tareas asignadas: ").append(getTotalTasksAssigned()).append("\n");
         
         // Configuración de tolerancia a fallos
         stats.append("\n=== CONFIGURACIÓN DE TOLERANCIA A FALLOS ===\n");
@@ -561,8 +911,7 @@ public class ResourceManager {
         stats.append("\n=== DETALLES POR WORKER ===\n");
         for (Worker worker : registeredWorkers.values()) {
             int retryCount = workerRetryCount.getOrDefault(worker.getWorkerId(), 0);
-            boolean isHealthy = worker.getLastHeartbeat() != null && 
-                              (System.currentTimeMillis() - worker.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli()) < (WORKER_TIMEOUT_SECONDS * 1000);
+            boolean isHealthy = worker.isActive(WORKER_TIMEOUT_SECONDS);
             
             stats.append("Worker ").append(worker.getWorkerId())
                 .append(" - Estado: ").append(worker.getStatus())
@@ -583,7 +932,7 @@ public class ResourceManager {
      * @return Número de workers
      */
     public int getTotalWorkersCount() {
-        return totalWorkersRegistered;
+        return (int) totalWorkersRegistered.sum();
     }
     
     /**
@@ -591,15 +940,46 @@ public class ResourceManager {
      * @return Número de workers activos
      */
     public int getActiveWorkersCount() {
-        return availableWorkers.size() + busyWorkers.size();
+        return countWorkers(WorkerStatus.READY) + countWorkers(WorkerStatus.BUSY);
     }
     
     /**
-     * Obtiene el número de workers disponibles
+     * Obtiene el número de workers disponibles (O(1): tamaño del índice de selección)
      * @return Número de workers disponibles
      */
     public int getAvailableWorkersCount() {
-        return availableWorkers.size();
+        return workerIndex.size();
+    }
+    
+    /**
+     * Obtiene el total de slots de ejecución de los workers activos
+     * (suma de maxConcurrentTasks de workers disponibles y ocupados)
+     * @return Número de slots
+     */
+    public int getTotalTaskSlots() {
+        int slots = 0;
+        for (Worker worker : registeredWorkers.values()) {
+            WorkerStatus status = worker.getStatus();
+            if (status == WorkerStatus.READY || status == WorkerStatus.BUSY) {
+                slots += worker.getMaxConcurrentTasks();
+            }
+        }
+        return slots;
+    }
+    
+    /**
+     * Obtiene los slots libres de los workers disponibles
+     * (maxConcurrentTasks menos tareas activas)
+     * @return Número de slots libres
+     */
+    public int getFreeTaskSlots() {
+        int slots = 0;
+        for (Worker worker : registeredWorkers.values()) {
+            if (worker.isAvailable()) {
+                slots += Math.max(0, worker.getSlotLimit() - worker.getCurrentLoad());
+            }
+        }
+        return slots;
     }
     
     /**
@@ -607,7 +987,7 @@ public class ResourceManager {
      * @return Número de tareas asignadas
      */
     public int getTotalTasksAssigned() {
-        return totalTasksAssigned;
+        return (int) totalTasksAssigned.sum();
     }
     
     /**
@@ -617,12 +997,13 @@ public class ResourceManager {
      */
     public boolean markWorkerAvailable(String workerId) {
         try {
-            Worker worker = busyWorkers.remove(workerId);
-            if (worker != null) {
-                availableWorkers.put(workerId, worker);
+            Worker worker = registeredWorkers.get(workerId);
+            if (worker != null && worker.isAvailable()) {
+                workerIndex.refresh(worker);
                 // Resetear contador de reintentos al marcar como disponible
                 workerRetryCount.put(workerId, 0);
                 System.out.println("[OK] Worker " + workerId + " marcado como disponible");
+                notifyWorkerAvailability();
                 return true;
             }
             return false;
@@ -640,12 +1021,12 @@ public class ResourceManager {
         Map<String, Object> stats = new HashMap<>();
         
         // Estadísticas básicas
-        stats.put("totalWorkers", totalWorkersRegistered);
+        stats.put("totalWorkers", getTotalWorkersCount());
         stats.put("activeWorkers", getActiveWorkersCount());
-        stats.put("availableWorkers", availableWorkers.size());
-        stats.put("busyWorkers", busyWorkers.size());
-        stats.put("inactiveWorkers", inactiveWorkers.size());
-        stats.put("totalTasksAssigned", totalTasksAssigned);
+        stats.put("availableWorkers", getAvailableWorkersCount());
+        stats.put("busyWorkers", countWorkers(WorkerStatus.BUSY));
+        stats.put("inactiveWorkers", countWorkers(WorkerStatus.OFFLINE));
+        stats.put("totalTasksAssigned", getTotalTasksAssigned());
         
         // Configuración de tolerancia a fallos
         Map<String, Object> config = new HashMap<>();
@@ -671,24 +1052,47 @@ public class ResourceManager {
             workerInfo.put("maxConcurrentTasks", worker.getMaxConcurrentTasks());
             workerInfo.put("completedTasks", worker.getCompletedTasks());
             workerInfo.put("priorityScore", worker.getPriorityScore());
+            workerInfo.put("performanceScore", worker.getPerformanceScore());
+            workerInfo.put("slotLimit", worker.getSlotLimit());
+            workerInfo.put("performance", performanceInfo(worker.performance()));
             workerInfo.put("retryCount", workerRetryCount.getOrDefault(worker.getWorkerId(), 0));
             
             // Verificar salud del worker
-            boolean isHealthy = worker.getLastHeartbeat() != null && 
-                              (System.currentTimeMillis() - worker.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli()) < (WORKER_TIMEOUT_SECONDS * 1000);
+            boolean isHealthy = worker.isActive(WORKER_TIMEOUT_SECONDS);
             workerInfo.put("isHealthy", isHealthy);
             
-            if (worker.getLastHeartbeat() != null) {
-                long timeSinceHeartbeat = System.currentTimeMillis() - worker.getLastHeartbeat().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
-                workerInfo.put("timeSinceLastHeartbeatMs", timeSinceHeartbeat);
-            } else {
-                workerInfo.put("timeSinceLastHeartbeatMs", -1);
-            }
+            long timeSinceHeartbeat = worker.getMillisSinceHeartbeat();
+            workerInfo.put("timeSinceLastHeartbeatMs", timeSinceHeartbeat != Long.MAX_VALUE ? timeSinceHeartbeat : -1);
             
             workerStats.add(workerInfo);
         }
         stats.put("workers", workerStats);
+        stats.put("clusterPerformance", performanceInfo(clusterPerformance));
         
         return stats;
     }
+    
+    // Resumen por tipo de tarea del modelo de rendimiento (solo tipos con tareas terminadas)
+    private Map<String, Object> performanceInfo(WorkerPerformance performance) {
+        Map<String, Object> info = new HashMap<>();
+        for (TaskType type : TaskType.values()) {
+            long samples = performance.getSamples(type);
+            if (samples == 0) {
+                continue;
+            }
+            Map<String, Object> typeInfo = new HashMap<>();
+            typeInfo.put("samples", samples);
+            typeInfo.put("failureRate", performance.getFailureRate(type));
+            typeInfo.put("throughputBytesPerSec", orNull(performance.getThroughputBytesPerSec(type)));
+            typeInfo.put("executionTimeMs", orNull(performance.getExecutionTimeMs(type)));
+            typeInfo.put("queueDelayMs", orNull(performance.getQueueDelayMs(type)));
+            info.put(type.name(), typeInfo);
+        }
+        return info;
+    }
+    
+    // Jackson no serializa NaN como número válido en JSON
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
 }
\ No newline at end of file
@@ -1,17 +1,26 @@
 package com.gridmr.master.components;
 
+import com.gridmr.master.model.DataChunk;
+import com.gridmr.master.model.LocalityLevel;
 import com.gridmr.master.model.Task;
 import com.gridmr.master.model.TaskType;
 import com.gridmr.master.model.TaskStatus;
+import com.gridmr.master.model.Timestamps;
 import com.gridmr.master.model.Worker;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
 
 /**
  * Scheduler - Programa tareas para los workers
@@ -23,6 +32,7 @@ import java.util.concurrent.TimeUnit;
  * - Balancear carga entre workers
  * - Monitorear progreso de tareas asignadas
  * - Reasignar tareas si un worker falla
+ * - Lanzar intentos especulativos para tareas rezagadas (stragglers)
  */
 @Component
 public class Scheduler {
@@ -31,37 +41,72 @@ public class Scheduler {
     @Autowired
     private ResourceManager resourceManager;
     
-    // Colas de tareas por tipo
-    private final Queue<Task> mapTaskQueue;
-    private final Queue<Task> reduceTaskQueue;
+    // Referencia al NodeManager para resolver el host de almacenamiento de los chunks
+    @Autowired(required = false)
+    private NodeManager nodeManager;
     
-    // Tareas asignadas (taskId -> Worker)
-    private final Map<String, Worker> assignedTasks;
+    // Tareas pendientes por trabajo y cliente (reparto justo)
+    private final FairShareQueue fairShareQueue;
     
-    // Referencias a tareas asignadas (taskId -> Task)
-    private final Map<String, Task> assignedTaskReferences;
+    // Tareas asignadas y worker de su intento principal (lock por franjas de taskId)
+    private final TaskAssignmentRegistry assignments;
     
     // Scheduler para tareas periódicas
     private ScheduledExecutorService scheduler;
     
+    // Rueda de temporizadores compartida para los timeouts de tareas
+    private TimerWheel timerWheel;
+    private boolean ownsTimerWheel;
+    
+    // Hilo único de despacho: toda asignación de tareas pasa por aquí
+    private ExecutorService dispatchExecutor;
+    
+    // Indica si ya hay un despacho encolado (coalesce de eventos)
+    private final AtomicBoolean dispatchRequested;
+    
+    // Intentos especulativos en curso (taskId -> intento de respaldo)
+    private final Map<String, SpeculativeAttempt> speculativeAttempts;
+    
+    // Tiempos de ejecución observados por trabajo y tipo (jobId:TIPO -> muestras)
+    private final Map<String, RuntimeSamples> runtimeSamples;
+    
+    // Oyentes de eventos de tareas (JobManager)
+    private final List<TaskEventListener> taskEventListeners;
+    
     // Configuración
-    private static final int SCHEDULING_INTERVAL_SECONDS = 2;
+    // El despacho es por eventos; el barrido periódico queda solo como red de seguridad
+    private static final int SCHEDULING_INTERVAL_SECONDS = 10;
     private static final int TASK_TIMEOUT_SECONDS = 300; // 5 minutos
     
-    // Estadísticas
-    private int totalTasksScheduled;
-    private int totalTasksCompleted;
-    private int totalTasksFailed;
+    // Delay scheduling: espera acotada por localidad antes de bajar de nivel
+    private static final long NODE_LOCALITY_WAIT_MS = 1500; // Espera por el worker que tiene el chunk
+    private static final long HOST_LOCALITY_WAIT_MS = 3000; // Espera total antes de aceptar cualquier worker
+    
+    // Ejecución especulativa
+    private static final int SPECULATION_CHECK_INTERVAL_SECONDS = 5;
+    private static final int SPECULATION_MIN_SAMPLES = 3;       // Tareas completadas antes de estimar la mediana
+    private static final double SPECULATION_SLOWDOWN_FACTOR = 1.5; // Rezagada si supera 1.5x la mediana
+    private static final long SPECULATION_MIN_RUNTIME_MS = 10000; // No especular tareas cortas
+    private static final double SPECULATION_MAX_FRACTION = 0.1;  // Máximo 10% de tareas con respaldo
+    private static final int RUNTIME_SAMPLE_LIMIT = 1000;       // Muestras guardadas por trabajo y tipo
+    
+    // Estadísticas (LongAdder: se actualizan desde varios hilos sin contención)
+    private final LongAdder totalTasksScheduled = new LongAdder();
+    private final LongAdder totalTasksCompleted = new LongAdder();
+    private final LongAdder totalTasksFailed = new LongAdder();
+    private final LongAdder nodeLocalAssignments = new LongAdder();
+    private final LongAdder hostLocalAssignments = new LongAdder();
+    private final LongAdder anyLocalityAssignments = new LongAdder();
+    private final LongAdder speculativeAttemptsLaunched = new LongAdder();
+    private final LongAdder speculativeAttemptsWon = new LongAdder();
     
     public Scheduler() {
-        this.mapTaskQueue = new ConcurrentLinkedQueue<>();
-        this.reduceTaskQueue = new ConcurrentLinkedQueue<>();
-        this.assignedTasks = new HashMap<>();
-        this.assignedTaskReferences = new HashMap<>();
-        
-        this.totalTasksScheduled = 0;
-        this.totalTasksCompleted = 0;
-        this.totalTasksFailed = 0;
+        this.fairShareQueue = new FairShareQueue();
+        this.assignments = new TaskAssignmentRegistry();
+        this.dispatchRequested = new AtomicBoolean(false);
+        this.speculativeAttempts = new ConcurrentHashMap<>();
+        this.runtimeSamples = new ConcurrentHashMap<>();
+        this.taskEventListeners = new CopyOnWriteArrayList<>();
         
         System.out.println("Scheduler inicializado");
     }
@@ -70,32 +115,60 @@ public class Scheduler {
     public void init() {
         System.out.println("[DEBUG] @PostConstruct ejecutándose - Inicializando Scheduler...");
         start();
+        
+        // Despachar en cuanto un worker quede disponible (registro, heartbeat, liberación)
+        resourceManager.addWorkerAvailabilityListener(this::requestDispatch);
         System.out.println("[DEBUG] Scheduler inicializado completamente");
     }
     
+    /**
+     * Asigna la rueda de temporizadores compartida. Debe llamarse antes de start();
+     * si no se asigna, el Scheduler crea una propia.
+     * @param timerWheel Rueda de temporizadores
+     */
+    @Autowired(required = false)
+    public void setTimerWheel(TimerWheel timerWheel) {
+        if (scheduler == null) {
+            this.timerWheel = timerWheel;
+        }
+    }
+    
     public void start() {
+        // Evitar doble inicio (bean de configuración + @PostConstruct)
+        if (scheduler != null && !scheduler.isShutdown()) {
+            return;
+        }
+        
         System.out.println("Scheduler iniciando...");
         
+        if (timerWheel == null) {
+            timerWheel = new TimerWheel();
+            ownsTimerWheel = true;
+        }
+        timerWheel.start();
+        
         // Iniciar scheduler para tareas periódicas
         this.scheduler = Executors.newScheduledThreadPool(2);
+        this.dispatchExecutor = Executors.newSingleThreadExecutor();
         
-        // Tarea periódica para asignar tareas pendientes
+        // Barrido periódico de respaldo por si se pierde algún evento
         scheduler.scheduleAtFixedRate(
-            this::schedulePendingTasks,
+            this::requestDispatch,
             SCHEDULING_INTERVAL_SECONDS,
             SCHEDULING_INTERVAL_SECONDS,
             TimeUnit.SECONDS
         );
         
-        // Tarea periódica para verificar tareas con timeout
+        // Búsqueda periódica de tareas rezagadas (corre en el hilo de despacho)
         scheduler.scheduleAtFixedRate(
-            this::checkTaskTimeouts,
-            TASK_TIMEOUT_SECONDS,
-            TASK_TIMEOUT_SECONDS,
+            () -> runOnDispatchThread(this::checkStragglers),
+            SPECULATION_CHECK_INTERVAL_SECONDS,
+            SPECULATION_CHECK_INTERVAL_SECONDS,
             TimeUnit.SECONDS
         );
         
-        System.out.println("Scheduler iniciado - Asignación automática de tareas activa");
+        System.out.println("Scheduler iniciado - Despacho por eventos activo (respaldo cada " + 
+                        SCHEDULING_INTERVAL_SECONDS + "s)");
     }
     
     public void stop() {
@@ -113,6 +186,14 @@ public class Scheduler {
             }
         }
         
+        if (dispatchExecutor != null && !dispatchExecutor.isShutdown()) {
+            dispatchExecutor.shutdownNow();
+        }
+        
+        if (ownsTimerWheel && timerWheel != null) {
+            timerWheel.stop();
+        }
+        
         System.out.println("Scheduler detenido");
     }
     
@@ -128,87 +209,326 @@ public class Scheduler {
             return false;
         }
         
-        // Agregar a la cola según el tipo
+        // Agregar a la cola de su trabajo según el tipo
         if (task.getType() == TaskType.MAP) {
-            mapTaskQueue.offer(task);
+            fairShareQueue.add(task);
             System.out.println("Tarea Map agregada a la cola: " + task.getTaskId());
         } else if (task.getType() == TaskType.REDUCE) {
-            reduceTaskQueue.offer(task);
+            fairShareQueue.add(task);
             System.out.println("Tarea Reduce agregada a la cola: " + task.getTaskId());
         } else {
             System.out.println("Tipo de tarea no soportado: " + task.getType());
             return false;
         }
         
+        requestDispatch();
         return true;
     }
     
+    // Devuelve a la cola una tarea que ya estuvo pendiente, sin reiniciar su envejecimiento
+    private void requeueTask(Task task) {
+        fairShareQueue.restore(task);
+        requestDispatch();
+    }
+    
     /**
      * Obtiene el número de tareas pendientes por tipo
      * @param taskType Tipo de tarea
      * @return Número de tareas pendientes
      */
     public int getPendingTaskCount(TaskType taskType) {
-        if (taskType == TaskType.MAP) {
-            return mapTaskQueue.size();
-        } else if (taskType == TaskType.REDUCE) {
-            return reduceTaskQueue.size();
+        if (taskType == TaskType.MAP || taskType == TaskType.REDUCE) {
+            return fairShareQueue.size(taskType);
         }
         return 0;
     }
     
+    /**
+     * Define el peso de un cliente en el reparto del cluster (por defecto 1.0)
+     * @param clientId ID del cliente
+     * @param weight Peso positivo; un cliente con peso 2 recibe el doble de slots que uno con peso 1
+     */
+    public void setClientWeight(String clientId, double weight) {
+        fairShareQueue.setClientWeight(clientId, weight);
+    }
+    
     /**
      * Obtiene el número total de tareas asignadas
      * @return Número de tareas asignadas
      */
     public int getAssignedTaskCount() {
-        return assignedTasks.size();
+        return assignments.size();
     }
     
     // MÉTODOS DE ASIGNACIÓN
     
+    /**
+     * Solicita una ronda de despacho en el hilo de despacho.
+     * Varias solicitudes seguidas se agrupan en una sola ronda.
+     */
+    public void requestDispatch() {
+        if (dispatchExecutor == null || dispatchExecutor.isShutdown()) {
+            return;
+        }
+        
+        if (dispatchRequested.compareAndSet(false, true)) {
+            try {
+                dispatchExecutor.execute(this::runDispatch);
+            } catch (RejectedExecutionException e) {
+                dispatchRequested.set(false);
+            }
+        }
+    }
+    
+    // Ejecuta una acción en el hilo de despacho si sigue activo
+    private void runOnDispatchThread(Runnable action) {
+        if (dispatchExecutor == null || dispatchExecutor.isShutdown()) {
+            return;
+        }
+        try {
+            dispatchExecutor.execute(() -> {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    System.err.println("❌ Error en hilo de despacho: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Scheduler deteniéndose
+        }
+    }
+    
+    /**
+     * Ronda de despacho. Se limpia la bandera antes de asignar para que
+     * los eventos que lleguen durante la ronda programen otra.
+     */
+    private void runDispatch() {
+        dispatchRequested.set(false);
+        try {
+            schedulePendingTasks();
+        } catch (Exception e) {
+            System.err.println("❌ Error en ronda de despacho: " + e.getMessage());
+        }
+    }
+    
     /**
      * Asigna tareas pendientes a workers disponibles
-     * Se ejecuta periódicamente
+     * Se ejecuta en el hilo de despacho
      */
     private void schedulePendingTasks() {
         // Asignar tareas Map primero (mayor prioridad)
-        scheduleTasksFromQueue(mapTaskQueue, TaskType.MAP);
+        scheduleTasksFromQueue(TaskType.MAP);
         
         // Luego asignar tareas Reduce
-        scheduleTasksFromQueue(reduceTaskQueue, TaskType.REDUCE);
+        scheduleTasksFromQueue(TaskType.REDUCE);
     }
     
     /**
-     * Asigna tareas de una cola específica
-     * @param taskQueue Cola de tareas
+     * Asigna tareas de un tipo por prioridad efectiva y repartiendo el cluster entre
+     * clientes y trabajos (FairShareQueue). Una tarea que no se puede colocar (espera
+     * de localidad o asignación rechazada) se salta sin bloquear a las demás, y un
+     * trabajo sin nada asignable queda fuera del resto de la ronda.
      * @param taskType Tipo de tarea
      */
-    private void scheduleTasksFromQueue(Queue<Task> taskQueue, TaskType taskType) {
-        while (!taskQueue.isEmpty()) {
-            Task task = taskQueue.peek(); // Ver sin remover
-            
-            // Buscar worker disponible
-            Worker availableWorker = resourceManager.findBestAvailableWorker(
-                taskType.name(), 
-                task.getPriority()
-            );
+    private void scheduleTasksFromQueue(TaskType taskType) {
+        long now = Timestamps.now();
+        long nextLocalityRetryMs = Long.MAX_VALUE;
+        
+        Map<String, Integer> runningByJob = new HashMap<>();
+        Map<String, Integer> runningByClient = new HashMap<>();
+        countRunningTasks(runningByJob, runningByClient);
+        Set<String> skippedJobs = new HashSet<>();
+        
+        while (resourceManager.getAvailableWorkersCount() > 0) {
+            Iterable<Task> jobTasks = fairShareQueue.nextJobTasks(taskType, runningByJob, runningByClient, skippedJobs, now);
+            if (jobTasks == null) {
+                break;
+            }
             
-            if (availableWorker != null) {
-                // Asignar tarea al worker
-                if (assignTaskToWorker(task, availableWorker)) {
-                    taskQueue.poll(); // Remover de la cola
-                    System.out.println("Tarea " + task.getTaskId() + " asignada a worker " + 
-                                    availableWorker.getWorkerId());
-                } else {
+            Task assigned = null;
+            String scannedJobId = null;
+            List<Task> notAssigned = null;
+            boolean noWorkers = false;
+            for (Task task : jobTasks) {
+                scannedJobId = task.getJobId();
+                if (resourceManager.getAvailableWorkersCount() == 0) {
+                    noWorkers = true;
                     break;
                 }
-            } else {
+                
+                // Buscar worker disponible respetando la localidad del chunk
+                Worker availableWorker = selectWorkerForTask(task, now);
+                
+                if (availableWorker == null) {
+                    if (task.hasLocalityPreference()) {
+                        // Esperando localidad: reintentar cuando venza la espera
+                        nextLocalityRetryMs = Math.min(nextLocalityRetryMs, getRemainingLocalityWait(task, now));
+                    }
+                    continue;
+                }
+                
+                // Tomar la tarea de la cola antes de asignarla: si ya no estaba (reencolada
+                // o cancelada por otro hilo) no se asigna, así nunca se asigna dos veces
+                if (!fairShareQueue.remove(task)) {
+                    continue;
+                }
+                
+                // Asignar tarea al worker (puede fallar si el worker se llenó entretanto)
+                if (!assignTaskToWorker(task, availableWorker)) {
+                    if (notAssigned == null) {
+                        notAssigned = new ArrayList<>();
+                    }
+                    notAssigned.add(task); // Se devuelve a la cola al terminar el recorrido
+                    continue;
+                }
+                recordLocality(task.getLocalityLevel());
+                System.out.println("Tarea " + task.getTaskId() + " asignada a worker " + 
+                                availableWorker.getWorkerId() + 
+                                (task.getLocalityLevel() != null ? " (" + task.getLocalityLevel() + ")" : ""));
+                assigned = task;
+                break;
+            }
+            
+            if (notAssigned != null) {
+                // Al frente de su nivel en orden inverso: conservan su orden relativo
+                for (int i = notAssigned.size() - 1; i >= 0; i--) {
+                    fairShareQueue.restore(notAssigned.get(i));
+                }
+            }
+            if (noWorkers) {
                 break;
             }
+            if (assigned == null) {
+                if (scannedJobId != null) {
+                    skippedJobs.add(scannedJobId); // Cola vacía: ya no se vuelve a elegir
+                }
+                continue;
+            }
+            runningByJob.merge(assigned.getJobId(), 1, Integer::sum);
+            if (assigned.getClientId() != null) {
+                runningByClient.merge(assigned.getClientId(), 1, Integer::sum);
+            }
+        }
+        
+        // Programar un despacho cuando venza la espera de localidad más próxima
+        if (nextLocalityRetryMs != Long.MAX_VALUE && scheduler != null && !scheduler.isShutdown()) {
+            scheduler.schedule(this::requestDispatch, Math.max(1, nextLocalityRetryMs), TimeUnit.MILLISECONDS);
         }
     }
     
+    /**
+     * Cuenta las tareas en ejecución (incluidos intentos especulativos) por trabajo y cliente
+     */
+    private void countRunningTasks(Map<String, Integer> runningByJob, Map<String, Integer> runningByClient) {
+        for (Task task : assignments.getTasks()) {
+            int attempts = speculativeAttempts.containsKey(task.getTaskId()) ? 2 : 1;
+            runningByJob.merge(task.getJobId(), attempts, Integer::sum);
+            if (task.getClientId() != null) {
+                runningByClient.merge(task.getClientId(), attempts, Integer::sum);
+            }
+        }
+    }
+    
+    /**
+     * Selecciona un worker para la tarea por niveles de localidad:
+     * NODE_LOCAL (worker con el chunk), HOST_LOCAL (mismo host que el almacenamiento)
+     * y ANY, esperando como máximo NODE_LOCALITY_WAIT_MS / HOST_LOCALITY_WAIT_MS
+     * antes de bajar de nivel.
+     * @param task Tarea a asignar
+     * @param now Tiempo actual en ms monótonos (Timestamps.now())
+     * @return Worker elegido o null si no hay o si la tarea debe seguir esperando
+     */
+    private Worker selectWorkerForTask(Task task, long now) {
+        if (!task.hasLocalityPreference()) {
+            Worker worker = resourceManager.findBestAvailableWorker(task.getType().name(), task.getPriority());
+            task.setLocalityLevel(worker != null ? LocalityLevel.ANY : null);
+            return worker;
+        }
+        
+        // Nivel 1: el worker que ya tiene el chunk
+        Worker worker = resourceManager.getAvailableWorker(task.getPreferredWorkerId());
+        if (worker != null) {
+            task.setLocalityLevel(LocalityLevel.NODE_LOCAL);
+            return worker;
+        }
+        
+        if (task.getLocalityWaitStartedAt() == 0) {
+            task.setLocalityWaitStartedAt(now);
+        }
+        long waited = now - task.getLocalityWaitStartedAt();
+        
+        // Nivel 2: un worker en el host que almacena el chunk
+        if (task.getPreferredWorkerId() == null || waited >= NODE_LOCALITY_WAIT_MS) {
+            for (String host : task.getPreferredHosts()) {
+                worker = resourceManager.findBestAvailableWorkerOnHost(host);
+                if (worker != null) {
+                    task.setLocalityLevel(LocalityLevel.HOST_LOCAL);
+                    return worker;
+                }
+            }
+        }
+        
+        // Nivel 3: cualquier worker, una vez agotada la espera
+        if (waited >= HOST_LOCALITY_WAIT_MS) {
+            worker = resourceManager.findBestAvailableWorker(task.getType().name(), task.getPriority());
+            if (worker != null) {
+                task.setLocalityLevel(LocalityLevel.ANY);
+                return worker;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Calcula cuánto falta para que la tarea baje al siguiente nivel de localidad
+     * @param task Tarea en espera
+     * @param now Tiempo actual en ms monótonos (Timestamps.now())
+     * @return Milisegundos restantes
+     */
+    private long getRemainingLocalityWait(Task task, long now) {
+        long waited = now - task.getLocalityWaitStartedAt();
+        if (task.getPreferredWorkerId() != null && waited < NODE_LOCALITY_WAIT_MS) {
+            return NODE_LOCALITY_WAIT_MS - waited;
+        }
+        return Math.max(1, HOST_LOCALITY_WAIT_MS - waited);
+    }
+    
+    private void recordLocality(LocalityLevel level) {
+        if (level == LocalityLevel.NODE_LOCAL) {
+            nodeLocalAssignments.increment();
+        } else if (level == LocalityLevel.HOST_LOCAL) {
+            hostLocalAssignments.increment();
+        } else if (level == LocalityLevel.ANY) {
+            anyLocalityAssignments.increment();
+        }
+    }
+    
+    /**
+     * Configura las preferencias de localidad de una tarea Map a partir de su chunk:
+     * el worker asignado al chunk (y su host) y el host del nodo que lo almacena
+     * @param task Tarea Map
+     * @param chunk Chunk de entrada de la tarea
+     */
+    public void applyChunkLocality(Task task, DataChunk chunk) {
+        if (task == null || chunk == null) {
+            return;
+        }
+        
+        if (chunk.isAssigned()) {
+            task.setPreferredWorkerId(chunk.getAssignedWorkerId());
+            Worker chunkWorker = resourceManager.getWorker(chunk.getAssignedWorkerId());
+            if (chunkWorker != null) {
+                task.addPreferredHost(chunkWorker.getHost());
+            }
+        }
+        
+        if (nodeManager != null) {
+            task.addPreferredHost(nodeManager.getNodeHost(chunk.getStorageNodeId()));
+        }
+        task.addPreferredHost(chunk.getLocationHost());
+    }
+    
     /**
      * Asigna una tarea específica a un worker
      * @param task Tarea a asignar
@@ -226,11 +546,14 @@ public class Scheduler {
             // Actualizar estado de la tarea
             task.setStatus(TaskStatus.ASSIGNED);
             task.setWorkerId(worker.getWorkerId());
+            task.setStartedAtMs(Timestamps.now());
+            task.nextAttempt();
             
             // Registrar asignación
-            assignedTasks.put(task.getTaskId(), worker);
-            assignedTaskReferences.put(task.getTaskId(), task);
-            totalTasksScheduled++;
+            TaskAssignmentRegistry.Assignment assignment = assignments.put(task, worker);
+            totalTasksScheduled.increment();
+            armTaskTimeout(assignment, TASK_TIMEOUT_SECONDS * 1000L);
+            notifyTaskEvent(task, TaskEventListener::onTaskStarted);
             
             return true;
         }
@@ -246,24 +569,37 @@ public class Scheduler {
      * @return true si la liberación fue exitosa
      */
     public boolean releaseTask(String taskId, boolean success, long executionTimeMs) {
-        Worker worker = assignedTasks.remove(taskId);
-        assignedTaskReferences.remove(taskId); // Limpiar referencia
-        if (worker == null) {
-            System.out.println("Tarea " + taskId + " no está asignada");
-            return false;
+        Worker worker;
+        Task task;
+        SpeculativeAttempt backup;
+        synchronized (assignments.lockFor(taskId)) {
+            TaskAssignmentRegistry.Assignment assignment = assignments.remove(taskId);
+            if (assignment == null) {
+                System.out.println("Tarea " + taskId + " no está asignada");
+                return false;
+            }
+            worker = assignment.getWorker();
+            task = assignment.getTask();
+            backup = speculativeAttempts.remove(taskId);
+        }
+        
+        // Si había un intento de respaldo, se cancela
+        if (backup != null) {
+            resourceManager.cancelTaskOnWorker(backup.worker.getWorkerId(), taskId);
         }
         
         // Liberar tarea del worker usando ResourceManager
-        if (resourceManager.releaseTaskFromWorker(worker.getWorkerId(), taskId, executionTimeMs, success)) {
+        if (resourceManager.releaseTaskFromWorker(worker.getWorkerId(), taskId, executionTimeMs, success, task)) {
             // Actualizar estadísticas
             if (success) {
-                totalTasksCompleted++;
+                totalTasksCompleted.increment();
             } else {
-                totalTasksFailed++;
+                totalTasksFailed.increment();
             }
             
             System.out.println("Tarea " + taskId + " liberada del worker " + worker.getWorkerId() + 
                             " (éxito: " + success + ")");
+            requestDispatch();
             return true;
         }
         
@@ -279,69 +615,69 @@ public class Scheduler {
      */
     private Task getTaskById(String taskId) {
         // Primero buscar en tareas asignadas
-        Task assignedTask = assignedTaskReferences.get(taskId);
+        Task assignedTask = assignments.getTask(taskId);
         if (assignedTask != null) {
             return assignedTask;
         }
         
-        // Buscar en la cola de tareas Map
-        for (Task task : mapTaskQueue) {
-            if (task.getTaskId().equals(taskId)) {
-                return task;
-            }
-        }
-        
-        // Buscar en la cola de tareas Reduce
-        for (Task task : reduceTaskQueue) {
-            if (task.getTaskId().equals(taskId)) {
-                return task;
-            }
-        }
-        
-        return null;
+        // Buscar en las colas de tareas pendientes
+        return fairShareQueue.find(taskId);
     }
     
     // MÉTODOS DE MONITOREO
     
     /**
-     * Verifica tareas que han excedido su timeout
-     * Se ejecuta periódicamente
+     * Registra el plazo de timeout del intento principal de una tarea. El plazo queda
+     * en la asignación y se cancela al completarse, fallar o reasignarse la tarea.
+     * El callback solo delega en el hilo de despacho: la rueda no ejecuta trabajo pesado
+     * @param assignment Asignación vigente
+     * @param delayMs Tiempo hasta el vencimiento
+     */
+    private void armTaskTimeout(TaskAssignmentRegistry.Assignment assignment, long delayMs) {
+        if (timerWheel == null) {
+            return;
+        }
+        assignment.setTimeout(timerWheel.schedule(
+            () -> runOnDispatchThread(() -> onTaskDeadline(assignment)),
+            delayMs,
+            TimeUnit.MILLISECONDS
+        ));
+    }
+    
+    /**
+     * Vence el plazo de una tarea (hilo de despacho)
+     * @param expired Asignación para la que se armó el plazo
      */
-    private void checkTaskTimeouts() {
-        List<String> timedOutTasks = new ArrayList<>();
-        long currentTime = System.currentTimeMillis();
+    private void onTaskDeadline(TaskAssignmentRegistry.Assignment expired) {
+        Task task = expired.getTask();
+        Worker worker = expired.getWorker();
+        String taskId = task.getTaskId();
+        if (assignments.get(taskId) != expired) {
+            return; // Terminó o fue reasignada justo al vencer; el nuevo intento tiene su propio plazo
+        }
         
-        for (Map.Entry<String, Worker> entry : assignedTasks.entrySet()) {
-            String taskId = entry.getKey();
-            Worker worker = entry.getValue();
+        // Verificar si el worker sigue activo
+        if (!worker.isActive()) {
+            System.out.println("Tarea " + taskId + " marcada para reasignación - Worker inactivo");
+            reassignTask(taskId, "Timeout excedido o worker inactivo");
+            return;
+        }
+        
+        if (task.getStartedAtMs() > 0) {
+            long timeSinceAssigned = elapsedSince(task.getStartedAtMs(), Timestamps.now());
+            long timeoutMs = TASK_TIMEOUT_SECONDS * 1000L;
             
-            // Verificar si el worker sigue activo
-            if (!worker.isActive()) {
-                timedOutTasks.add(taskId);
-                System.out.println("Tarea " + taskId + " marcada para reasignación - Worker inactivo");
-                continue;
+            if (timeSinceAssigned < timeoutMs) {
+                // El intento empezó después de armar el plazo
+                armTaskTimeout(expired, timeoutMs - timeSinceAssigned);
+                return;
             }
             
-            // Verificar si la tarea ha excedido su timeout
-            // Necesitamos obtener la tarea original para verificar su tiempo de asignación
-            Task task = getTaskById(taskId);
-            if (task != null && task.getStatus() == TaskStatus.ASSIGNED) {
-                // Calcular tiempo transcurrido desde la asignación
-                long timeSinceAssigned = currentTime - task.getStartedAt().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
-                long timeoutMs = TASK_TIMEOUT_SECONDS * 1000;
-                
-                if (timeSinceAssigned > timeoutMs) {
-                    timedOutTasks.add(taskId);
-                    System.out.println("Tarea " + taskId + " marcada para reasignación - Timeout excedido (" + 
-                                    (timeSinceAssigned / 1000) + "s > " + TASK_TIMEOUT_SECONDS + "s)");
-                }
-            }
+            System.out.println("Tarea " + taskId + " marcada para reasignación - Timeout excedido (" + 
+                            (timeSinceAssigned / 1000) + "s > " + TASK_TIMEOUT_SECONDS + "s)");
         }
         
-        // Reasignar tareas con timeout
-        for (String taskId : timedOutTasks) {
-            reassignTask(taskId, "Timeout excedido o worker inactivo");
-        }
+        reassignTask(taskId, "Timeout excedido o worker inactivo");
     }
     
     /**
@@ -350,22 +686,30 @@ public class Scheduler {
      * @param reason Razón de la reasignación
      */
     private void reassignTask(String taskId, String reason) {
-        Worker oldWorker = assignedTasks.remove(taskId);
-        Task task = assignedTaskReferences.remove(taskId);
+        Worker oldWorker;
+        Task task;
+        synchronized (assignments.lockFor(taskId)) {
+            TaskAssignmentRegistry.Assignment assignment = assignments.get(taskId);
+            oldWorker = assignment != null ? assignment.getWorker() : null;
+            task = assignment != null ? assignment.getTask() : null;
+            
+            // Si hay un intento de respaldo vivo, pasa a ser el intento principal
+            if (oldWorker != null && promoteSpeculativeAttempt(task, oldWorker)) {
+                System.out.println("Tarea " + taskId + " continúa en intento de respaldo - Razón: " + reason);
+                return;
+            }
+            
+            assignments.remove(taskId);
+        }
         if (oldWorker == null) {
             System.out.println("No se pudo reasignar tarea " + taskId + " - No está asignada");
             return;
         }
         
         // Liberar tarea del worker anterior
-        resourceManager.releaseTaskFromWorker(oldWorker.getWorkerId(), taskId, 0, false);
+        resourceManager.releaseTaskFromWorker(oldWorker.getWorkerId(), taskId, 0, false, task);
         
-        // Usar la tarea obtenida de assignedTaskReferences
-        if (task == null) {
-            System.out.println("No se pudo reasignar tarea " + taskId + " - Tarea no encontrada");
-            totalTasksFailed++;
-            return;
-        }
+        notifyTaskEvent(task, TaskEventListener::onTaskRequeued);
         
         // Buscar nuevo worker disponible
         Worker newWorker = resourceManager.findBestAvailableWorker(
@@ -380,15 +724,15 @@ public class Scheduler {
                                 " a " + newWorker.getWorkerId() + " - Razón: " + reason);
             } else {
                 System.out.println("No se pudo reasignar tarea " + taskId + " - Fallo en asignación");
-                // Volver a agregar la tarea a la cola correspondiente
-                addTask(task);
-                totalTasksFailed++;
+                // Volver a la cola conservando su antigüedad (envejecimiento de prioridad)
+                requeueTask(task);
+                totalTasksFailed.increment();
             }
         } else {
             System.out.println("No se pudo reasignar tarea " + taskId + " - No hay workers disponibles");
-            // Volver a agregar la tarea a la cola correspondiente
-            addTask(task);
-            totalTasksFailed++;
+            // Volver a la cola conservando su antigüedad (envejecimiento de prioridad)
+            requeueTask(task);
+            totalTasksFailed.increment();
         }
     }
     
@@ -401,12 +745,19 @@ public class Scheduler {
     public String getSchedulerStatistics() {
         StringBuilder stats = new StringBuilder();
         stats.append("=== ESTADÍSTICAS DEL SCHEDULER ===\n");
-        stats.append("Tareas Map pendientes: ").append(mapTaskQueue.size()).append("\n");
-        stats.append("Tareas Reduce pendientes: ").append(reduceTaskQueue.size()).append("\n");
-        stats.append("Tareas asignadas: ").append(assignedTasks.size()).append("\n");
-        stats.append("Tareas programadas: ").append(totalTasksScheduled).append("\n");
-        stats.append("Tareas completadas: ").append(totalTasksCompleted).append("\n");
-        stats.append("Tareas fallidas: ").append(totalTasksFailed).append("\n");
+        stats.append("Tareas Map pendientes: ").append(fairShareQueue.size(TaskType.MAP)).append("\n");
+        stats.append("Tareas Reduce pendientes: ").append(fairShareQueue.size(TaskType.REDUCE)).append("\n");
+        stats.append("Trabajos con tareas pendientes: ").append(fairShareQueue.getJobCount()).append("\n");
+        stats.append("Tareas asignadas: ").append(assignments.size()).append("\n");
+        stats.append("Tareas programadas: ").append(totalTasksScheduled.sum()).append("\n");
+        stats.append("Tareas completadas: ").append(totalTasksCompleted.sum()).append("\n");
+        stats.append("Tareas fallidas: ").append(totalTasksFailed.sum()).append("\n");
+        stats.append("Localidad (nodo/host/cualquiera): ").append(nodeLocalAssignments.sum())
+            .append("/").append(hostLocalAssignments.sum())
+            .append("/").append(anyLocalityAssignments.sum()).append("\n");
+        stats.append("Intentos especulativos (en curso/lanzados/ganados): ").append(speculativeAttempts.size())
+            .append("/").append(speculativeAttemptsLaunched.sum())
+            .append("/").append(speculativeAttemptsWon.sum()).append("\n");
         
         return stats.toString();
     }
@@ -416,7 +767,7 @@ public class Scheduler {
      * @return Número de tareas programadas
      */
     public int getTotalTasksScheduled() {
-        return totalTasksScheduled;
+        return (int) totalTasksScheduled.sum();
     }
     
     /**
@@ -424,7 +775,7 @@ public class Scheduler {
      * @return Número de tareas completadas
      */
     public int getTotalTasksCompleted() {
-        return totalTasksCompleted;
+        return (int) totalTasksCompleted.sum();
     }
     
     /**
@@ -432,39 +783,119 @@ public class Scheduler {
      * @return Número de tareas fallidas
      */
     public int getTotalTasksFailed() {
-        return totalTasksFailed;
+        return (int) totalTasksFailed.sum();
     }
     
     /**
-     * Marca una tarea como completada
+     * Obtiene el número de intentos especulativos lanzados
+     * @return Número de intentos especulativos
+     */
+    public int getSpeculativeAttemptsLaunched() {
+        return (int) speculativeAttemptsLaunched.sum();
+    }
+    
+    /**
+     * Obtiene el número de intentos especulativos que terminaron antes que el original
+     * @return Número de intentos especulativos ganadores
+     */
+    public int getSpeculativeAttemptsWon() {
+        return (int) speculativeAttemptsWon.sum();
+    }
+    
+    /**
+     * Marca una tarea como completada.
+     * Con ejecución especulativa se acepta el primer intento que termine
+     * (original o respaldo); el otro se cancela y sus reportes posteriores se ignoran.
      * @param taskId ID de la tarea
      * @param workerId ID del worker que completó la tarea
      * @return true si la tarea fue marcada como completada
      */
     public boolean markTaskCompleted(String taskId, String workerId) {
+        return markTaskCompleted(taskId, workerId, 0);
+    }
+    
+    /**
+     * Marca una tarea como completada con el tiempo de ejecución medido por el worker.
+     * La diferencia con el tiempo transcurrido desde la asignación es la demora en cola
+     * que usa el modelo de rendimiento del ResourceManager.
+     * @param taskId ID de la tarea
+     * @param workerId ID del worker que completó la tarea
+     * @param reportedExecutionTimeMs Tiempo de ejecución reportado (0 = no reportado)
+     * @return true si la tarea fue marcada como completada
+     */
+    public boolean markTaskCompleted(String taskId, String workerId, long reportedExecutionTimeMs) {
         try {
-            Worker worker = assignedTasks.get(taskId);
-            if (worker != null && worker.getWorkerId().equals(workerId)) {
-                // Marcar tarea como completada
-                Task task = assignedTaskReferences.get(taskId);
-                if (task != null) {
-                    task.setStatus(TaskStatus.COMPLETED);
-                    task.setCompletedAt(java.time.LocalDateTime.now());
+            Task task;
+            Worker loser;
+            long wallTimeMs;
+            long executionTimeMs;
+            boolean backupWon;
+            int backupAttemptNumber;
+            
+            synchronized (assignments.lockFor(taskId)) {
+                TaskAssignmentRegistry.Assignment assignment = assignments.get(taskId);
+                Worker worker = assignment != null ? assignment.getWorker() : null;
+                SpeculativeAttempt backup = speculativeAttempts.get(taskId);
+                boolean fromPrimary = worker != null && worker.getWorkerId().equals(workerId);
+                backupWon = !fromPrimary && backup != null && backup.worker.getWorkerId().equals(workerId);
+                backupAttemptNumber = backup != null ? backup.attemptNumber : 0;
+                
+                if (!fromPrimary && !backupWon) {
+                    System.out.println("[INFO] Reporte de completado ignorado para tarea " + taskId + 
+                                    " de worker " + workerId + " (no asignada o intento ya resuelto)");
+                    return false;
                 }
                 
-                // Liberar worker
-                resourceManager.markWorkerAvailable(workerId);
+                task = assignments.getTask(taskId);
+                long now = Timestamps.now();
+                if (backupWon) {
+                    wallTimeMs = now - backup.startedAtMs;
+                    loser = worker;
+                    if (task != null) {
+                        task.setStartedAtMs(backup.startedAtMs); // Cuenta el intento ganador
+                    }
+                } else {
+                    wallTimeMs = task != null ? elapsedSince(task.getStartedAtMs(), now) : 0;
+                    loser = backup != null ? backup.worker : null;
+                }
+                executionTimeMs = reportedExecutionTimeMs > 0 ? reportedExecutionTimeMs : wallTimeMs;
                 
                 // Remover de tareas asignadas
-                assignedTasks.remove(taskId);
-                assignedTaskReferences.remove(taskId);
+                speculativeAttempts.remove(taskId);
+                assignments.remove(taskId);
                 
-                totalTasksCompleted++;
+                // Marcar tarea como completada (solo la salida del intento ganador se publica)
+                if (task != null) {
+                    task.setCommittedAttemptId(backupWon ? task.getAttemptId(backupAttemptNumber) : assignment.getAttemptId());
+                    task.setStatus(TaskStatus.COMPLETED);
+                    task.setWorkerId(workerId);
+                    task.setSpeculative(false);
+                    task.setCompletedAtMs(Timestamps.now());
+                    task.setExecutionTimeMs(executionTimeMs);
+                }
                 
-                System.out.println("✅ Tarea " + taskId + " completada por worker " + workerId);
-                return true;
+                totalTasksCompleted.increment();
+                if (backupWon) {
+                    speculativeAttemptsWon.increment();
+                }
             }
-            return false;
+            
+            // Liberar el worker ganador y cancelar el intento perdedor
+            resourceManager.releaseTaskFromWorker(workerId, taskId, executionTimeMs, true, task);
+            if (loser != null) {
+                resourceManager.cancelTaskOnWorker(loser.getWorkerId(), taskId);
+            }
+            if (task != null) {
+                recordRuntime(task, wallTimeMs);
+            }
+            
+            System.out.println("✅ Tarea " + taskId + " completada por worker " + workerId + 
+                            (backupWon && task != null ? " (intento especulativo " + task.getAttemptId(backupAttemptNumber) + ")" : ""));
+            if (task != null) {
+                notifyTaskEvent(task, TaskEventListener::onTaskCompleted);
+            }
+            requestDispatch();
+            return true;
         } catch (Exception e) {
             System.err.println("❌ Error marcando tarea como completada: " + e.getMessage());
             return false;
@@ -472,7 +903,8 @@ public class Scheduler {
     }
     
     /**
-     * Marca una tarea como fallida
+     * Marca una tarea como fallida.
+     * Si la tarea tiene otro intento en curso, éste continúa y la tarea no falla.
      * @param taskId ID de la tarea
      * @param workerId ID del worker que falló
      * @param errorMessage Mensaje de error
@@ -480,32 +912,279 @@ public class Scheduler {
      */
     public boolean markTaskFailed(String taskId, String workerId, String errorMessage) {
         try {
-            Worker worker = assignedTasks.get(taskId);
-            if (worker != null && worker.getWorkerId().equals(workerId)) {
+            Task task;
+            synchronized (assignments.lockFor(taskId)) {
+                Worker worker = assignments.getWorker(taskId);
+                SpeculativeAttempt backup = speculativeAttempts.get(taskId);
+                task = assignments.getTask(taskId);
+                
+                // Falló el respaldo: el intento original sigue corriendo
+                if (backup != null && backup.worker.getWorkerId().equals(workerId)) {
+                    speculativeAttempts.remove(taskId);
+                    if (task != null) {
+                        task.setSpeculative(false);
+                    }
+                    resourceManager.releaseTaskFromWorker(workerId, taskId, 0, false, task);
+                    System.out.println("[WARN] Intento especulativo " + 
+                                    (task != null ? task.getAttemptId(backup.attemptNumber) : taskId) + 
+                                    " falló en worker " + workerId + ": " + errorMessage);
+                    requestDispatch();
+                    return true;
+                }
+                
+                if (worker == null || !worker.getWorkerId().equals(workerId)) {
+                    return false;
+                }
+                
+                // Falló el original: el respaldo pasa a ser el intento principal
+                if (task != null && promoteSpeculativeAttempt(task, worker)) {
+                    System.out.println("[WARN] Tarea " + taskId + " falló en worker " + workerId + 
+                                    ", continúa en intento de respaldo: " + errorMessage);
+                    requestDispatch();
+                    return true;
+                }
+                
                 // Marcar tarea como fallida
-                Task task = assignedTaskReferences.get(taskId);
                 if (task != null) {
                     task.setStatus(TaskStatus.FAILED);
                     task.setErrorMessage(errorMessage);
-                    task.setCompletedAt(java.time.LocalDateTime.now());
+                    task.setCompletedAtMs(Timestamps.now());
                 }
                 
-                // Liberar worker
-                resourceManager.markWorkerAvailable(workerId);
-                
                 // Remover de tareas asignadas
-                assignedTasks.remove(taskId);
-                assignedTaskReferences.remove(taskId);
+                assignments.remove(taskId);
                 
-                totalTasksFailed++;
-                
-                System.out.println("❌ Tarea " + taskId + " falló en worker " + workerId + ": " + errorMessage);
-                return true;
+                totalTasksFailed.increment();
             }
-            return false;
+            
+            // Liberar worker
+            resourceManager.releaseTaskFromWorker(workerId, taskId, 0, false, task);
+            
+            System.out.println("❌ Tarea " + taskId + " falló en worker " + workerId + ": " + errorMessage);
+            if (task != null) {
+                notifyTaskEvent(task, TaskEventListener::onTaskFailed);
+            }
+            requestDispatch();
+            return true;
         } catch (Exception e) {
             System.err.println("❌ Error marcando tarea como fallida: " + e.getMessage());
             return false;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Registra un oyente de eventos de tareas
+     * @param listener Oyente; debe ser rápido y no bloquear
+     */
+    public void addTaskEventListener(TaskEventListener listener) {
+        if (listener != null) {
+            taskEventListeners.add(listener);
+        }
+    }
+    
+    private void notifyTaskEvent(Task task, BiConsumer<TaskEventListener, Task> event) {
+        for (TaskEventListener listener : taskEventListeners) {
+            try {
+                event.accept(listener, task);
+            } catch (Exception e) {
+                System.err.println("[ERROR] Error notificando evento de tarea " + task.getTaskId() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    // ==================== EJECUCIÓN ESPECULATIVA ====================
+    
+    /**
+     * Busca tareas rezagadas y lanza un intento de respaldo en otro worker.
+     * Una tarea es rezagada si lleva más de SPECULATION_SLOWDOWN_FACTOR veces la
+     * mediana de su trabajo y tipo. Solo se especula con capacidad libre
+     * (sin tareas pendientes en cola) y hasta SPECULATION_MAX_FRACTION de las tareas asignadas.
+     * Se ejecuta en el hilo de despacho.
+     */
+    private void checkStragglers() {
+        if (assignments.isEmpty() || !fairShareQueue.isEmpty()) {
+            return;
+        }
+        
+        long now = Timestamps.now();
+        List<Task> stragglers = new ArrayList<>();
+        Map<Task, Long> thresholds = new HashMap<>();
+        int maxSpeculative = Math.max(1, (int) (assignments.size() * SPECULATION_MAX_FRACTION));
+        if (speculativeAttempts.size() >= maxSpeculative) {
+            return;
+        }
+        
+        for (Task task : assignments.getTasks()) {
+            if (task.isSpeculative() || task.getStartedAtMs() == 0) {
+                continue;
+            }
+            RuntimeSamples samples = runtimeSamples.get(runtimeKey(task));
+            if (samples == null || samples.size() < SPECULATION_MIN_SAMPLES) {
+                continue;
+            }
+            long threshold = Math.max(SPECULATION_MIN_RUNTIME_MS,
+                                      (long) (samples.median() * SPECULATION_SLOWDOWN_FACTOR));
+            if (elapsedSince(task.getStartedAtMs(), now) > threshold) {
+                stragglers.add(task);
+                thresholds.put(task, threshold);
+            }
+        }
+        
+        // Los más atrasados primero
+        stragglers.sort(Comparator.comparingLong(Task::getStartedAtMs));
+        
+        for (Task task : stragglers) {
+            if (speculativeAttempts.size() >= maxSpeculative) {
+                break;
+            }
+            if (!launchSpeculativeAttempt(task, thresholds.get(task))) {
+                break; // Sin workers adecuados en esta ronda
+            }
+        }
+    }
+    
+    /**
+     * Lanza un intento de respaldo de la tarea en un worker distinto al original
+     * @param task Tarea rezagada
+     * @param thresholdMs Tiempo a partir del cual la tarea se consideró rezagada
+     * @return true si se lanzó el intento
+     */
+    private boolean launchSpeculativeAttempt(Task task, long thresholdMs) {
+        synchronized (assignments.lockFor(task.getTaskId())) {
+            Worker primary = assignments.getWorker(task.getTaskId());
+            if (primary == null || task.isSpeculative()) {
+                return true; // La tarea terminó o ya tiene respaldo; seguir con la siguiente
+            }
+            
+            Worker backupWorker = resourceManager.findBestAvailableWorkerExcluding(primary.getWorkerId());
+            if (backupWorker == null) {
+                return false;
+            }
+            
+            // No lanzar el respaldo en un worker que históricamente es tan lento como el rezagado
+            if (backupWorker.getAverageExecutionTimeMs() > thresholdMs) {
+                return false;
+            }
+            
+            if (!resourceManager.assignTaskToWorker(backupWorker.getWorkerId(), task.getTaskId())) {
+                return false;
+            }
+            
+            int attemptNumber = task.nextAttempt();
+            task.setSpeculative(true);
+            speculativeAttempts.put(task.getTaskId(),
+                new SpeculativeAttempt(backupWorker, Timestamps.now(), attemptNumber));
+            speculativeAttemptsLaunched.increment();
+            
+            System.out.println("[INFO] Tarea rezagada " + task.getTaskId() + " en worker " + primary.getWorkerId() + 
+                            " - intento especulativo " + task.getAttemptId(attemptNumber) + " lanzado en worker " + 
+                            backupWorker.getWorkerId());
+            return true;
+        }
+    }
+    
+    /**
+     * Convierte el intento de respaldo en el intento principal de la tarea
+     * y libera el worker original. Debe llamarse con el lock de la tarea tomado.
+     * @param task Tarea
+     * @param oldWorker Worker del intento original
+     * @return true si había un respaldo vivo que promover
+     */
+    private boolean promoteSpeculativeAttempt(Task task, Worker oldWorker) {
+        SpeculativeAttempt backup = speculativeAttempts.remove(task.getTaskId());
+        if (backup == null) {
+            return false;
+        }
+        
+        if (!backup.worker.isActive()) {
+            resourceManager.cancelTaskOnWorker(backup.worker.getWorkerId(), task.getTaskId());
+            task.setSpeculative(false);
+            return false;
+        }
+        
+        TaskAssignmentRegistry.Assignment promoted =
+            assignments.put(task, backup.worker, task.getAttemptId(backup.attemptNumber));
+        task.setWorkerId(backup.worker.getWorkerId());
+        task.setStartedAtMs(backup.startedAtMs);
+        task.setSpeculative(false);
+        resourceManager.releaseTaskFromWorker(oldWorker.getWorkerId(), task.getTaskId(), 0, false, task);
+        
+        long remainingMs = TASK_TIMEOUT_SECONDS * 1000L - (Timestamps.now() - backup.startedAtMs);
+        armTaskTimeout(promoted, Math.max(1, remainingMs));
+        return true;
+    }
+    
+    // Registra el tiempo de ejecución de una tarea completada
+    private void recordRuntime(Task task, long executionTimeMs) {
+        if (executionTimeMs <= 0) {
+            return;
+        }
+        runtimeSamples.computeIfAbsent(runtimeKey(task), key -> new RuntimeSamples()).add(executionTimeMs);
+    }
+    
+    private static String runtimeKey(Task task) {
+        return task.getJobId() + ":" + task.getType();
+    }
+    
+    private static long elapsedSince(long startedAtMs, long nowMs) {
+        return startedAtMs > 0 ? nowMs - startedAtMs : 0;
+    }
+    
+    /**
+     * Elimina las muestras de tiempos de ejecución de un trabajo terminado
+     * @param jobId ID del trabajo
+     */
+    public void clearJobStatistics(String jobId) {
+        if (jobId == null) {
+            return;
+        }
+        runtimeSamples.keySet().removeIf(key -> key.startsWith(jobId + ":"));
+        fairShareQueue.removeJob(jobId);
+    }
+    
+    // Intento de respaldo de una tarea
+    private static final class SpeculativeAttempt {
+        private final Worker worker;
+        private final long startedAtMs;
+        private final int attemptNumber;
+        
+        private SpeculativeAttempt(Worker worker, long startedAtMs, int attemptNumber) {
+            this.worker = worker;
+            this.startedAtMs = startedAtMs;
+            this.attemptNumber = attemptNumber;
+        }
+    }
+    
+    // Muestras acotadas de tiempos de ejecución (ventana circular)
+    private static final class RuntimeSamples {
+        private final long[] values = new long[RUNTIME_SAMPLE_LIMIT];
+        private int count;
+        private int next;
+        
+        // Mediana calculada (-1 = hay que recalcularla); checkStragglers la consulta por
+        // cada tarea asignada, así solo se ordena una vez por muestra nueva
+        private long cachedMedian = -1;
+        
+        synchronized void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            if (count < values.length) {
+                count++;
+            }
+            cachedMedian = -1;
+        }
+        
+        synchronized int size() {
+            return count;
+        }
+        
+        synchronized long median() {
+            if (cachedMedian < 0) {
+                long[] sorted = Arrays.copyOf(values, count);
+                Arrays.sort(sorted);
+                cachedMedian = sorted[count / 2];
+            }
+            return cachedMedian;
+        }
+    }
+}
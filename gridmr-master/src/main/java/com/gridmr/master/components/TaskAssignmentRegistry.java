@@ -0,0 +1,170 @@
+package com.gridmr.master.components;
+
+import com.gridmr.master.model.Task;
+import com.gridmr.master.model.Worker;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * TaskAssignmentRegistry - Tareas asignadas y el worker de su intento principal
+ *
+ * La tarea y su worker se guardan en una sola entrada, así nunca se ve uno sin el
+ * otro. Las secuencias leer-decidir-escribir sobre una misma tarea (completado,
+ * fallo, timeout, reasignación, especulación) se serializan con el lock de su
+ * franja (lockFor): tareas distintas casi nunca comparten franja, por lo que los
+ * reportes de muchos workers no compiten por un lock global.
+ *
+ * Cada asignación guarda el plazo de timeout de su intento principal: al quitarla
+ * o reemplazarla el plazo se cancela, así no quedan plazos muertos en la rueda.
+ */
+public class TaskAssignmentRegistry {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final Map<String, Assignment> assignments;
+    private final Object[] stripes;
+    private final int mask;
+
+    public TaskAssignmentRegistry() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes Número de franjas de lock (se redondea a potencia de 2)
+     */
+    public TaskAssignmentRegistry(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.assignments = new ConcurrentHashMap<>();
+        this.stripes = new Object[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Object();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Lock de la franja de una tarea
+     * @param taskId ID de la tarea
+     * @return Monitor a usar con synchronized
+     */
+    public Object lockFor(String taskId) {
+        int h = taskId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Registra (o reemplaza) el worker del intento principal de una tarea
+     * @return Asignación registrada
+     */
+    public Assignment put(Task task, Worker worker) {
+        return put(task, worker, task.getAttemptId());
+    }
+
+    /**
+     * Registra (o reemplaza) el worker de un intento concreto como intento principal.
+     * El plazo de la asignación reemplazada se cancela
+     * @return Asignación registrada
+     */
+    public Assignment put(Task task, Worker worker, String attemptId) {
+        Assignment assignment = new Assignment(task, worker, attemptId);
+        Assignment previous = assignments.put(task.getTaskId(), assignment);
+        if (previous != null) {
+            previous.release();
+        }
+        return assignment;
+    }
+
+    /**
+     * Quita una tarea y cancela su plazo de timeout
+     * @return Asignación quitada o null si no estaba asignada
+     */
+    public Assignment remove(String taskId) {
+        Assignment removed = assignments.remove(taskId);
+        if (removed != null) {
+            removed.release();
+        }
+        return removed;
+    }
+
+    public Assignment get(String taskId) {
+        return assignments.get(taskId);
+    }
+
+    public Worker getWorker(String taskId) {
+        Assignment assignment = assignments.get(taskId);
+        return assignment != null ? assignment.worker : null;
+    }
+
+    public Task getTask(String taskId) {
+        Assignment assignment = assignments.get(taskId);
+        return assignment != null ? assignment.task : null;
+    }
+
+    /**
+     * Copia de las tareas asignadas (se puede tomar con escrituras concurrentes)
+     */
+    public Collection<Task> getTasks() {
+        return assignments.values().stream().map(assignment -> assignment.task).collect(Collectors.toList());
+    }
+
+    public int size() {
+        return assignments.size();
+    }
+
+    public boolean isEmpty() {
+        return assignments.isEmpty();
+    }
+
+    /**
+     * Tarea asignada, worker de su intento principal, ID de ese intento y su plazo
+     */
+    public static final class Assignment {
+        private final Task task;
+        private final Worker worker;
+        private final String attemptId;
+        private TimerWheel.Timeout timeout;
+        private boolean released;
+
+        private Assignment(Task task, Worker worker, String attemptId) {
+            this.task = task;
+            this.worker = worker;
+            this.attemptId = attemptId;
+        }
+
+        public Task getTask() {
+            return task;
+        }
+
+        public Worker getWorker() {
+            return worker;
+        }
+
+        public String getAttemptId() {
+            return attemptId;
+        }
+
+        /**
+         * Asocia el plazo de timeout del intento (reemplaza y cancela el anterior).
+         * Si la asignación ya se quitó del registro, el plazo se cancela enseguida
+         */
+        public synchronized void setTimeout(TimerWheel.Timeout timeout) {
+            if (this.timeout != null && this.timeout != timeout) {
+                this.timeout.cancel();
+            }
+            this.timeout = timeout;
+            if (released && timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        // La asignación salió del registro (completada, fallida, reasignada o reemplazada)
+        private synchronized void release() {
+            released = true;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.gridmr.master.components;
+
+import com.gridmr.master.model.Task;
+
+/**
+ * Eventos de ciclo de vida de tareas publicados por el Scheduler
+ *
+ * Se invocan fuera de los locks del Scheduler, desde el hilo que produjo el evento
+ * (despacho o llamada gRPC del worker): las implementaciones deben ser rápidas y
+ * delegar el trabajo pesado a su propio hilo.
+ */
+public interface TaskEventListener {
+
+    // Tarea asignada a un worker
+    default void onTaskStarted(Task task) {
+    }
+
+    // Tarea devuelta a la cola para asignarse de nuevo
+    default void onTaskRequeued(Task task) {
+    }
+
+    // Tarea completada (solo el intento ganador)
+    default void onTaskCompleted(Task task) {
+    }
+
+    // Tarea fallida sin más intentos en curso
+    default void onTaskFailed(Task task) {
+    }
+}
@@ -0,0 +1,306 @@
+package com.gridmr.master.components;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TimerWheel - Rueda de temporizadores (hashed timing wheel) compartida
+ *
+ * Tareas, workers, nodos y sesiones registran aquí sus plazos (deadlines) en lugar
+ * de ser revisados por barridos periódicos O(N). Agregar y cancelar un plazo es O(1);
+ * en cada tick solo se recorre el bucket que toca. Los plazos más largos que una
+ * vuelta completa se guardan con un contador de vueltas restantes.
+ *
+ * Los callbacks se ejecutan en el hilo de la rueda, por lo que deben ser cortos;
+ * si necesitan trabajo pesado deben delegarlo a su propio hilo.
+ */
+public class TimerWheel {
+
+    // Configuración por defecto: 100ms por tick, 512 buckets (~51s por vuelta)
+    private static final long DEFAULT_TICK_MS = 100;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickMs;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    // Plazos nuevos y cancelados pendientes de aplicar por el hilo de la rueda
+    private final Queue<Timeout> pendingTimeouts;
+    private final Queue<Timeout> cancelledTimeouts;
+
+    private final AtomicInteger pendingCount;
+
+    private Thread workerThread;
+    private volatile boolean running;
+    private long startTimeNanos;
+    private long tick;
+
+    // Estadísticas
+    private volatile long totalExpired;
+
+    public TimerWheel() {
+        this(DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param tickMs Duración de un tick en milisegundos
+     * @param wheelSize Número de buckets (se redondea a potencia de 2)
+     */
+    public TimerWheel(long tickMs, int wheelSize) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs debe ser positivo: " + tickMs);
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMs = tickMs;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.pendingTimeouts = new ConcurrentLinkedQueue<>();
+        this.cancelledTimeouts = new ConcurrentLinkedQueue<>();
+        this.pendingCount = new AtomicInteger();
+
+        System.out.println("TimerWheel inicializado (" + tickMs + "ms x " + size + " buckets)");
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        startTimeNanos = System.nanoTime();
+        workerThread = new Thread(this::run, "gridmr-timer-wheel");
+        workerThread.setDaemon(true);
+        workerThread.start();
+        System.out.println("TimerWheel iniciado");
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workerThread.interrupt();
+        try {
+            workerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("TimerWheel detenido - " + pendingCount.get() + " plazos descartados");
+    }
+
+    /**
+     * Registra un plazo
+     * @param task Acción a ejecutar cuando venza el plazo
+     * @param delay Tiempo hasta el vencimiento
+     * @param unit Unidad de delay
+     * @return Timeout que permite cancelar el plazo
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("task no puede ser null");
+        }
+        long deadlineNanos = System.nanoTime() + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(this, task, deadlineNanos);
+        pendingCount.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Obtiene el número de plazos pendientes
+     * @return Plazos registrados que no han vencido ni se han cancelado
+     */
+    public int getPendingTimeouts() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Obtiene el número de plazos vencidos desde el inicio
+     * @return Total de callbacks ejecutados
+     */
+    public long getTotalExpired() {
+        return totalExpired;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ==================== HILO DE LA RUEDA ====================
+
+    private void run() {
+        while (running) {
+            long deadline = tickMs * (tick + 1) * 1_000_000L;
+            long sleepNanos = deadline - (System.nanoTime() - startTimeNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        break;
+                    }
+                    continue;
+                }
+            }
+
+            processCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(System.nanoTime() - startTimeNanos);
+            tick++;
+        }
+    }
+
+    // Coloca los plazos nuevos en su bucket (máx. 100000 por tick para no frenar la rueda)
+    private void transferPending() {
+        for (int i = 0; i < 100000; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != Timeout.ST_INIT) {
+                continue; // Cancelado antes de entrar a la rueda
+            }
+
+            long calculated = (timeout.deadlineNanos - startTimeNanos) / (tickMs * 1_000_000L);
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+            // Un plazo ya vencido se ejecuta en el tick actual
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void onExpired(Timeout timeout) {
+        pendingCount.decrementAndGet();
+        totalExpired++;
+        try {
+            timeout.task.run();
+        } catch (Exception e) {
+            System.err.println("❌ Error en callback de TimerWheel: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Plazo registrado en la rueda
+     */
+    public static final class Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        // Solo accedidos por el hilo de la rueda
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadlineNanos) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancela el plazo si aún no ha vencido
+         * @return true si se canceló
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            wheel.pendingCount.decrementAndGet();
+            wheel.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        private boolean expire() {
+            return state.compareAndSet(ST_INIT, ST_EXPIRED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+    }
+
+    // Lista doblemente enlazada de plazos de un slot de la rueda
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire(long nowOffsetNanos) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadlineNanos - startTimeNanos <= nowOffsetNanos && timeout.expire()) {
+                        onExpired(timeout);
+                    } else if (!timeout.isCancelled()) {
+                        // Aún no vence (redondeo): volver a encolar para el próximo tick
+                        pendingTimeouts.add(timeout);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.gridmr.master.components;
+
+import com.gridmr.master.model.Worker;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * WorkerSelectionIndex - Índice concurrente de workers disponibles ordenado por score
+ *
+ * Mantiene los workers en una skip-list ordenada por Worker.getSelectionScore()
+ * (mayor score primero). El ResourceManager actualiza la entrada de un worker cada
+ * vez que cambia su carga o disponibilidad, de modo que elegir el mejor worker es
+ * O(log W) y no crea listas ni ordena en cada asignación.
+ */
+public class WorkerSelectionIndex {
+
+    // Entradas ordenadas por score descendente y workerId
+    private final ConcurrentSkipListSet<Entry> orderedEntries;
+
+    // Entrada vigente de cada worker (workerId -> Entry)
+    private final Map<String, Entry> currentEntries;
+
+    // Entradas agrupadas por host, para asignación con localidad (host -> entradas)
+    private final Map<String, ConcurrentSkipListSet<Entry>> entriesByHost;
+
+    // Centinela que se ordena antes que cualquier entrada real
+    private static final Entry HEAD = new Entry(null, "", Double.POSITIVE_INFINITY);
+
+    public WorkerSelectionIndex() {
+        this.orderedEntries = new ConcurrentSkipListSet<>();
+        this.currentEntries = new ConcurrentHashMap<>();
+        this.entriesByHost = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Indexa el worker si está disponible o lo quita si no lo está. La decisión se
+     * toma dentro del compute de su clave con el estado vigente, así el último
+     * refresco tras una transición deja el índice coherente con el worker aunque
+     * varios hilos refresquen a la vez.
+     * @param worker Worker cuyo estado cambió
+     */
+    public void refresh(Worker worker) {
+        if (worker == null) {
+            return;
+        }
+
+        currentEntries.compute(worker.getWorkerId(), (workerId, previous) -> {
+            if (!worker.isAvailable()) {
+                if (previous != null) {
+                    removeEntry(previous);
+                }
+                return null;
+            }
+            return reindex(worker, workerId, previous);
+        });
+    }
+
+    /**
+     * Elimina un worker del índice
+     * @param workerId ID del worker
+     */
+    public void remove(String workerId) {
+        if (workerId == null) {
+            return;
+        }
+
+        currentEntries.computeIfPresent(workerId, (id, previous) -> {
+            removeEntry(previous);
+            return null;
+        });
+    }
+
+    // Reemplaza la entrada de un worker si cambió su score (dentro del compute de su clave)
+    private Entry reindex(Worker worker, String workerId, Entry previous) {
+        double score = worker.getSelectionScore();
+        if (previous != null) {
+            if (previous.worker == worker && previous.score == score) {
+                return previous;
+            }
+            removeEntry(previous);
+        }
+        Entry entry = new Entry(worker, workerId, score);
+        orderedEntries.add(entry);
+        if (worker.getHost() != null) {
+            entriesByHost.compute(worker.getHost(), (host, hostEntries) -> {
+                ConcurrentSkipListSet<Entry> entries = hostEntries != null ? hostEntries : new ConcurrentSkipListSet<>();
+                entries.add(entry);
+                return entries;
+            });
+        }
+        return entry;
+    }
+
+    // Quita la entrada; el conjunto de un host se elimina al quedar vacío (dentro del
+    // compute de su clave, así una inserción concurrente nunca cae en un conjunto huérfano)
+    private void removeEntry(Entry entry) {
+        orderedEntries.remove(entry);
+        if (entry.worker.getHost() != null) {
+            entriesByHost.computeIfPresent(entry.worker.getHost(), (host, hostEntries) -> {
+                hostEntries.remove(entry);
+                return hostEntries.isEmpty() ? null : hostEntries;
+            });
+        }
+    }
+
+    /**
+     * Obtiene el worker de mayor score que siga disponible y activo.
+     * Normalmente es la primera entrada; las entradas obsoletas se saltan sin
+     * crear objetos intermedios.
+     * @param timeoutSeconds Timeout de heartbeat para considerar activo un worker
+     * @return Worker o null si no hay candidatos
+     */
+    public Worker findBest(int timeoutSeconds) {
+        return findBestIn(orderedEntries, timeoutSeconds);
+    }
+
+    /**
+     * Reordena los primeros candidatos del índice con otro criterio (por ejemplo el
+     * rendimiento del tipo de tarea) y devuelve el mejor. El índice está ordenado por
+     * el score global, así que basta mirar unos pocos candidatos vigentes.
+     * @param ranking Score a maximizar entre los candidatos
+     * @param candidates Número máximo de candidatos vigentes a comparar
+     * @param timeoutSeconds Timeout de heartbeat para considerar activo un worker
+     * @return Worker o null si no hay candidatos
+     */
+    public Worker findBest(ToDoubleFunction<Worker> ranking, int candidates, int timeoutSeconds) {
+        Worker best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int examined = 0;
+        Entry entry = orderedEntries.ceiling(HEAD);
+        while (entry != null && examined < candidates) {
+            Worker worker = entry.worker;
+            if (worker.isAvailable() && worker.isActive(timeoutSeconds)) {
+                examined++;
+                double score = ranking.applyAsDouble(worker);
+                if (score > bestScore) {
+                    best = worker;
+                    bestScore = score;
+                }
+            }
+            entry = orderedEntries.higher(entry);
+        }
+        return best;
+    }
+
+    /**
+     * Obtiene el worker de mayor score en un host concreto
+     * @param host Host donde debe correr el worker
+     * @param timeoutSeconds Timeout de heartbeat para considerar activo un worker
+     * @return Worker o null si no hay candidatos en ese host
+     */
+    public Worker findBestOnHost(String host, int timeoutSeconds) {
+        if (host == null) {
+            return null;
+        }
+        ConcurrentSkipListSet<Entry> hostEntries = entriesByHost.get(host);
+        return hostEntries != null ? findBestIn(hostEntries, timeoutSeconds) : null;
+    }
+
+    /**
+     * Obtiene el worker de mayor score distinto de uno dado
+     * @param excludedWorkerId ID del worker a excluir
+     * @param timeoutSeconds Timeout de heartbeat para considerar activo un worker
+     * @return Worker o null si no hay otro candidato
+     */
+    public Worker findBestExcluding(String excludedWorkerId, int timeoutSeconds) {
+        return findBestIn(orderedEntries, excludedWorkerId, timeoutSeconds);
+    }
+
+    private Worker findBestIn(ConcurrentSkipListSet<Entry> entries, int timeoutSeconds) {
+        return findBestIn(entries, null, timeoutSeconds);
+    }
+
+    private Worker findBestIn(ConcurrentSkipListSet<Entry> entries, String excludedWorkerId, int timeoutSeconds) {
+        Entry entry = entries.ceiling(HEAD);
+        while (entry != null) {
+            Worker worker = entry.worker;
+            if (!entry.workerId.equals(excludedWorkerId)
+                    && worker.isAvailable() && worker.isActive(timeoutSeconds)) {
+                return worker;
+            }
+            entry = entries.higher(entry);
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el número de workers indexados
+     * @return Número de workers en el índice
+     */
+    public int size() {
+        return currentEntries.size();
+    }
+
+    // Entrada inmutable del índice: el score se congela al insertar
+    private static final class Entry implements Comparable<Entry> {
+        private final Worker worker;
+        private final String workerId;
+        private final double score;
+
+        private Entry(Worker worker, String workerId, double score) {
+            this.worker = worker;
+            this.workerId = workerId;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Double.compare(other.score, this.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            return this.workerId.compareTo(other.workerId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Entry)) return false;
+            Entry other = (Entry) obj;
+            return Double.compare(score, other.score) == 0 && workerId.equals(other.workerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return workerId.hashCode() * 31 + Double.hashCode(score);
+        }
+    }
+}
@@ -7,16 +7,33 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class GridMRConfiguration {
 
+    @Bean(destroyMethod = "stop")
+    public TimerWheel timerWheel() {
+        TimerWheel timerWheel = new TimerWheel();
+        timerWheel.start();
+        return timerWheel;
+    }
+
     @Bean
-    public ResourceManager resourceManager() {
+    public ResourceManager resourceManager(TimerWheel timerWheel) {
         ResourceManager rm = new ResourceManager();
+        rm.setTimerWheel(timerWheel);
         rm.start();
         return rm;
     }
 
+    @Bean(destroyMethod = "stop")
+    public HeartbeatIngestor heartbeatIngestor(ResourceManager resourceManager) {
+        HeartbeatIngestor ingestor = new HeartbeatIngestor(resourceManager);
+        ingestor.start();
+        return ingestor;
+    }
+
     @Bean
-    public NodeManager nodeManager() {
+    public NodeManager nodeManager(TimerWheel timerWheel, ResourceManager resourceManager) {
         NodeManager nm = new NodeManager();
+        nm.setTimerWheel(timerWheel);
+        nm.setResourceManager(resourceManager);
         nm.start();
         return nm;
     }
@@ -32,29 +49,32 @@ public class GridMRConfiguration {
     }
 
     @Bean
-    public ChunkManager chunkManager() {
+    public ChunkManager chunkManager(ResourceManager resourceManager) {
         ChunkManager cm = new ChunkManager();
+        cm.setResourceManager(resourceManager);
         cm.start();
         return cm;
     }
 
     @Bean
-    public Scheduler scheduler() {
+    public Scheduler scheduler(TimerWheel timerWheel) {
         Scheduler scheduler = new Scheduler();
+        scheduler.setTimerWheel(timerWheel);
         scheduler.start();
         return scheduler;
     }
 
     @Bean
-    public JobManager jobManager(Scheduler scheduler) {
-        JobManager jm = new JobManager(scheduler);
+    public JobManager jobManager(Scheduler scheduler, ChunkManager chunkManager, ResourceManager resourceManager) {
+        JobManager jm = new JobManager(scheduler, chunkManager, resourceManager);
         jm.start();
         return jm;
     }
 
     @Bean
-    public DomainAuthentication domainAuthentication() {
+    public DomainAuthentication domainAuthentication(TimerWheel timerWheel) {
         DomainAuthentication da = new DomainAuthentication();
+        da.setTimerWheel(timerWheel);
         da.start();
         return da;
     }
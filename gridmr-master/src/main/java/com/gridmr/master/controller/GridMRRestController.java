@@ -5,10 +5,16 @@ import com.gridmr.master.components.ResourceManager;
 import com.gridmr.master.components.NodeManager;
 import com.gridmr.master.components.MasterPersistenceManager;
 import com.gridmr.master.components.MasterFailoverManager;
+import com.gridmr.master.model.DataChunk;
 import com.gridmr.master.model.Job;
+import com.gridmr.master.model.JobProgress;
+import com.gridmr.master.model.JobStatus;
 import com.gridmr.master.model.Worker;
 import com.gridmr.master.model.NodeInfo;
+import com.gridmr.master.model.WorkerStateDelta;
 import com.gridmr.master.model.MasterInfo;
+import com.gridmr.master.shuffle.Combiner;
+import com.gridmr.master.shuffle.ShuffleFetchResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -135,11 +141,37 @@ public class GridMRRestController {
                 // Usar el método setJobType si existe, o configurar manualmente
                 job.setMapFunction(jobType);
                 job.setReduceFunction(jobType);
+                job.setCombineFunction(Combiner.defaultFunctionFor(jobType));
+            }
+            
+            // Combiner explícito (opcional); "NONE" lo desactiva
+            Object combineFunction = jobRequest.get("combine_function");
+            if (combineFunction instanceof String) {
+                String function = (String) combineFunction;
+                job.setCombineFunction("NONE".equalsIgnoreCase(function) ? null : function);
             }
             
             job.setNumMappers((Integer) jobRequest.getOrDefault("map_tasks", 2));
             job.setNumReducers((Integer) jobRequest.getOrDefault("reduce_tasks", 1));
             
+            // Tamaño de split opcional (0 o ausente = automático)
+            Object chunkSize = jobRequest.get("chunk_size_mb");
+            if (chunkSize instanceof Number) {
+                job.setChunkSizeMB(((Number) chunkSize).intValue());
+            }
+            
+            // Fracción de Maps completados para lanzar los Reduce (opcional)
+            Object slowStart = jobRequest.get("reduce_slowstart");
+            if (slowStart instanceof Number) {
+                job.setReduceSlowStart(((Number) slowStart).doubleValue());
+            }
+            
+            // Prioridad de admisión (opcional, 0-10)
+            Object priority = jobRequest.get("priority");
+            if (priority instanceof Number) {
+                job.setPriority(((Number) priority).intValue());
+            }
+            
             // Agregar archivos de entrada
             @SuppressWarnings("unchecked")
             List<String> inputFiles = (List<String>) jobRequest.get("input_files");
@@ -155,7 +187,8 @@ public class GridMRRestController {
             Map<String, Object> response = new HashMap<>();
             if (success) {
                 response.put("job_id", jobId);
-                response.put("status", "SUBMITTED");
+                response.put("status", job.getStatus().toString());
+                response.put("queue_position", jobManager.getQueuePosition(jobId));
                 response.put("message", "Job submitted successfully");
                 return ResponseEntity.ok(response);
             } else {
@@ -187,22 +220,66 @@ public class GridMRRestController {
         response.put("started_at", job.getStartedAt() != null ? job.getStartedAt().toString() : null);
         response.put("completed_at", job.getCompletedAt() != null ? job.getCompletedAt().toString() : null);
         
-        // Calcular progreso
-        int totalTasks = job.getMapTasks().size() + job.getReduceTasks().size();
-        int completedTasks = 0;
-        
-        for (var task : job.getMapTasks()) {
-            if (task.getStatus().toString().equals("COMPLETED")) completedTasks++;
-        }
-        for (var task : job.getReduceTasks()) {
-            if (task.getStatus().toString().equals("COMPLETED")) completedTasks++;
-        }
+        // Progreso a partir de los contadores del trabajo (sin recorrer sus tareas)
+        JobProgress jobProgress = job.getProgress();
+        int totalTasks = jobProgress.getTotalTasks();
+        int completedTasks = jobProgress.getCompletedTasks();
         
         int progress = totalTasks > 0 ? (completedTasks * 100) / totalTasks : 0;
         response.put("progress", progress);
         response.put("tasks_completed", completedTasks);
         response.put("total_tasks", totalTasks);
+        response.put("map_tasks", phaseProgress(jobProgress.getMap()));
+        response.put("reduce_tasks", phaseProgress(jobProgress.getReduce()));
+        
+        // Trabajo en cola de admisión: posición e inicio estimado (null si no hay historial)
+        if (job.getStatus() == JobStatus.QUEUED) {
+            long waitMs = jobManager.getEstimatedWaitMs(jobId);
+            response.put("queue_position", jobManager.getQueuePosition(jobId));
+            response.put("estimated_start_at", waitMs >= 0 ? LocalDateTime.now().plusNanos(waitMs * 1_000_000L).toString() : null);
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> phaseProgress(JobProgress.PhaseCounters counters) {
+        Map<String, Object> phase = new HashMap<>();
+        phase.put("total", counters.getTotal());
+        phase.put("pending", counters.getPending());
+        phase.put("running", counters.getRunning());
+        phase.put("completed", counters.getCompleted());
+        phase.put("failed", counters.getFailed());
+        return phase;
+    }
+
+    @GetMapping("/jobs/{jobId}/shuffle/{reducerId}")
+    public ResponseEntity<Map<String, Object>> fetchShuffleSegments(@PathVariable String jobId,
+                                                                    @PathVariable int reducerId,
+                                                                    @RequestParam(defaultValue = "0") int cursor,
+                                                                    @RequestParam(defaultValue = "-1") int group) {
+        ShuffleFetchResult result = jobManager.fetchShuffleSegments(jobId, reducerId, group, cursor);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        List<Map<String, Object>> segments = new ArrayList<>();
+        for (DataChunk segment : result.getSegments()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("chunk_id", segment.getChunkId());
+            entry.put("source_task_id", segment.getSourceTaskId());
+            entry.put("location", segment.getLocation());
+            entry.put("size_bytes", segment.getSizeBytes());
+            entry.put("record_count", segment.getRecordCount());
+            segments.add(entry);
+        }
         
+        Map<String, Object> response = new HashMap<>();
+        response.put("job_id", jobId);
+        response.put("reducer_id", reducerId);
+        response.put("segments", segments);
+        response.put("invalidated_segment_ids", result.getInvalidatedSegmentIds());
+        response.put("next_cursor", result.getNextCursor());
+        response.put("complete", result.isComplete());
         return ResponseEntity.ok(response);
     }
 
@@ -326,15 +403,19 @@ public class GridMRRestController {
     }
     
     @PostMapping("/nodes/{nodeId}/heartbeat")
-    public ResponseEntity<Map<String, Object>> updateNodeHeartbeat(@PathVariable String nodeId) {
+    public ResponseEntity<Map<String, Object>> updateNodeHeartbeat(@PathVariable String nodeId,
+                                                                   @RequestBody(required = false) Map<String, Object> heartbeatRequest) {
         try {
-            boolean success = nodeManager.updateNodeHeartbeat(nodeId);
+            // Solo los workers del nodo que cambiaron de estado (opcional)
+            List<WorkerStateDelta> workerDeltas = parseWorkerDeltas(heartbeatRequest);
+            boolean success = nodeManager.applyNodeHeartbeat(nodeId, workerDeltas);
             
             Map<String, Object> response = new HashMap<>();
             if (success) {
                 response.put("node_id", nodeId);
                 response.put("status", "HEARTBEAT_UPDATED");
                 response.put("message", "Heartbeat actualizado exitosamente");
+                response.put("workers_applied", workerDeltas.size());
                 return ResponseEntity.ok(response);
             } else {
                 response.put("error", "Nodo no encontrado");
@@ -348,6 +429,34 @@ public class GridMRRestController {
         }
     }
     
+    private List<WorkerStateDelta> parseWorkerDeltas(Map<String, Object> heartbeatRequest) {
+        List<WorkerStateDelta> deltas = new ArrayList<>();
+        if (heartbeatRequest == null || !(heartbeatRequest.get("workers") instanceof List)) {
+            return deltas;
+        }
+        
+        for (Object entry : (List<?>) heartbeatRequest.get("workers")) {
+            if (!(entry instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> worker = (Map<?, ?>) entry;
+            Object workerId = worker.get("worker_id");
+            if (workerId == null) {
+                continue;
+            }
+            Object alive = worker.get("alive");
+            Map<?, ?> metrics = worker.get("metrics") instanceof Map ? (Map<?, ?>) worker.get("metrics") : Map.of();
+            deltas.add(new WorkerStateDelta(
+                workerId.toString(),
+                !(alive instanceof Boolean) || (Boolean) alive,
+                worker.get("active_tasks") instanceof Number ? ((Number) worker.get("active_tasks")).intValue() : -1,
+                worker.get("available_tasks") instanceof Number ? ((Number) worker.get("available_tasks")).intValue() : -1,
+                metrics.get("cpu_usage") instanceof Number ? ((Number) metrics.get("cpu_usage")).doubleValue() : Double.NaN,
+                metrics.get("memory_usage") instanceof Number ? ((Number) metrics.get("memory_usage")).doubleValue() : Double.NaN));
+        }
+        return deltas;
+    }
+    
     @GetMapping("/nodes/statistics")
     public ResponseEntity<Map<String, Object>> getNodeStatistics() {
         try {
@@ -1,5 +1,7 @@
 package com.gridmr.master.grpc;
 
+import java.util.Map;
+
 /**
  * Clases de mensajes gRPC simples para comunicación Master-Workers
  */
@@ -54,6 +56,7 @@ public class GrpcMessages {
         private String workerId;
         private int activeTasks;
         private int availableTasks;
+        private Map<String, String> metrics;
         
         public HeartbeatRequest() {}
         
@@ -66,10 +69,12 @@ public class GrpcMessages {
         public String getWorkerId() { return workerId; }
         public int getActiveTasks() { return activeTasks; }
         public int getAvailableTasks() { return availableTasks; }
+        public Map<String, String> getMetrics() { return metrics; }
         
         public void setWorkerId(String workerId) { this.workerId = workerId; }
         public void setActiveTasks(int activeTasks) { this.activeTasks = activeTasks; }
         public void setAvailableTasks(int availableTasks) { this.availableTasks = availableTasks; }
+        public void setMetrics(Map<String, String> metrics) { this.metrics = metrics; }
     }
     
     public static class TaskCompletionRequest {
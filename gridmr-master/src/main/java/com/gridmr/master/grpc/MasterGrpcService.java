@@ -1,5 +1,6 @@
 package com.gridmr.master.grpc;
 
+import com.gridmr.master.components.HeartbeatIngestor;
 import com.gridmr.master.components.ResourceManager;
 import com.gridmr.master.components.Scheduler;
 import com.gridmr.master.components.JobManager;
@@ -12,6 +13,9 @@ public class MasterGrpcService {
     @Autowired
     private ResourceManager resourceManager;
     
+    @Autowired
+    private HeartbeatIngestor heartbeatIngestor;
+    
     @Autowired
     private Scheduler scheduler;
     
@@ -74,7 +78,9 @@ public class MasterGrpcService {
      */
     public GrpcMessages.HeartbeatResponse sendHeartbeat(GrpcMessages.HeartbeatRequest request) {
         try {
-            boolean success = resourceManager.updateWorkerHeartbeat(request.getWorkerId());
+            // Se encola y se aplica por lotes en el hilo del HeartbeatIngestor
+            boolean success = heartbeatIngestor.submit(request.getWorkerId(), request.getActiveTasks(),
+                                                       request.getAvailableTasks(), request.getMetrics());
             
             return new GrpcMessages.HeartbeatResponse(
                 success,
@@ -96,7 +102,7 @@ public class MasterGrpcService {
             System.out.println("✅ Tarea completada: " + request.getTaskId() + " por worker: " + request.getWorkerId());
             
             // Notificar al scheduler que la tarea está completa
-            boolean success = scheduler.markTaskCompleted(request.getTaskId(), request.getWorkerId());
+            boolean success = scheduler.markTaskCompleted(request.getTaskId(), request.getWorkerId(), request.getProcessingTime());
             
             return new GrpcMessages.TaskCompletionResponse(
                 success,
@@ -1,5 +1,6 @@
 package com.gridmr.master.grpc;
 
+import com.gridmr.master.components.HeartbeatIngestor;
 import com.gridmr.master.components.ResourceManager;
 import com.gridmr.master.components.Scheduler;
 import com.gridmr.master.components.JobManager;
@@ -14,6 +15,9 @@ public class MasterGrpcServiceFixed {
     @Autowired
     private ResourceManager resourceManager;
     
+    @Autowired
+    private HeartbeatIngestor heartbeatIngestor;
+    
     @Autowired
     private Scheduler scheduler;
     
@@ -76,7 +80,9 @@ public class MasterGrpcServiceFixed {
      */
     public GrpcMessages.HeartbeatResponse sendHeartbeat(GrpcMessages.HeartbeatRequest request) {
         try {
-            boolean success = resourceManager.updateWorkerHeartbeat(request.getWorkerId());
+            // Se encola y se aplica por lotes en el hilo del HeartbeatIngestor
+            boolean success = heartbeatIngestor.submit(request.getWorkerId(), request.getActiveTasks(),
+                                                       request.getAvailableTasks(), request.getMetrics());
             
             return new GrpcMessages.HeartbeatResponse(
                 success,
@@ -98,7 +104,7 @@ public class MasterGrpcServiceFixed {
             System.out.println("✅ Tarea completada: " + request.getTaskId() + " por worker: " + request.getWorkerId());
             
             // Notificar al scheduler que la tarea está completa
-            boolean success = scheduler.markTaskCompleted(request.getTaskId(), request.getWorkerId());
+            boolean success = scheduler.markTaskCompleted(request.getTaskId(), request.getWorkerId(), request.getProcessingTime());
             
             return new GrpcMessages.TaskCompletionResponse(
                 success,
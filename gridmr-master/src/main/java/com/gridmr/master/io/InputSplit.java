@@ -0,0 +1,45 @@
+package com.gridmr.master.io;
+
+/**
+ * InputSplit - Rango de bytes [start, end) de un archivo de entrada
+ *
+ * Un registro pertenece al split que contiene su primer byte; los lectores
+ * (RecordReader) se encargan de completar el último registro aunque termine
+ * después de end.
+ */
+public class InputSplit {
+
+    private final String path;
+    private final long start;
+    private final long end;
+
+    public InputSplit(String path, long start, long end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Rango inválido [" + start + ", " + end + ") para " + path);
+        }
+        this.path = path;
+        this.start = start;
+        this.end = end;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start;
+    }
+
+    @Override
+    public String toString() {
+        return path + ":[" + start + ", " + end + ")";
+    }
+}
@@ -0,0 +1,237 @@
+package com.gridmr.master.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * IntermediateFileReader - Lee en streaming un run escrito por IntermediateFileWriter
+ *
+ * Solo mantiene en memoria el buffer de lectura y el registro actual. El índice
+ * disperso se carga la primera vez que se usa seek().
+ */
+public class IntermediateFileReader implements RecordReader<byte[], byte[]> {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long indexOffset;
+    private final int indexEntries;
+    private final long recordCount;
+
+    private DataInputStream in;
+    private long position;
+    private byte[] currentKey;
+    private byte[] currentValue;
+
+    // Índice disperso (se carga bajo demanda)
+    private byte[][] indexKeys;
+    private long[] indexOffsets;
+
+    public IntermediateFileReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < IntermediateFileWriter.HEADER_BYTES + IntermediateFileWriter.FOOTER_BYTES) {
+                throw new IOException("Run intermedio truncado: " + file);
+            }
+
+            ByteBuffer header = readFully(0, IntermediateFileWriter.HEADER_BYTES);
+            ByteBuffer footer = readFully(size - IntermediateFileWriter.FOOTER_BYTES, IntermediateFileWriter.FOOTER_BYTES);
+            if (header.getInt() != IntermediateFileWriter.MAGIC || footer.getInt(IntermediateFileWriter.FOOTER_BYTES - 4) != IntermediateFileWriter.MAGIC) {
+                throw new IOException("Archivo no es un run intermedio: " + file);
+            }
+            byte version = header.get();
+            if (version != IntermediateFileWriter.VERSION) {
+                throw new IOException("Versión de run intermedio no soportada (" + version + "): " + file);
+            }
+
+            this.indexOffset = footer.getLong();
+            this.indexEntries = footer.getInt();
+            this.recordCount = footer.getLong();
+            openStream(IntermediateFileWriter.HEADER_BYTES);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException {
+        if (position >= indexOffset) {
+            currentKey = null;
+            currentValue = null;
+            return false;
+        }
+        currentKey = readBytes();
+        currentValue = readBytes();
+        return true;
+    }
+
+    /**
+     * Se posiciona en el primer registro con clave >= key usando el índice disperso.
+     * Tras un seek exitoso el registro encontrado queda como actual.
+     * @param key Clave buscada
+     * @return true si existe un registro con clave >= key
+     */
+    public boolean seek(byte[] key) throws IOException {
+        loadIndex();
+
+        // Última entrada del índice con clave < key (las claves pueden repetirse)
+        int low = 0;
+        int high = indexKeys.length - 1;
+        int entry = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (KeyValue.compareKeys(indexKeys[mid], key) < 0) {
+                entry = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        openStream(entry >= 0 ? indexOffsets[entry] : IntermediateFileWriter.HEADER_BYTES);
+        while (nextKeyValue()) {
+            if (KeyValue.compareKeys(currentKey, key) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public byte[] getCurrentKey() {
+        return currentKey;
+    }
+
+    @Override
+    public byte[] getCurrentValue() {
+        return currentValue;
+    }
+
+    @Override
+    public float getProgress() {
+        long dataBytes = indexOffset - IntermediateFileWriter.HEADER_BYTES;
+        if (dataBytes <= 0) {
+            return 1.0f;
+        }
+        return Math.min(1.0f, (position - IntermediateFileWriter.HEADER_BYTES) / (float) dataBytes);
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ==================== LECTURA ====================
+
+    private void openStream(long offset) throws IOException {
+        channel.position(offset);
+        // El stream no es dueño del canal: se cierra solo desde close()
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(new NonClosingChannel(channel)), BUFFER_BYTES));
+        this.position = offset;
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] bytes = readLengthPrefixed(in);
+        position += varIntSize(bytes.length) + bytes.length;
+        return bytes;
+    }
+
+    private byte[] readLengthPrefixed(DataInputStream input) throws IOException {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift >= 32) {
+                throw new IOException("Varint inválido en " + file);
+            }
+            int b = input.readUnsignedByte();
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void loadIndex() throws IOException {
+        if (indexKeys != null) {
+            return;
+        }
+        long indexBytes = channel.size() - IntermediateFileWriter.FOOTER_BYTES - indexOffset;
+        DataInputStream indexIn = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(new NonClosingChannel(channel.position(indexOffset))), BUFFER_BYTES));
+
+        byte[][] keys = new byte[indexEntries][];
+        long[] offsets = new long[indexEntries];
+        long consumed = 0;
+        for (int i = 0; i < indexEntries; i++) {
+            keys[i] = readLengthPrefixed(indexIn);
+            offsets[i] = indexIn.readLong();
+            consumed += varIntSize(keys[i].length) + keys[i].length + 8;
+        }
+        if (consumed != indexBytes) {
+            throw new IOException("Índice de run intermedio corrupto: " + file);
+        }
+        this.indexKeys = keys;
+        this.indexOffsets = offsets;
+    }
+
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Fin de archivo inesperado en " + file);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Evita que cerrar un stream derivado cierre el canal compartido
+    private static final class NonClosingChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+
+        private NonClosingChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
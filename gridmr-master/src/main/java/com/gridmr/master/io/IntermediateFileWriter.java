@@ -0,0 +1,149 @@
+package com.gridmr.master.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IntermediateFileWriter - Escribe un run ordenado de salida intermedia
+ *
+ * Formato del archivo:
+ *   cabecera  : magic (int) + versión (byte)
+ *   registros : varint(len clave) clave varint(len valor) valor, ordenados por clave
+ *   índice    : cada INDEX_INTERVAL registros, varint(len clave) clave + offset (long)
+ *   pie       : offset del índice (long), entradas del índice (int),
+ *               número de registros (long), magic (int)
+ *
+ * El índice disperso permite a IntermediateFileReader saltar a una clave sin
+ * leer el run completo.
+ */
+public class IntermediateFileWriter implements Closeable {
+
+    static final int MAGIC = 0x474D5249; // "GMRI"
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 4 + 1;
+    static final int FOOTER_BYTES = 8 + 4 + 8 + 4;
+
+    private static final int DEFAULT_INDEX_INTERVAL = 128;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final int indexInterval;
+    private final ByteArrayOutputStream indexBuffer;
+    private final DataOutputStream indexOut;
+
+    private long position;
+    private long recordCount;
+    private int indexEntries;
+    private byte[] lastKey;
+    private boolean closed;
+
+    public IntermediateFileWriter(Path file) throws IOException {
+        this(file, DEFAULT_INDEX_INTERVAL);
+    }
+
+    /**
+     * @param file Archivo destino (se sobrescribe)
+     * @param indexInterval Registros entre entradas del índice disperso
+     */
+    public IntermediateFileWriter(Path file, int indexInterval) throws IOException {
+        if (indexInterval <= 0) {
+            throw new IllegalArgumentException("indexInterval debe ser positivo: " + indexInterval);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_BYTES));
+        this.indexInterval = indexInterval;
+        this.indexBuffer = new ByteArrayOutputStream();
+        this.indexOut = new DataOutputStream(indexBuffer);
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        this.position = HEADER_BYTES;
+    }
+
+    /**
+     * Escribe un run completo ordenando antes los registros
+     * @param file Archivo destino
+     * @param records Registros en cualquier orden
+     * @return Tamaño del archivo en bytes
+     */
+    public static long writeSortedRun(Path file, List<KeyValue> records) throws IOException {
+        List<KeyValue> sorted = new ArrayList<>(records);
+        Collections.sort(sorted); // Estable: los valores de una misma clave conservan su orden
+        try (IntermediateFileWriter writer = new IntermediateFileWriter(file)) {
+            for (KeyValue record : sorted) {
+                writer.append(record.getKey(), record.getValue());
+            }
+        }
+        return Files.size(file);
+    }
+
+    /**
+     * Agrega un registro; las claves deben llegar en orden no decreciente
+     */
+    public void append(byte[] key, byte[] value) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer cerrado");
+        }
+        if (lastKey != null && KeyValue.compareKeys(key, lastKey) < 0) {
+            throw new IllegalStateException("Claves fuera de orden en run intermedio");
+        }
+
+        if (recordCount % indexInterval == 0) {
+            writeVarInt(indexOut, key.length);
+            indexOut.write(key);
+            indexOut.writeLong(position);
+            indexEntries++;
+        }
+
+        position += writeVarInt(out, key.length);
+        out.write(key);
+        position += key.length;
+        position += writeVarInt(out, value.length);
+        out.write(value);
+        position += value.length;
+
+        lastKey = key;
+        recordCount++;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long indexOffset = position;
+            indexBuffer.writeTo(out);
+            out.writeLong(indexOffset);
+            out.writeInt(indexEntries);
+            out.writeLong(recordCount);
+            out.writeInt(MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    // Varint sin signo (7 bits por byte); devuelve los bytes escritos
+    static int writeVarInt(DataOutputStream output, int value) throws IOException {
+        int written = 1;
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+            written++;
+        }
+        output.writeByte(value);
+        return written;
+    }
+}
@@ -0,0 +1,123 @@
+package com.gridmr.master.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * KWayMergeIterator - Mezcla en streaming varios runs ordenados
+ *
+ * Mantiene en un heap solo el registro actual de cada run, así que la memoria es
+ * O(número de runs) sin importar el tamaño de la partición. Con claves iguales
+ * se respeta el orden de los runs, por lo que la mezcla es estable.
+ */
+public class KWayMergeIterator implements Iterator<KeyValue>, Closeable {
+
+    private final List<RecordReader<byte[], byte[]>> runs;
+    private final PriorityQueue<Head> heap;
+
+    public KWayMergeIterator(List<? extends RecordReader<byte[], byte[]>> runs) throws IOException {
+        this.runs = new ArrayList<>(runs);
+        this.heap = new PriorityQueue<>(Math.max(1, runs.size()));
+        try {
+            for (int i = 0; i < this.runs.size(); i++) {
+                advance(new Head(this.runs.get(i), i));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre y mezcla runs escritos por IntermediateFileWriter
+     * @param files Archivos de los runs
+     * @return Iterador ordenado sobre todos los registros
+     */
+    public static KWayMergeIterator open(List<Path> files) throws IOException {
+        List<IntermediateFileReader> readers = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                readers.add(new IntermediateFileReader(file));
+            }
+        } catch (IOException e) {
+            for (IntermediateFileReader reader : readers) {
+                reader.close();
+            }
+            throw e;
+        }
+        return new KWayMergeIterator(readers);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heap.isEmpty();
+    }
+
+    @Override
+    public KeyValue next() {
+        Head head = heap.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        KeyValue record = new KeyValue(head.key, head.value);
+        try {
+            advance(head);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return record;
+    }
+
+    // Lee el siguiente registro del run y lo devuelve al heap; cierra el run al agotarse
+    private void advance(Head head) throws IOException {
+        if (head.reader.nextKeyValue()) {
+            head.key = head.reader.getCurrentKey();
+            head.value = head.reader.getCurrentValue();
+            heap.add(head);
+        } else {
+            head.reader.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        heap.clear();
+        IOException failure = null;
+        for (RecordReader<byte[], byte[]> run : runs) {
+            try {
+                run.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Registro actual de un run
+    private static final class Head implements Comparable<Head> {
+        private final RecordReader<byte[], byte[]> reader;
+        private final int runIndex;
+        private byte[] key;
+        private byte[] value;
+
+        private Head(RecordReader<byte[], byte[]> reader, int runIndex) {
+            this.reader = reader;
+            this.runIndex = runIndex;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            int byKey = KeyValue.compareKeys(key, other.key);
+            return byKey != 0 ? byKey : Integer.compare(runIndex, other.runIndex);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.gridmr.master.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * KeyValue - Par clave/valor binario de la salida intermedia
+ *
+ * Las claves se comparan byte a byte sin signo; para texto UTF-8 este orden
+ * coincide con el orden de code points, así que Map y Reduce ordenan igual.
+ */
+public final class KeyValue implements Comparable<KeyValue> {
+
+    private final byte[] key;
+    private final byte[] value;
+
+    public KeyValue(byte[] key, byte[] value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("key y value no pueden ser null");
+        }
+        this.key = key;
+        this.value = value;
+    }
+
+    public static KeyValue of(String key, String value) {
+        return new KeyValue(key.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public byte[] getKey() {
+        return key;
+    }
+
+    public byte[] getValue() {
+        return value;
+    }
+
+    public String getKeyAsString() {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    public String getValueAsString() {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compara dos claves byte a byte sin signo
+     */
+    public static int compareKeys(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, b);
+    }
+
+    @Override
+    public int compareTo(KeyValue other) {
+        return compareKeys(key, other.key);
+    }
+
+    @Override
+    public String toString() {
+        return getKeyAsString() + "\t" + getValueAsString();
+    }
+}
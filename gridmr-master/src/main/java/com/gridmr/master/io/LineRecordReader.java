@@ -0,0 +1,144 @@
+package com.gridmr.master.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * LineRecordReader - Lector de líneas de texto para WORDCOUNT, GREP, LINECOUNT y SORT
+ *
+ * Clave: offset del inicio de la línea. Valor: la línea sin '\n' ni '\r' final.
+ *
+ * Una línea pertenece al split donde empieza:
+ * - Si el split no empieza en 0 y el byte anterior no es '\n', se descarta la
+ *   primera línea parcial (la lee el split anterior).
+ * - Se leen líneas mientras empiecen antes de end; la última puede terminar después de end.
+ * Así cada línea se procesa exactamente una vez, estén o no alineados los splits.
+ */
+public class LineRecordReader implements RecordReader<Long, String> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+    private final ByteBuffer buffer;
+
+    // Posición en el archivo del próximo byte a consumir
+    private long position;
+
+    // Línea en construcción
+    private byte[] lineBytes;
+    private int lineLength;
+
+    private Long currentKey;
+    private String currentValue;
+
+    public LineRecordReader(InputSplit split) throws IOException {
+        this.channel = FileChannel.open(Paths.get(split.getPath()), StandardOpenOption.READ);
+        this.start = split.getStart();
+        this.end = Math.min(split.getEnd(), channel.size());
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+        this.lineBytes = new byte[256];
+
+        if (start > 0 && start < end) {
+            // Empezar en el byte anterior: si es '\n' no hay línea parcial que saltar
+            this.position = start - 1;
+            readLine(false);
+        } else {
+            this.position = start;
+        }
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException {
+        if (position >= end) {
+            currentKey = null;
+            currentValue = null;
+            return false;
+        }
+
+        long lineStart = position;
+        if (!readLine(true)) {
+            currentKey = null;
+            currentValue = null;
+            return false;
+        }
+
+        currentKey = lineStart;
+        currentValue = new String(lineBytes, 0, lineLength, StandardCharsets.UTF_8);
+        return true;
+    }
+
+    @Override
+    public Long getCurrentKey() {
+        return currentKey;
+    }
+
+    @Override
+    public String getCurrentValue() {
+        return currentValue;
+    }
+
+    @Override
+    public float getProgress() {
+        if (end == start) {
+            return 1.0f;
+        }
+        return Math.min(1.0f, (position - start) / (float) (end - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Consume bytes hasta el siguiente '\n' (incluido) o el fin del archivo
+     * @param keep true para guardar el contenido de la línea
+     * @return false si no quedaba ningún byte
+     */
+    private boolean readLine(boolean keep) throws IOException {
+        lineLength = 0;
+        boolean consumedAny = false;
+
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                buffer.flip();
+                if (read <= 0) {
+                    break;
+                }
+            }
+
+            byte b = buffer.get();
+            position++;
+            consumedAny = true;
+            if (b == '\n') {
+                break;
+            }
+            if (keep) {
+                append(b);
+            }
+        }
+
+        // Quitar '\r' de finales de línea Windows
+        if (keep && lineLength > 0 && lineBytes[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        return consumedAny;
+    }
+
+    private void append(byte b) {
+        if (lineLength == lineBytes.length) {
+            lineBytes = Arrays.copyOf(lineBytes, lineBytes.length * 2);
+        }
+        lineBytes[lineLength++] = b;
+    }
+}
@@ -0,0 +1,32 @@
+package com.gridmr.master.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * RecordReader - Lee los registros de un InputSplit
+ *
+ * Contrato: cada registro del archivo es devuelto por exactamente un lector,
+ * el del split que contiene su primer byte, sin importar dónde se cortaron los splits.
+ *
+ * @param <K> Tipo de la clave (p. ej. offset del registro)
+ * @param <V> Tipo del valor (p. ej. la línea)
+ */
+public interface RecordReader<K, V> extends Closeable {
+
+    /**
+     * Avanza al siguiente registro
+     * @return true si hay registro, false al terminar el split
+     */
+    boolean nextKeyValue() throws IOException;
+
+    K getCurrentKey();
+
+    V getCurrentValue();
+
+    /**
+     * Progreso dentro del split
+     * @return Valor entre 0.0 y 1.0
+     */
+    float getProgress();
+}
@@ -0,0 +1,111 @@
+package com.gridmr.master.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * SplitPlanner - Divide un archivo de texto en splits alineados a inicio de línea
+ *
+ * Cada límite nominal (i * splitSize) se mueve al inicio de la línea siguiente,
+ * buscando el '\n' en una ventana acotada mapeada en memoria: nunca se carga el
+ * archivo completo. Si la línea es más larga que la ventana se deja el límite
+ * nominal y LineRecordReader completa la línea en el split anterior.
+ * En archivos grandes los límites se calculan en paralelo.
+ */
+public class SplitPlanner {
+
+    // Ventana máxima a examinar por límite
+    private static final int DEFAULT_MAX_SCAN_BYTES = 1024 * 1024;
+
+    // A partir de este número de límites se planifica en paralelo
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private final int maxScanBytes;
+
+    public SplitPlanner() {
+        this(DEFAULT_MAX_SCAN_BYTES);
+    }
+
+    /**
+     * @param maxScanBytes Bytes máximos a examinar para alinear cada límite
+     */
+    public SplitPlanner(int maxScanBytes) {
+        if (maxScanBytes <= 0) {
+            throw new IllegalArgumentException("maxScanBytes debe ser positivo: " + maxScanBytes);
+        }
+        this.maxScanBytes = maxScanBytes;
+    }
+
+    /**
+     * Planifica los splits de un archivo
+     * @param file Archivo de entrada
+     * @param splitSizeBytes Tamaño nominal de cada split
+     * @return Splits contiguos que cubren todo el archivo (uno vacío si el archivo está vacío)
+     */
+    public List<InputSplit> plan(Path file, long splitSizeBytes) throws IOException {
+        if (splitSizeBytes <= 0) {
+            throw new IllegalArgumentException("splitSizeBytes debe ser positivo: " + splitSizeBytes);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long numBoundaries = fileSize > 0 ? (fileSize - 1) / splitSizeBytes : 0;
+
+            LongStream nominal = LongStream.rangeClosed(1, numBoundaries).map(i -> i * splitSizeBytes);
+            if (numBoundaries >= PARALLEL_THRESHOLD) {
+                nominal = nominal.parallel();
+            }
+
+            long[] boundaries;
+            try {
+                boundaries = nominal.map(offset -> snapToLineStart(channel, offset, fileSize)).toArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // Construir splits contiguos; una línea larga puede absorber límites siguientes
+            List<InputSplit> splits = new ArrayList<>();
+            String path = file.toString();
+            long start = 0;
+            for (long boundary : boundaries) {
+                if (boundary > start && boundary < fileSize) {
+                    splits.add(new InputSplit(path, start, boundary));
+                    start = boundary;
+                }
+            }
+            splits.add(new InputSplit(path, start, fileSize));
+            return splits;
+        }
+    }
+
+    /**
+     * Mueve un límite nominal al inicio de la línea siguiente
+     * @param channel Canal del archivo
+     * @param offset Límite nominal
+     * @param fileSize Tamaño del archivo
+     * @return Offset alineado, o el nominal si no hay '\n' dentro de la ventana
+     */
+    private long snapToLineStart(FileChannel channel, long offset, long fileSize) {
+        // Se incluye el byte anterior: si es '\n' el límite ya está alineado
+        long windowStart = offset - 1;
+        long windowSize = Math.min(maxScanBytes, fileSize - windowStart);
+        try {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            for (int i = 0; i < windowSize; i++) {
+                if (window.get(i) == '\n') {
+                    return windowStart + i + 1;
+                }
+            }
+            return offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -14,13 +14,21 @@ public class DataChunk {
     
     // Ubicación y estado
     private String location; // URI o path donde está almacenado
+    private String storageNodeId; // Nodo (NodeManager) que almacena físicamente el chunk
     private String assignedWorkerId;
     private boolean isProcessed;
+    private boolean logical; // Split lógico: location es el archivo original y se lee [startOffset, endOffset)
     
-    // Metadatos
-    private LocalDateTime createdAt;
-    private LocalDateTime assignedAt;
-    private LocalDateTime processedAt;
+    // Salida intermedia de un Map (segmento de shuffle)
+    private boolean intermediate;
+    private String sourceTaskId; // Tarea Map que produjo el segmento
+    private int partitionId; // Reducer destino
+    private long recordCount; // Registros del segmento
+    
+    // Metadatos (ms monótonos, ver Timestamps; 0 = sin marca)
+    private final long createdAtMs;
+    private long assignedAtMs;
+    private long processedAtMs;
     
     // Contenido (para chunks pequeños)
     private String content;
@@ -33,9 +41,10 @@ public class DataChunk {
         this.startOffset = startOffset;
         this.endOffset = endOffset;
         this.sizeBytes = endOffset - startOffset;
-        this.createdAt = LocalDateTime.now();
+        this.createdAtMs = Timestamps.now();
         this.isProcessed = false;
         this.hasContent = false;
+        this.partitionId = -1;
     }
     
     // Getters y Setters básicos
@@ -50,28 +59,54 @@ public class DataChunk {
     public String getLocation() { return location; }
     public void setLocation(String location) { this.location = location; }
     
+    public boolean isLogical() { return logical; }
+    public void setLogical(boolean logical) { this.logical = logical; }
+    
+    public boolean isIntermediate() { return intermediate; }
+    public String getSourceTaskId() { return sourceTaskId; }
+    public int getPartitionId() { return partitionId; }
+    
+    public long getRecordCount() { return recordCount; }
+    public void setRecordCount(long recordCount) { this.recordCount = recordCount; }
+    
+    // Marca el chunk como segmento de salida de un Map para un reducer
+    public void markIntermediate(String sourceTaskId, int partitionId) {
+        this.intermediate = true;
+        this.sourceTaskId = sourceTaskId;
+        this.partitionId = partitionId;
+    }
+    
+    public String getStorageNodeId() { return storageNodeId; }
+    public void setStorageNodeId(String storageNodeId) { this.storageNodeId = storageNodeId; }
+    
     public String getAssignedWorkerId() { return assignedWorkerId; }
     public void setAssignedWorkerId(String assignedWorkerId) { 
         this.assignedWorkerId = assignedWorkerId; 
-        this.assignedAt = LocalDateTime.now();
+        this.assignedAtMs = Timestamps.now();
     }
     
     public boolean isProcessed() { return isProcessed; }
     public void setProcessed(boolean processed) { 
         this.isProcessed = processed; 
         if (processed) {
-            this.processedAt = LocalDateTime.now();
+            this.processedAtMs = Timestamps.now();
         }
     }
     
+    // Milisegundos desde la creación del chunk (reloj monótono)
+    public long getAgeMs() {
+        return Timestamps.millisSince(createdAtMs);
+    }
+    
+    // Fechas para REST/JSON (se calculan a partir de las marcas monótonas)
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return Timestamps.toLocalDateTime(createdAtMs);
     }
     public LocalDateTime getAssignedAt() {
-        return assignedAt;
+        return Timestamps.toLocalDateTime(assignedAtMs);
     }
     public LocalDateTime getProcessedAt() {
-        return processedAt;
+        return Timestamps.toLocalDateTime(processedAtMs);
     }
     
     public String getContent() { return content; }
@@ -92,6 +127,26 @@ public class DataChunk {
         return !isAssigned() && !isProcessed;
     }
     
+    /**
+     * Obtiene el host de la ubicación si es remota ("host:/export/path" o "nfs://host/path")
+     * @return Host o null si la ubicación es local
+     */
+    public String getLocationHost() {
+        if (location == null) return null;
+        
+        if (location.startsWith("nfs://")) {
+            int end = location.indexOf('/', 6);
+            return end > 6 ? location.substring(6, end) : null;
+        }
+        
+        // Notación NFS host:/path (se excluyen unidades de Windows como C:/)
+        int colon = location.indexOf(":/");
+        if (colon > 1 && location.indexOf('/') > colon) {
+            return location.substring(0, colon);
+        }
+        return null;
+    }
+    
     // Obtiene el rango de bytes del chunk
     public String getRangeHeader() {
         return "bytes=" + startOffset + "-" + (endOffset - 1);
@@ -26,11 +26,20 @@ public class Job {
     private int numReducers;
     private String mapFunction;
     private String reduceFunction;
+    private String combineFunction; // Combinación en el lado Map (null = sin combiner)
+    private String partitioner; // HASH o TOTAL_ORDER
+    private List<String> partitionSplitPoints; // Puntos de corte del partitioner por rangos
+    private int chunkSizeMB; // Tamaño de split en MB (0 = automático según entrada y cluster)
+    private double reduceSlowStart = -1; // Fracción de Maps completados para lanzar los Reduce (-1 = por defecto)
+    private int priority = 5; // Prioridad de admisión (0-10, mayor = antes)
     
     // Tareas del trabajo
     private List<Task> mapTasks;
     private List<Task> reduceTasks;
     
+    // Contadores de tareas por fase y estado
+    private final JobProgress progress;
+    
     // Resultados
     private List<String> intermediateResults;
     private List<String> finalResults;
@@ -43,8 +52,11 @@ public class Job {
         this.inputFiles = new ArrayList<>();
         this.mapTasks = new ArrayList<>();
         this.reduceTasks = new ArrayList<>();
+        this.progress = new JobProgress();
         this.intermediateResults = new ArrayList<>();
         this.finalResults = new ArrayList<>();
+        this.partitioner = "HASH";
+        this.partitionSplitPoints = new ArrayList<>();
     }
     
     // Getters y Setters básicos
@@ -120,11 +132,54 @@ public class Job {
         this.reduceFunction = reduceFunction;
     }
     
+    public String getCombineFunction() {
+        return combineFunction;
+    }
+    public void setCombineFunction(String combineFunction) {
+        this.combineFunction = combineFunction;
+    }
+    
+    public String getPartitioner() {
+        return partitioner;
+    }
+    public void setPartitioner(String partitioner) {
+        this.partitioner = partitioner;
+    }
+    
+    public List<String> getPartitionSplitPoints() {
+        return partitionSplitPoints;
+    }
+    public void setPartitionSplitPoints(List<String> partitionSplitPoints) {
+        this.partitionSplitPoints = new ArrayList<>(partitionSplitPoints);
+    }
+    
+    public int getChunkSizeMB() {
+        return chunkSizeMB;
+    }
+    public void setChunkSizeMB(int chunkSizeMB) {
+        this.chunkSizeMB = Math.max(0, chunkSizeMB);
+    }
+    
+    public double getReduceSlowStart() {
+        return reduceSlowStart;
+    }
+    public void setReduceSlowStart(double reduceSlowStart) {
+        this.reduceSlowStart = Math.min(1.0, Math.max(0.0, reduceSlowStart));
+    }
+    
+    public int getPriority() {
+        return priority;
+    }
+    public void setPriority(int priority) {
+        this.priority = Math.min(10, Math.max(0, priority));
+    }
+    
     public List<Task> getMapTasks() {
         return mapTasks;
     }
     public void addMapTask(Task task) {
         this.mapTasks.add(task);
+        progress.getMap().taskCreated();
     }
     
     public List<Task> getReduceTasks() {
@@ -132,6 +187,11 @@ public class Job {
     }
     public void addReduceTask(Task task) {
         this.reduceTasks.add(task);
+        progress.getReduce().taskCreated();
+    }
+    
+    public JobProgress getProgress() {
+        return progress;
     }
     
     public List<String> getIntermediateResults() {
@@ -160,11 +220,11 @@ public class Job {
     
     // Verifica si todas las tareas Map están completadas
     public boolean areMapTasksCompleted() {
-        return mapTasks.stream().allMatch(task -> task.getStatus() == TaskStatus.COMPLETED);
+        return progress.getMap().isComplete();
     }
     
     // Verifica si todas las tareas Reduce están completadas
     public boolean areReduceTasksCompleted() {
-        return reduceTasks.stream().allMatch(task -> task.getStatus() == TaskStatus.COMPLETED);
+        return progress.getReduce().isComplete();
     }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.gridmr.master.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contadores de tareas de un trabajo por fase y estado
+ *
+ * Se actualizan con los eventos del Scheduler (asignada, reencolada, completada,
+ * fallida), así el estado de un trabajo se consulta en O(1) sin recorrer sus tareas.
+ */
+public class JobProgress {
+
+    private final PhaseCounters map = new PhaseCounters();
+    private final PhaseCounters reduce = new PhaseCounters();
+
+    public PhaseCounters getMap() {
+        return map;
+    }
+
+    public PhaseCounters getReduce() {
+        return reduce;
+    }
+
+    public PhaseCounters forType(TaskType type) {
+        return type == TaskType.MAP ? map : reduce;
+    }
+
+    public int getTotalTasks() {
+        return map.getTotal() + reduce.getTotal();
+    }
+
+    public int getCompletedTasks() {
+        return map.getCompleted() + reduce.getCompleted();
+    }
+
+    /**
+     * Contadores de una fase (Map o Reduce)
+     */
+    public static class PhaseCounters {
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile boolean allCreated;
+
+        // Tarea creada, a la espera de un worker
+        public void taskCreated() {
+            total.incrementAndGet();
+            pending.incrementAndGet();
+        }
+
+        // Ya se crearon todas las tareas de la fase: a partir de aquí puede completarse
+        public void allTasksCreated() {
+            allCreated = true;
+        }
+
+        // Tarea asignada a un worker
+        public void taskStarted() {
+            pending.decrementAndGet();
+            running.incrementAndGet();
+        }
+
+        // Tarea devuelta a la cola (timeout o worker caído)
+        public void taskRequeued() {
+            running.decrementAndGet();
+            pending.incrementAndGet();
+        }
+
+        /**
+         * @return Número de tareas completadas de la fase tras el evento
+         */
+        public int taskCompleted() {
+            running.decrementAndGet();
+            return completed.incrementAndGet();
+        }
+
+        /**
+         * @return Número de tareas fallidas de la fase tras el evento
+         */
+        public int taskFailed() {
+            running.decrementAndGet();
+            return failed.incrementAndGet();
+        }
+
+        public int getTotal() {
+            return total.get();
+        }
+
+        public int getPending() {
+            return pending.get();
+        }
+
+        public int getRunning() {
+            return running.get();
+        }
+
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        public boolean areAllTasksCreated() {
+            return allCreated;
+        }
+
+        /**
+         * @return true si la fase ya creó sus tareas y todas se completaron
+         *         (falso mientras el trabajo planifica o muestrea, con total == 0)
+         */
+        public boolean isComplete() {
+            return allCreated && completed.get() == total.get();
+        }
+    }
+}
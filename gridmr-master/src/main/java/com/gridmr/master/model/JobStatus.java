@@ -3,6 +3,7 @@ package com.gridmr.master.model;
 // Estados posibles de un trabajo MapReduce
 public enum JobStatus {
     PENDING,        // Trabajo creado, esperando ser procesado
+    QUEUED,         // Trabajo en la cola de admisión, esperando capacidad del cluster
     MAP_PHASE,      // Fase Map en progreso
     MAP_COMPLETED,  // Fase Map completada
     REDUCE_PHASE,   // Fase Reduce en progreso
@@ -0,0 +1,8 @@
+package com.gridmr.master.model;
+
+// Niveles de localidad de datos al asignar una tarea Map
+public enum LocalityLevel {
+    NODE_LOCAL,  // El worker ya tiene el chunk (worker asignado al chunk)
+    HOST_LOCAL,  // El worker corre en el mismo host que almacena el chunk
+    ANY          // Cualquier worker (lectura remota desde NFS)
+}
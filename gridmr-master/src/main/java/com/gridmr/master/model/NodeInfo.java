@@ -24,10 +24,10 @@ public class NodeInfo {
     private long diskSpaceGB;
     private int computePower; // Valor simulado de capacidad (1-100)
     
-    // Metadatos
-    private LocalDateTime registeredAt;
-    private LocalDateTime lastHeartbeat;
-    private LocalDateTime lastUpdate;
+    // Metadatos (ms monótonos, ver Timestamps)
+    private final long registeredAtMs;
+    private volatile long lastHeartbeatMs;
+    private volatile long lastUpdateMs;
     
     // Estadísticas
     private int totalWorkersAssigned;
@@ -42,9 +42,9 @@ public class NodeInfo {
         this.maxWorkers = maxWorkers;
         this.nodeType = nodeType;
         this.status = NodeStatus.REGISTERED;
-        this.registeredAt = LocalDateTime.now();
-        this.lastHeartbeat = LocalDateTime.now();
-        this.lastUpdate = LocalDateTime.now();
+        this.registeredAtMs = Timestamps.now();
+        this.lastHeartbeatMs = registeredAtMs;
+        this.lastUpdateMs = registeredAtMs;
         this.currentWorkers = 0;
         this.totalWorkersAssigned = 0;
         this.totalTasksCompleted = 0;
@@ -86,14 +86,13 @@ public class NodeInfo {
     public int getComputePower() { return computePower; }
     public void setComputePower(int computePower) { this.computePower = computePower; }
     
-    public LocalDateTime getRegisteredAt() { return registeredAt; }
-    public void setRegisteredAt(LocalDateTime registeredAt) { this.registeredAt = registeredAt; }
+    // Fechas para REST/JSON (se calculan a partir de las marcas monótonas)
+    public LocalDateTime getRegisteredAt() { return Timestamps.toLocalDateTime(registeredAtMs); }
+    public LocalDateTime getLastHeartbeat() { return Timestamps.toLocalDateTime(lastHeartbeatMs); }
+    public LocalDateTime getLastUpdate() { return Timestamps.toLocalDateTime(lastUpdateMs); }
     
-    public LocalDateTime getLastHeartbeat() { return lastHeartbeat; }
-    public void setLastHeartbeat(LocalDateTime lastHeartbeat) { this.lastHeartbeat = lastHeartbeat; }
-    
-    public LocalDateTime getLastUpdate() { return lastUpdate; }
-    public void setLastUpdate(LocalDateTime lastUpdate) { this.lastUpdate = lastUpdate; }
+    // Milisegundos desde el último heartbeat (reloj monótono)
+    public long getMillisSinceHeartbeat() { return Timestamps.millisSince(lastHeartbeatMs); }
     
     public int getTotalWorkersAssigned() { return totalWorkersAssigned; }
     public void setTotalWorkersAssigned(int totalWorkersAssigned) { this.totalWorkersAssigned = totalWorkersAssigned; }
@@ -114,9 +113,7 @@ public class NodeInfo {
      * @param timeoutSeconds Tiempo límite en segundos para considerar el nodo activo
      */
     public boolean isActive(int timeoutSeconds) {
-        if (lastHeartbeat == null) return false;
-        long secondsSinceHeartbeat = java.time.Duration.between(lastHeartbeat, LocalDateTime.now()).getSeconds();
-        return secondsSinceHeartbeat < timeoutSeconds;
+        return getMillisSinceHeartbeat() < timeoutSeconds * 1000L;
     }
     
     /**
@@ -163,23 +160,23 @@ public class NodeInfo {
     /**
      * Asigna un worker al nodo
      */
-    public boolean assignWorker() {
+    public synchronized boolean assignWorker() {
         if (!hasCapacity()) return false;
         
         currentWorkers++;
         totalWorkersAssigned++;
-        lastUpdate = LocalDateTime.now();
+        lastUpdateMs = Timestamps.now();
         return true;
     }
     
     /**
      * Libera un worker del nodo
      */
-    public boolean releaseWorker() {
+    public synchronized boolean releaseWorker() {
         if (currentWorkers <= 0) return false;
         
         currentWorkers--;
-        lastUpdate = LocalDateTime.now();
+        lastUpdateMs = Timestamps.now();
         return true;
     }
     
@@ -187,8 +184,8 @@ public class NodeInfo {
      * Actualiza el heartbeat del nodo
      */
     public void updateHeartbeat() {
-        this.lastHeartbeat = LocalDateTime.now();
-        this.lastUpdate = LocalDateTime.now();
+        this.lastHeartbeatMs = Timestamps.now();
+        this.lastUpdateMs = lastHeartbeatMs;
     }
     
     /**
@@ -197,7 +194,7 @@ public class NodeInfo {
     public void recordTaskCompletion(long executionTimeMs) {
         totalTasksCompleted++;
         totalExecutionTimeMs += executionTimeMs;
-        lastUpdate = LocalDateTime.now();
+        lastUpdateMs = Timestamps.now();
     }
     
     /**
@@ -205,7 +202,7 @@ public class NodeInfo {
      */
     public void recordTaskFailure() {
         totalTasksFailed++;
-        lastUpdate = LocalDateTime.now();
+        lastUpdateMs = Timestamps.now();
     }
     
     /**
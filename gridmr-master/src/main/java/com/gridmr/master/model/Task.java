@@ -1,12 +1,16 @@
 package com.gridmr.master.model;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 // Representa una tarea individual Map o Reduce, cada tarea se ejecuta en un worker específico
 public class Task {
     
     private String taskId;
     private String jobId;
+    private String clientId; // Cliente dueño del trabajo (reparto justo del cluster)
+    private long enqueuedAtMs; // Entrada a la cola de pendientes, ms monótonos (envejecimiento de prioridad)
     private TaskType type;
     private TaskStatus status;
     private String workerId;
@@ -17,22 +21,53 @@ public class Task {
     private String errorMessage;
     
     // Metadatos de ejecución
-    private LocalDateTime createdAt;
-    private LocalDateTime startedAt;
-    private LocalDateTime completedAt;
+    // Marcas de tiempo en ms monótonos (ver Timestamps; 0 = sin marca)
+    private final long createdAtMs;
+    private volatile long startedAtMs;
+    private volatile long completedAtMs;
     private long executionTimeMs;
     
     // Configuración de la tarea
     private String functionCode;
+    private String combineFunction; // Solo tareas Map: combiner a aplicar antes del shuffle
+    private String partitioner; // Solo tareas Map: HASH o TOTAL_ORDER
+    private List<String> partitionSplitPoints; // Puntos de corte (TOTAL_ORDER)
+    
+    // Partición de entrada (solo tareas Reduce)
+    private int partitionId = -1;
+    private int partitionGroup = -1; // Sub-tarea de una partición dividida (-1 = toda la partición)
+    private List<String> inputSegmentIds; // Segmentos asignados al planificar (vacío = toda la partición)
+    private List<String> mergeInputTaskIds; // Tarea de mezcla: sub-tareas cuya salida combina
     private int priority;
     
+    // Preferencias de localidad (solo tareas Map)
+    private String preferredWorkerId;
+    private List<String> preferredHosts;
+    private long localityWaitStartedAt; // Ms monótonos en que empezó a esperar localidad (0 = no espera)
+    private LocalityLevel localityLevel;
+    
+    // Chunk de entrada (solo tareas Map) y rango de bytes a leer de inputData
+    private String inputChunkId;
+    private long inputSizeBytes; // Tamaño de la entrada (0 = desconocido), para el modelo de rendimiento
+    private long inputStartOffset;
+    private long inputEndOffset = -1; // -1 = hasta el final del archivo
+    
+    // Intentos de ejecución (incluye reintentos e intentos especulativos)
+    private int attemptNumber;
+    private String committedAttemptId; // Intento cuya salida se publicó al completarse
+    private boolean speculative; // Hay un intento de respaldo en curso
+    
     public Task(String taskId, String jobId, TaskType type) {
         this.taskId = taskId;
         this.jobId = jobId;
         this.type = type;
         this.status = TaskStatus.PENDING;
-        this.createdAt = LocalDateTime.now();
+        this.createdAtMs = Timestamps.now();
         this.priority = 1; // Prioridad por defecto
+        this.preferredHosts = new ArrayList<>();
+        this.partitionSplitPoints = new ArrayList<>();
+        this.inputSegmentIds = new ArrayList<>();
+        this.mergeInputTaskIds = new ArrayList<>();
     }
     
     // Getters y Setters básicos
@@ -42,6 +77,18 @@ public class Task {
     public String getJobId() {
         return jobId;
     }
+    public long getEnqueuedAtMs() {
+        return enqueuedAtMs;
+    }
+    public void setEnqueuedAtMs(long enqueuedAtMs) {
+        this.enqueuedAtMs = enqueuedAtMs;
+    }
+    public String getClientId() {
+        return clientId;
+    }
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
     public TaskType getType() {
         return type;
     }
@@ -81,21 +128,28 @@ public class Task {
         this.errorMessage = errorMessage;
     }
     
-    public LocalDateTime getCreatedAt() {
-        return createdAt;
+    public long getStartedAtMs() {
+        return startedAtMs;
     }
-    public LocalDateTime getStartedAt() {
-        return startedAt;
+    public void setStartedAtMs(long startedAtMs) {
+        this.startedAtMs = startedAtMs;
     }
-    public void setStartedAt(LocalDateTime startedAt) {
-        this.startedAt = startedAt;
+    public long getCompletedAtMs() {
+        return completedAtMs;
+    }
+    public void setCompletedAtMs(long completedAtMs) {
+        this.completedAtMs = completedAtMs;
     }
     
-    public LocalDateTime getCompletedAt() {
-        return completedAt;
+    // Fechas para REST/JSON (se calculan a partir de las marcas monótonas)
+    public LocalDateTime getCreatedAt() {
+        return Timestamps.toLocalDateTime(createdAtMs);
+    }
+    public LocalDateTime getStartedAt() {
+        return Timestamps.toLocalDateTime(startedAtMs);
     }
-    public void setCompletedAt(LocalDateTime completedAt) {
-        this.completedAt = completedAt;
+    public LocalDateTime getCompletedAt() {
+        return Timestamps.toLocalDateTime(completedAtMs);
     }
     
     public long getExecutionTimeMs() {
@@ -112,6 +166,60 @@ public class Task {
         this.functionCode = functionCode;
     }
     
+    public String getCombineFunction() {
+        return combineFunction;
+    }
+    public void setCombineFunction(String combineFunction) {
+        this.combineFunction = combineFunction;
+    }
+    
+    public String getPartitioner() {
+        return partitioner;
+    }
+    public void setPartitioner(String partitioner) {
+        this.partitioner = partitioner;
+    }
+    
+    public List<String> getPartitionSplitPoints() {
+        return partitionSplitPoints;
+    }
+    public void setPartitionSplitPoints(List<String> partitionSplitPoints) {
+        this.partitionSplitPoints = partitionSplitPoints;
+    }
+    
+    public int getPartitionId() {
+        return partitionId;
+    }
+    public void setPartitionId(int partitionId) {
+        this.partitionId = partitionId;
+    }
+    
+    public int getPartitionGroup() {
+        return partitionGroup;
+    }
+    public void setPartitionGroup(int partitionGroup) {
+        this.partitionGroup = partitionGroup;
+    }
+    
+    public List<String> getInputSegmentIds() {
+        return inputSegmentIds;
+    }
+    public void setInputSegmentIds(List<String> inputSegmentIds) {
+        this.inputSegmentIds = new ArrayList<>(inputSegmentIds);
+    }
+    
+    public List<String> getMergeInputTaskIds() {
+        return mergeInputTaskIds;
+    }
+    public void setMergeInputTaskIds(List<String> mergeInputTaskIds) {
+        this.mergeInputTaskIds = new ArrayList<>(mergeInputTaskIds);
+    }
+    
+    // Tarea que mezcla la salida de las sub-tareas de una partición dividida
+    public boolean isMergeTask() {
+        return !mergeInputTaskIds.isEmpty();
+    }
+    
     public int getPriority() {
         return priority;
     }
@@ -119,6 +227,100 @@ public class Task {
         this.priority = priority;
     }
     
+    public String getPreferredWorkerId() {
+        return preferredWorkerId;
+    }
+    public void setPreferredWorkerId(String preferredWorkerId) {
+        this.preferredWorkerId = preferredWorkerId;
+    }
+    
+    public List<String> getPreferredHosts() {
+        return preferredHosts;
+    }
+    public void addPreferredHost(String host) {
+        if (host != null && !host.isEmpty() && !preferredHosts.contains(host)) {
+            preferredHosts.add(host);
+        }
+    }
+    
+    public long getLocalityWaitStartedAt() {
+        return localityWaitStartedAt;
+    }
+    public void setLocalityWaitStartedAt(long localityWaitStartedAt) {
+        this.localityWaitStartedAt = localityWaitStartedAt;
+    }
+    
+    public LocalityLevel getLocalityLevel() {
+        return localityLevel;
+    }
+    public void setLocalityLevel(LocalityLevel localityLevel) {
+        this.localityLevel = localityLevel;
+    }
+    
+    public String getInputChunkId() {
+        return inputChunkId;
+    }
+    public void setInputChunkId(String inputChunkId) {
+        this.inputChunkId = inputChunkId;
+    }
+    
+    public long getInputSizeBytes() {
+        return inputSizeBytes;
+    }
+    public void setInputSizeBytes(long inputSizeBytes) {
+        this.inputSizeBytes = inputSizeBytes;
+    }
+    
+    public long getInputStartOffset() {
+        return inputStartOffset;
+    }
+    public long getInputEndOffset() {
+        return inputEndOffset;
+    }
+    // Define el rango [start, end) de inputData que procesa la tarea
+    public void setInputRange(long startOffset, long endOffset) {
+        this.inputStartOffset = startOffset;
+        this.inputEndOffset = endOffset;
+    }
+    
+    public int getAttemptNumber() {
+        return attemptNumber;
+    }
+    
+    // Identificador del intento actual (taskId_attempt_N)
+    public String getAttemptId() {
+        return getAttemptId(attemptNumber);
+    }
+    
+    // Identificador de un intento concreto de la tarea
+    public String getAttemptId(int attemptNumber) {
+        return taskId + "_attempt_" + attemptNumber;
+    }
+    
+    public String getCommittedAttemptId() {
+        return committedAttemptId;
+    }
+    public void setCommittedAttemptId(String committedAttemptId) {
+        this.committedAttemptId = committedAttemptId;
+    }
+    
+    // Registra un nuevo intento y devuelve su número
+    public int nextAttempt() {
+        return ++attemptNumber;
+    }
+    
+    public boolean isSpeculative() {
+        return speculative;
+    }
+    public void setSpeculative(boolean speculative) {
+        this.speculative = speculative;
+    }
+    
+    // Verifica si la tarea tiene preferencia de localidad de datos
+    public boolean hasLocalityPreference() {
+        return preferredWorkerId != null || !preferredHosts.isEmpty();
+    }
+    
     // Verifica si la tarea está completada
     public boolean isCompleted() {
         return status == TaskStatus.COMPLETED;
@@ -147,16 +349,16 @@ public class Task {
     // Marca la tarea como iniciada
     public void start() {
         this.status = TaskStatus.RUNNING;
-        this.startedAt = LocalDateTime.now();
+        this.startedAtMs = Timestamps.now();
     }
     
     // Marca la tarea como completada
     public void complete(String outputData) {
         this.status = TaskStatus.COMPLETED;
         this.outputData = outputData;
-        this.completedAt = LocalDateTime.now();
-        if (this.startedAt != null) {
-            this.executionTimeMs = java.time.Duration.between(this.startedAt, this.completedAt).toMillis();
+        this.completedAtMs = Timestamps.now();
+        if (this.startedAtMs > 0) {
+            this.executionTimeMs = completedAtMs - startedAtMs;
         }
     }
     
@@ -164,6 +366,6 @@ public class Task {
     public void fail(String errorMessage) {
         this.status = TaskStatus.FAILED;
         this.errorMessage = errorMessage;
-        this.completedAt = LocalDateTime.now();
+        this.completedAtMs = Timestamps.now();
     }
 }
\ No newline at end of file
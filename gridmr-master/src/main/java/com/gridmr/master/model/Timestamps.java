@@ -0,0 +1,52 @@
+package com.gridmr.master.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Timestamps - Reloj monótono de los modelos del camino caliente
+ *
+ * Worker, Task, NodeInfo y DataChunk guardan sus marcas de tiempo como long en
+ * milisegundos de System.nanoTime(): medir un intervalo es una resta, sin crear
+ * objetos ni consultar la zona horaria, y los timeouts no se ven afectados por
+ * saltos del reloj de pared (NTP, cambios de hora). La conversión a LocalDateTime
+ * se hace solo en la frontera REST/JSON.
+ */
+public final class Timestamps {
+
+    // Origen del reloj: así cualquier marca tomada es >= 1 y 0 queda libre como "sin marca"
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private Timestamps() {
+    }
+
+    /**
+     * Milisegundos monótonos actuales (solo sirven para medir intervalos)
+     */
+    public static long now() {
+        return (System.nanoTime() - ORIGIN_NANOS) / 1_000_000L + 1;
+    }
+
+    /**
+     * Milisegundos transcurridos desde una marca
+     * @param timestampMs Marca monótona (0 = sin marca)
+     * @return Milisegundos transcurridos o Long.MAX_VALUE si no hay marca
+     */
+    public static long millisSince(long timestampMs) {
+        return timestampMs > 0 ? now() - timestampMs : Long.MAX_VALUE;
+    }
+
+    /**
+     * Convierte una marca monótona a fecha local (frontera REST/JSON)
+     * @param timestampMs Marca monótona (0 = sin marca)
+     * @return Fecha local o null si no hay marca
+     */
+    public static LocalDateTime toLocalDateTime(long timestampMs) {
+        if (timestampMs <= 0) {
+            return null;
+        }
+        long epochMs = System.currentTimeMillis() - (now() - timestampMs);
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
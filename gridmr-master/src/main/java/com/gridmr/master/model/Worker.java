@@ -3,14 +3,32 @@ package com.gridmr.master.model;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-// Representa un worker en el grid, cada worker puede ejecutar tareas Map o Reduce
+/**
+ * Representa un worker en el grid, cada worker puede ejecutar tareas Map o Reduce
+ *
+ * El estado y la carga se guardan juntos en un único AtomicLong (estado en los 32
+ * bits altos, carga en los bajos) y cada transición se hace con CAS: una asignación
+ * solo tiene éxito si el worker está READY con un slot libre, así dos hilos nunca
+ * ocupan el mismo slot. Mientras el worker está activo, el estado es READY si le
+ * quedan slots y BUSY si está lleno; OFFLINE conserva la carga hasta reactivarse.
+ */
 public class Worker {
     
+    private static final WorkerStatus[] STATUSES = WorkerStatus.values();
+    private static final long LOAD_MASK = 0xFFFFFFFFL;
+    private static final double RESOURCE_PRESSURE_THRESHOLD = 80.0; // % de CPU/memoria reportado a partir del cual baja la salud
+    
     private String workerId;
     private String host;
     private int port;
-    private WorkerStatus status;
+    
+    // Estado (32 bits altos) y número de tareas activas (32 bits bajos)
+    private final AtomicLong slotState;
     
     // Capacidad de cómputo
     private int cpuCores;
@@ -18,32 +36,50 @@ public class Worker {
     private long diskSpaceGB;
     private int computePower; // Valor simulado de capacidad (1-100)
     
-    // Estado actual
-    private int currentLoad; // Número de tareas activas
-    private int maxConcurrentTasks;
-    private List<String> activeTaskIds;
+    // Capacidad actual
+    private volatile int maxConcurrentTasks;
+    private volatile int slotLimit; // Slots habilitados por el modelo de rendimiento (0 = todos)
+    private final Set<String> activeTaskIds;
+    
+    // Metadatos (ms monótonos, ver Timestamps)
+    private final long registeredAtMs;
+    private volatile long lastHeartbeatMs;
+    private volatile long lastTaskUpdateMs;
+    
+    // Nodo que agrupa al worker: mientras lo cubre, el heartbeat del nodo cuenta
+    // como heartbeat del worker (se excluye cuando el nodo lo reporta caído)
+    private volatile NodeInfo node;
+    private volatile boolean coveredByNode;
     
-    // Metadatos
-    private LocalDateTime registeredAt;
-    private LocalDateTime lastHeartbeat;
-    private LocalDateTime lastTaskUpdate;
+    // Último reporte del worker (heartbeat); -1 / NaN = no reportado
+    private volatile int reportedActiveTasks = -1;
+    private volatile int reportedAvailableTasks = -1;
+    private volatile double cpuUsage = Double.NaN;
+    private volatile double memoryUsage = Double.NaN;
+    
+    // Rendimiento observado (EWMA por tipo de tarea) y su score en [0, 1], global y por
+    // tipo (índice = TaskType.ordinal()); NaN = aún sin calcular
+    private final WorkerPerformance performance;
+    private volatile double performanceScore = Double.NaN;
+    private volatile double[] typePerformanceScores;
     
     // Estadísticas
-    private int completedTasks;
-    private long totalExecutionTimeMs;
-    private int failedTasks;
+    private final AtomicInteger completedTasks;
+    private final AtomicLong totalExecutionTimeMs;
+    private final AtomicInteger failedTasks;
     
     public Worker(String workerId, String host, int port) {
         this.workerId = workerId;
         this.host = host;
         this.port = port;
-        this.status = WorkerStatus.REGISTERED;
-        this.registeredAt = LocalDateTime.now();
-        this.lastHeartbeat = LocalDateTime.now();
-        this.activeTaskIds = new ArrayList<>();
-        this.completedTasks = 0;
-        this.failedTasks = 0;
-        this.totalExecutionTimeMs = 0;
+        this.slotState = new AtomicLong(pack(WorkerStatus.REGISTERED, 0));
+        this.registeredAtMs = Timestamps.now();
+        this.lastHeartbeatMs = registeredAtMs;
+        this.activeTaskIds = ConcurrentHashMap.newKeySet();
+        this.completedTasks = new AtomicInteger();
+        this.failedTasks = new AtomicInteger();
+        this.totalExecutionTimeMs = new AtomicLong();
+        this.performance = new WorkerPerformance();
     }
     
     // Getters y Setters básicos
@@ -58,10 +94,18 @@ public class Worker {
     }
     
     public WorkerStatus getStatus() {
-        return status;
+        return statusOf(slotState.get());
     }
+    
+    /**
+     * Fija el estado conservando la carga. READY y BUSY se ajustan a la carga
+     * (un worker lleno queda BUSY aunque se pida READY, y viceversa).
+     */
     public void setStatus(WorkerStatus status) {
-        this.status = status;
+        long current;
+        do {
+            current = slotState.get();
+        } while (!slotState.compareAndSet(current, pack(normalize(status, loadOf(current)), loadOf(current))));
     }
     
     public int getCpuCores() {
@@ -93,10 +137,7 @@ public class Worker {
     }
     
     public int getCurrentLoad() {
-        return currentLoad;
-    }
-    public void setCurrentLoad(int currentLoad) {
-        this.currentLoad = currentLoad;
+        return loadOf(slotState.get());
     }
     
     public int getMaxConcurrentTasks() {
@@ -104,47 +145,147 @@ public class Worker {
     }
     public void setMaxConcurrentTasks(int maxConcurrentTasks) {
         this.maxConcurrentTasks = maxConcurrentTasks;
+        this.slotLimit = 0;
+        setStatus(getStatus()); // Reajustar READY/BUSY a la nueva capacidad
+    }
+    
+    /**
+     * Slots que el worker puede usar ahora (entre 1 y maxConcurrentTasks). El
+     * ResourceManager lo reduce cuando las tareas esperan en el worker en vez de ejecutarse.
+     */
+    public int getSlotLimit() {
+        int max = maxConcurrentTasks;
+        int limit = slotLimit;
+        return limit > 0 ? Math.min(limit, max) : max;
+    }
+    public void setSlotLimit(int slotLimit) {
+        this.slotLimit = Math.max(1, Math.min(slotLimit, maxConcurrentTasks));
+        setStatus(getStatus()); // Reajustar READY/BUSY a los slots habilitados
+    }
+    
+    // Modelo de rendimiento observado (no es getter para no serializarlo en JSON)
+    public WorkerPerformance performance() {
+        return performance;
+    }
+    
+    public double getPerformanceScore() {
+        double score = performanceScore;
+        return Double.isNaN(score) ? computePower / 100.0 : score;
+    }
+    public void setPerformanceScore(double performanceScore) {
+        this.performanceScore = performanceScore;
+    }
+    
+    /**
+     * Score de rendimiento para un tipo de tarea: un worker rápido en MAP y lento
+     * en REDUCE no se ordena igual para ambos
+     * @param type Tipo de tarea
+     * @return Score en [0, 1] (el global si aún no hay score para ese tipo)
+     */
+    public double getPerformanceScore(TaskType type) {
+        double[] scores = typePerformanceScores;
+        double score = scores != null ? scores[type.ordinal()] : Double.NaN;
+        return Double.isNaN(score) ? getPerformanceScore() : score;
+    }
+    // Reemplaza los scores por tipo (índice = TaskType.ordinal())
+    public void setTypePerformanceScores(double[] typePerformanceScores) {
+        this.typePerformanceScores = typePerformanceScores.clone();
     }
     
+    // Copia de las tareas activas
     public List<String> getActiveTaskIds() {
-        return activeTaskIds;
+        return new ArrayList<>(activeTaskIds);
     }
     
+    // Fechas para REST/JSON (se calculan a partir de las marcas monótonas)
     public LocalDateTime getRegisteredAt() {
-        return registeredAt;
+        return Timestamps.toLocalDateTime(registeredAtMs);
     }
     public LocalDateTime getLastHeartbeat() {
-        return lastHeartbeat;
+        return Timestamps.toLocalDateTime(lastHeartbeatMs);
     }
-    public void setLastHeartbeat(LocalDateTime lastHeartbeat) {
-        this.lastHeartbeat = lastHeartbeat;
+    public LocalDateTime getLastTaskUpdate() {
+        return Timestamps.toLocalDateTime(lastTaskUpdateMs);
     }
     
-    public LocalDateTime getLastTaskUpdate() {
-        return lastTaskUpdate;
+    /**
+     * Milisegundos desde el último heartbeat (reloj monótono). Si el nodo cubre al
+     * worker, cuenta también el último heartbeat del nodo.
+     */
+    public long getMillisSinceHeartbeat() {
+        long sinceOwn = Timestamps.millisSince(lastHeartbeatMs);
+        NodeInfo currentNode = node;
+        if (currentNode != null && coveredByNode) {
+            return Math.min(sinceOwn, currentNode.getMillisSinceHeartbeat());
+        }
+        return sinceOwn;
+    }
+    
+    public String getNodeId() {
+        NodeInfo currentNode = node;
+        return currentNode != null ? currentNode.getNodeId() : null;
     }
-    public void setLastTaskUpdate(LocalDateTime lastTaskUpdate) {
-        this.lastTaskUpdate = lastTaskUpdate;
+    public boolean isCoveredByNode() {
+        return node != null && coveredByNode;
+    }
+    
+    // Asocia el worker a su nodo (null = sin nodo) y lo pone bajo su cobertura
+    public void setNode(NodeInfo node) {
+        this.node = node;
+        this.coveredByNode = node != null;
+    }
+    
+    // Activa o retira la cobertura del nodo (excepción por worker caído)
+    public void setCoveredByNode(boolean coveredByNode) {
+        this.coveredByNode = coveredByNode;
+    }
+    
+    // Nodo actual (no se expone como getter para no serializarlo con el worker)
+    public NodeInfo currentNode() {
+        return node;
+    }
+    
+    public int getReportedActiveTasks() {
+        return reportedActiveTasks;
+    }
+    public int getReportedAvailableTasks() {
+        return reportedAvailableTasks;
+    }
+    // Uso de CPU y memoria reportado en %, o null si no se ha reportado (el JSON no admite NaN)
+    public Double getCpuUsage() {
+        double usage = cpuUsage;
+        return Double.isNaN(usage) ? null : usage;
+    }
+    public Double getMemoryUsage() {
+        double usage = memoryUsage;
+        return Double.isNaN(usage) ? null : usage;
     }
     
     public int getCompletedTasks() {
-        return completedTasks;
+        return completedTasks.get();
     }
     public int getFailedTasks() {
-        return failedTasks;
+        return failedTasks.get();
     }
     public long getTotalExecutionTimeMs() {
-        return totalExecutionTimeMs;
+        return totalExecutionTimeMs.get();
+    }
+    
+    // Tiempo medio de ejecución de las tareas completadas (0 si no hay historial)
+    public long getAverageExecutionTimeMs() {
+        int completed = completedTasks.get();
+        return completed > 0 ? totalExecutionTimeMs.get() / completed : 0;
     }
     
     // Verifica si el worker está disponible para recibir tareas
     public boolean isAvailable() {
-        return status == WorkerStatus.READY && currentLoad < maxConcurrentTasks;
+        long state = slotState.get();
+        return statusOf(state) == WorkerStatus.READY && loadOf(state) < getSlotLimit();
     }
     
     // Verifica si el worker está sobrecargado
     public boolean isOverloaded() {
-        return currentLoad >= maxConcurrentTasks;
+        return getCurrentLoad() >= getSlotLimit();
     }
     
     /**
@@ -152,9 +293,7 @@ public class Worker {
      * @param timeoutSeconds Tiempo límite en segundos para considerar el worker activo
      */
     public boolean isActive(int timeoutSeconds) {
-        if (lastHeartbeat == null) return false;
-        long secondsSinceHeartbeat = java.time.Duration.between(lastHeartbeat, LocalDateTime.now()).getSeconds();
-        return secondsSinceHeartbeat < timeoutSeconds;
+        return getMillisSinceHeartbeat() < timeoutSeconds * 1000L;
     }
     
     // Verifica si el worker está activo
@@ -162,57 +301,208 @@ public class Worker {
         return isActive(30); // Valor por defecto
     }
     
-    // Calcula la disponibilidad del worker
+    /**
+     * Calcula la disponibilidad del worker: slots libres sobre los habilitados. Si el
+     * último heartbeat reporta menos slots libres (o más tareas activas) que la cuenta
+     * del master, por ejemplo intentos cancelados que aún terminan, se usa el reporte
+     */
     public double getAvailability() {
-        if (maxConcurrentTasks == 0) return 0.0;
-        return Math.max(0.0, 1.0 - ((double) currentLoad / maxConcurrentTasks));
+        int max = getSlotLimit();
+        if (max == 0) return 0.0;
+        int free = max - getCurrentLoad();
+        int reportedAvailable = reportedAvailableTasks;
+        if (reportedAvailable >= 0) {
+            free = Math.min(free, reportedAvailable);
+        }
+        int reportedActive = reportedActiveTasks;
+        if (reportedActive >= 0) {
+            free = Math.min(free, max - reportedActive);
+        }
+        return Math.max(0.0, (double) free / max);
+    }
+    
+    /**
+     * Salud según el uso de CPU y memoria reportado en el heartbeat: 1.0 hasta
+     * RESOURCE_PRESSURE_THRESHOLD y baja linealmente hasta 0.0 con el recurso agotado
+     * @return Salud entre 0.0 y 1.0 (1.0 sin métricas reportadas)
+     */
+    public double getReportedHealth() {
+        double pressure = Math.max(Double.isNaN(cpuUsage) ? 0.0 : cpuUsage,
+                                   Double.isNaN(memoryUsage) ? 0.0 : memoryUsage);
+        if (pressure <= RESOURCE_PRESSURE_THRESHOLD) {
+            return 1.0;
+        }
+        return Math.max(0.0, (100.0 - pressure) / (100.0 - RESOURCE_PRESSURE_THRESHOLD));
     }
     
     // Calcula el score de prioridad para asignación de tareas. Un mayor score se traduce en un mejor candidato para recibir tareas
     public double getPriorityScore() {
+        return calculateScore(isActive() ? getReportedHealth() : 0.0);
+    }
+    
+    // Score usado por el índice de selección del ResourceManager. Solo los workers vivos
+    // están indexados, así que la salud sale de las métricas reportadas y no del reloj
+    public double getSelectionScore() {
+        return calculateScore(getReportedHealth());
+    }
+    
+    // Score de selección para un tipo de tarea (rendimiento de ese tipo)
+    public double getSelectionScore(TaskType type) {
+        return calculateScore(getReportedHealth(), getPerformanceScore(type));
+    }
+    
+    private double calculateScore(double health) {
+        return calculateScore(health, getPerformanceScore());
+    }
+    
+    private double calculateScore(double health, double performance) {
         double availability = getAvailability();
-        double health = isActive() ? 1.0 : 0.0;
-        double performance = computePower / 100.0;
         
-        // Fórmula: 40% disponibilidad + 30% salud + 30% rendimiento
+        // Fórmula: 40% disponibilidad + 30% salud + 30% rendimiento (observado, ver ResourceManager)
         return (availability * 0.4) + (health * 0.3) + (performance * 0.3);
     }
     
-    // Asigna una tarea al worker
+    // TRANSICIONES DE ESTADO (CAS)
+    
+    /**
+     * Ocupa un slot para la tarea si el worker está READY con capacidad libre
+     * @param taskId ID de la tarea
+     * @return true si se ocupó el slot; false si no hay slot o la tarea ya estaba en el worker
+     */
     public boolean assignTask(String taskId) {
-        if (!isAvailable()) return false;
+        if (!activeTaskIds.add(taskId)) {
+            return false;
+        }
         
-        activeTaskIds.add(taskId);
-        currentLoad++;
-        lastTaskUpdate = LocalDateTime.now();
+        long current;
+        long next;
+        do {
+            current = slotState.get();
+            int load = loadOf(current);
+            if (statusOf(current) != WorkerStatus.READY || load >= getSlotLimit()) {
+                activeTaskIds.remove(taskId);
+                return false;
+            }
+            next = pack(normalize(WorkerStatus.READY, load + 1), load + 1);
+        } while (!slotState.compareAndSet(current, next));
+        
+        lastTaskUpdateMs = Timestamps.now();
         return true;
     }
     
-    // Libera una tarea del worker
+    /**
+     * Libera el slot de una tarea; un worker BUSY vuelve a READY al recuperar capacidad
+     * @param taskId ID de la tarea
+     * @return true si la tarea estaba en el worker
+     */
     public boolean releaseTask(String taskId) {
-        if (activeTaskIds.remove(taskId)) {
-            currentLoad--;
-            lastTaskUpdate = LocalDateTime.now();
-            return true;
+        if (!activeTaskIds.remove(taskId)) {
+            return false;
         }
-        return false;
+        
+        long current;
+        do {
+            current = slotState.get();
+        } while (!slotState.compareAndSet(current, pack(normalize(statusOf(current), loadOf(current) - 1), loadOf(current) - 1)));
+        
+        lastTaskUpdateMs = Timestamps.now();
+        return true;
+    }
+    
+    /**
+     * Marca el worker como OFFLINE conservando su carga
+     * @return Estado anterior (OFFLINE si ya estaba inactivo)
+     */
+    public WorkerStatus markOffline() {
+        long current;
+        do {
+            current = slotState.get();
+            if (statusOf(current) == WorkerStatus.OFFLINE) {
+                return WorkerStatus.OFFLINE;
+            }
+        } while (!slotState.compareAndSet(current, pack(WorkerStatus.OFFLINE, loadOf(current))));
+        return statusOf(current);
+    }
+    
+    /**
+     * Reactiva un worker OFFLINE (READY o BUSY según su carga)
+     * @return true si el worker estaba OFFLINE y se reactivó
+     */
+    public boolean reactivate() {
+        long current;
+        do {
+            current = slotState.get();
+            if (statusOf(current) != WorkerStatus.OFFLINE) {
+                return false;
+            }
+        } while (!slotState.compareAndSet(current, pack(normalize(WorkerStatus.READY, loadOf(current)), loadOf(current))));
+        return true;
     }
     
     // Registra una tarea completada
     public void recordTaskCompletion(long executionTimeMs) {
-        completedTasks++;
-        totalExecutionTimeMs += executionTimeMs;
-        lastTaskUpdate = LocalDateTime.now();
+        completedTasks.incrementAndGet();
+        totalExecutionTimeMs.addAndGet(executionTimeMs);
+        lastTaskUpdateMs = Timestamps.now();
     }
     
     // Registra una tarea fallida
     public void recordTaskFailure() {
-        failedTasks++;
-        lastTaskUpdate = LocalDateTime.now();
+        failedTasks.incrementAndGet();
+        lastTaskUpdateMs = Timestamps.now();
     }
     
     // Actualiza el heartbeat del worker
     public void updateHeartbeat() {
-        this.lastHeartbeat = LocalDateTime.now();
+        this.lastHeartbeatMs = Timestamps.now();
+    }
+    
+    /**
+     * Actualiza el heartbeat con el reporte del worker (solo campos primitivos)
+     * @param activeTasks Tareas activas reportadas (-1 = no reportado)
+     * @param availableTasks Slots libres reportados (-1 = no reportado)
+     * @param cpuUsage Uso de CPU en % (NaN = no reportado)
+     * @param memoryUsage Uso de memoria en % (NaN = no reportado)
+     * @return true si cambió algo que afecta al score de selección
+     */
+    public boolean recordHeartbeat(int activeTasks, int availableTasks, double cpuUsage, double memoryUsage) {
+        this.lastHeartbeatMs = Timestamps.now();
+        double healthBefore = getReportedHealth();
+        boolean changed = false;
+        if (activeTasks >= 0 && activeTasks != reportedActiveTasks) {
+            this.reportedActiveTasks = activeTasks;
+            changed = true;
+        }
+        if (availableTasks >= 0 && availableTasks != reportedAvailableTasks) {
+            this.reportedAvailableTasks = availableTasks;
+            changed = true;
+        }
+        if (!Double.isNaN(cpuUsage)) {
+            this.cpuUsage = cpuUsage;
+        }
+        if (!Double.isNaN(memoryUsage)) {
+            this.memoryUsage = memoryUsage;
+        }
+        return changed || getReportedHealth() != healthBefore;
+    }
+    
+    // Un worker activo está READY si le quedan slots y BUSY si está lleno
+    private WorkerStatus normalize(WorkerStatus status, int load) {
+        if (status == WorkerStatus.READY || status == WorkerStatus.BUSY) {
+            return load < getSlotLimit() ? WorkerStatus.READY : WorkerStatus.BUSY;
+        }
+        return status;
+    }
+    
+    private static long pack(WorkerStatus status, int load) {
+        return ((long) status.ordinal() << 32) | (load & LOAD_MASK);
+    }
+    
+    private static WorkerStatus statusOf(long state) {
+        return STATUSES[(int) (state >>> 32)];
+    }
+    
+    private static int loadOf(long state) {
+        return (int) state;
     }
 }
\ No newline at end of file
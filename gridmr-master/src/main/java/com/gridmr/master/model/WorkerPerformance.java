@@ -0,0 +1,127 @@
+package com.gridmr.master.model;
+
+/**
+ * WorkerPerformance - Rendimiento observado de un worker por tipo de tarea
+ *
+ * Guarda medias móviles exponenciales (EWMA) del throughput (bytes/s), el tiempo de
+ * ejecución, la tasa de fallos y la demora en cola de las tareas terminadas. Cada
+ * muestra nueva pesa ALPHA y el historial (1 - ALPHA), así el modelo sigue los
+ * cambios de la máquina sin guardar historial. El ResourceManager mantiene una
+ * instancia por worker y otra del cluster completo que sirve de referencia.
+ */
+public class WorkerPerformance {
+
+    // Peso de la última muestra en la EWMA
+    public static final double DEFAULT_ALPHA = 0.3;
+
+    private final double alpha;
+    private final TypeStats[] stats;
+
+    public WorkerPerformance() {
+        this(DEFAULT_ALPHA);
+    }
+
+    public WorkerPerformance(double alpha) {
+        if (alpha <= 0.0 || alpha > 1.0) {
+            throw new IllegalArgumentException("alpha debe estar en (0, 1]: " + alpha);
+        }
+        this.alpha = alpha;
+        this.stats = new TypeStats[TaskType.values().length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new TypeStats();
+        }
+    }
+
+    /**
+     * Registra una tarea completada
+     * @param type Tipo de tarea
+     * @param inputBytes Bytes de entrada procesados (0 = desconocido)
+     * @param executionTimeMs Tiempo de ejecución reportado por el worker
+     * @param queueDelayMs Tiempo desde la asignación que la tarea no estuvo ejecutándose
+     */
+    public synchronized void recordSuccess(TaskType type, long inputBytes, long executionTimeMs, long queueDelayMs) {
+        TypeStats s = stats[type.ordinal()];
+        s.samples++;
+        s.failureRate = ewma(s.failureRate, 0.0);
+        if (executionTimeMs <= 0) {
+            return; // Sin tiempo no hay muestra de velocidad
+        }
+        s.executionTimeMs = ewma(s.executionTimeMs, executionTimeMs);
+        s.queueDelayMs = ewma(s.queueDelayMs, Math.max(0, queueDelayMs));
+        if (inputBytes > 0) {
+            s.throughputBytesPerSec = ewma(s.throughputBytesPerSec, inputBytes * 1000.0 / executionTimeMs);
+        }
+    }
+
+    /**
+     * Registra una tarea fallida (o perdida por timeout)
+     * @param type Tipo de tarea
+     */
+    public synchronized void recordFailure(TaskType type) {
+        TypeStats s = stats[type.ordinal()];
+        s.samples++;
+        s.failureRate = ewma(s.failureRate, 1.0);
+    }
+
+    /**
+     * Velocidad relativa frente a otro modelo (normalmente el del cluster):
+     * 1.0 = igual, 2.0 = el doble de rápido. Usa el throughput si ambos lo tienen
+     * y si no la inversa del tiempo de ejecución.
+     * @param type Tipo de tarea
+     * @param reference Modelo de referencia
+     * @return Velocidad relativa o NaN si no hay muestras comparables
+     */
+    public double getRelativeSpeed(TaskType type, WorkerPerformance reference) {
+        double throughput = getThroughputBytesPerSec(type);
+        double referenceThroughput = reference.getThroughputBytesPerSec(type);
+        if (throughput > 0 && referenceThroughput > 0) {
+            return throughput / referenceThroughput;
+        }
+
+        double executionTimeMs = getExecutionTimeMs(type);
+        double referenceExecutionTimeMs = reference.getExecutionTimeMs(type);
+        if (executionTimeMs > 0 && referenceExecutionTimeMs > 0) {
+            return referenceExecutionTimeMs / executionTimeMs;
+        }
+        return Double.NaN;
+    }
+
+    // Throughput medio en bytes/s (NaN sin muestras con tamaño conocido)
+    public synchronized double getThroughputBytesPerSec(TaskType type) {
+        return stats[type.ordinal()].throughputBytesPerSec;
+    }
+
+    // Tiempo medio de ejecución en ms (NaN sin muestras)
+    public synchronized double getExecutionTimeMs(TaskType type) {
+        return stats[type.ordinal()].executionTimeMs;
+    }
+
+    // Demora media en cola en ms (NaN sin muestras)
+    public synchronized double getQueueDelayMs(TaskType type) {
+        return stats[type.ordinal()].queueDelayMs;
+    }
+
+    // Tasa de fallos entre 0.0 y 1.0 (0.0 sin muestras)
+    public synchronized double getFailureRate(TaskType type) {
+        double failureRate = stats[type.ordinal()].failureRate;
+        return Double.isNaN(failureRate) ? 0.0 : failureRate;
+    }
+
+    // Tareas terminadas (completadas o fallidas) de este tipo
+    public synchronized long getSamples(TaskType type) {
+        return stats[type.ordinal()].samples;
+    }
+
+    private double ewma(double current, double sample) {
+        return Double.isNaN(current) ? sample : current + alpha * (sample - current);
+    }
+
+    // Medias de un tipo de tarea (NaN = sin muestras)
+    private static final class TypeStats {
+        private long samples;
+        private double throughputBytesPerSec = Double.NaN;
+        private double executionTimeMs = Double.NaN;
+        private double queueDelayMs = Double.NaN;
+        private double failureRate = Double.NaN;
+    }
+}
@@ -0,0 +1,52 @@
+package com.gridmr.master.model;
+
+/**
+ * Cambio de estado de un worker reportado dentro del heartbeat de su nodo
+ *
+ * El agente del nodo solo incluye los workers cuyo estado cambió desde el último
+ * heartbeat; los que no aparecen siguen vivos y sin cambios. alive = false es la
+ * excepción: el nodo sigue respondiendo pero ese worker cayó.
+ */
+public class WorkerStateDelta {
+
+    private final String workerId;
+    private final boolean alive;
+    private final int activeTasks; // -1 = no reportado
+    private final int availableTasks; // -1 = no reportado
+    private final double cpuUsage; // NaN = no reportado
+    private final double memoryUsage; // NaN = no reportado
+
+    public WorkerStateDelta(String workerId, boolean alive, int activeTasks, int availableTasks,
+                            double cpuUsage, double memoryUsage) {
+        this.workerId = workerId;
+        this.alive = alive;
+        this.activeTasks = activeTasks;
+        this.availableTasks = availableTasks;
+        this.cpuUsage = cpuUsage;
+        this.memoryUsage = memoryUsage;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public int getActiveTasks() {
+        return activeTasks;
+    }
+
+    public int getAvailableTasks() {
+        return availableTasks;
+    }
+
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+
+    public double getMemoryUsage() {
+        return memoryUsage;
+    }
+}
@@ -0,0 +1,55 @@
+package com.gridmr.master.shuffle;
+
+/**
+ * Combiner - Función de combinación asociativa aplicada a la salida de un Map
+ *
+ * Reduce dos valores de la misma clave a uno solo. Debe ser asociativa y
+ * conmutativa, porque se aplica en cualquier orden y posiblemente varias veces
+ * (en memoria, al volcar y al mezclar volcados) antes del shuffle.
+ */
+public interface Combiner {
+
+    // Nombre de la función de suma (conteos de WORDCOUNT y LINECOUNT)
+    String SUM = "SUM";
+
+    /**
+     * Combina dos valores de una misma clave
+     * @param left Valor acumulado
+     * @param right Valor nuevo
+     * @return Valor combinado
+     */
+    byte[] combine(byte[] left, byte[] right);
+
+    /**
+     * Función de combinación por defecto de un tipo de trabajo
+     * @param jobType Tipo de trabajo (WORDCOUNT, SORT, GREP, LINECOUNT)
+     * @return Nombre de la función o null si el tipo no admite combinación
+     */
+    static String defaultFunctionFor(String jobType) {
+        if (jobType == null) {
+            return null;
+        }
+        switch (jobType.toUpperCase()) {
+            case "WORDCOUNT":
+            case "LINECOUNT":
+                return SUM;
+            default:
+                return null; // SORT y GREP deben conservar todos los registros
+        }
+    }
+
+    /**
+     * Obtiene el combiner de una función
+     * @param function Nombre de la función
+     * @return Combiner o null si la función no existe
+     */
+    static Combiner forFunction(String function) {
+        if (function == null) {
+            return null;
+        }
+        if (SUM.equalsIgnoreCase(function)) {
+            return new SumCombiner();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,282 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.io.IntermediateFileWriter;
+import com.gridmr.master.io.KWayMergeIterator;
+import com.gridmr.master.io.KeyValue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * CombiningCollector - Agrega en memoria la salida de una tarea Map antes de particionar
+ *
+ * Cada clave ocupa una sola entrada en una tabla hash; los valores repetidos se
+ * combinan al llegar. Cuando la tabla supera el límite de memoria se vuelca como
+ * run ordenado a disco. Al terminar, los volcados se mezclan (combinando de nuevo
+ * las claves iguales) y se reparten en un run ordenado por reducer.
+ */
+public class CombiningCollector {
+
+    // Coste aproximado por entrada de la tabla (objetos, referencias y cabeceras)
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final Path outputDir;
+    private final String filePrefix;
+    private final Combiner combiner;
+    private final Partitioner partitioner;
+    private final int numPartitions;
+    private final long memoryLimitBytes;
+
+    private final Map<Key, byte[]> table;
+    private final List<Path> spills;
+    private final Map<Integer, Path> outputs;
+    private final Map<Integer, Long> partitionRecords;
+    private long memoryUsedBytes;
+
+    // Estadísticas
+    private long recordsCollected;
+    private long recordsWritten;
+    private int spillCount;
+
+    /**
+     * @param outputDir Directorio de volcados y runs de salida
+     * @param filePrefix Prefijo de los archivos generados
+     * @param combiner Función de combinación
+     * @param partitioner Asignación de claves a reducers
+     * @param numPartitions Número de reducers
+     * @param memoryLimitBytes Memoria máxima de la tabla antes de volcar
+     */
+    public CombiningCollector(Path outputDir, String filePrefix, Combiner combiner, Partitioner partitioner,
+                              int numPartitions, long memoryLimitBytes) {
+        if (combiner == null) {
+            throw new IllegalArgumentException("combiner no puede ser null");
+        }
+        if (numPartitions <= 0) {
+            throw new IllegalArgumentException("numPartitions debe ser positivo: " + numPartitions);
+        }
+        this.outputDir = outputDir;
+        this.filePrefix = filePrefix;
+        this.combiner = combiner;
+        this.partitioner = partitioner;
+        this.numPartitions = numPartitions;
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.table = new HashMap<>();
+        this.spills = new ArrayList<>();
+        this.outputs = new TreeMap<>();
+        this.partitionRecords = new TreeMap<>();
+    }
+
+    /**
+     * Agrega un registro de la salida del Map
+     */
+    public void collect(byte[] key, byte[] value) throws IOException {
+        recordsCollected++;
+        Key wrapped = new Key(key);
+        byte[] previous = table.get(wrapped);
+        if (previous == null) {
+            table.put(wrapped, value);
+            memoryUsedBytes += ENTRY_OVERHEAD_BYTES + key.length + value.length;
+        } else {
+            byte[] combined = combiner.combine(previous, value);
+            table.put(wrapped, combined);
+            memoryUsedBytes += combined.length - previous.length;
+        }
+
+        if (memoryUsedBytes >= memoryLimitBytes) {
+            spill();
+        }
+    }
+
+    public void collect(KeyValue record) throws IOException {
+        collect(record.getKey(), record.getValue());
+    }
+
+    /**
+     * Termina la recolección y escribe un run ordenado por cada reducer con salida.
+     * Si falla, los runs a medio escribir se eliminan antes de propagar el error
+     * @return Archivos de salida por reducer (reducerId -> run)
+     */
+    public Map<Integer, Path> finish() throws IOException {
+        Map<Integer, IntermediateFileWriter> writers = new TreeMap<>();
+        try {
+            try {
+                if (spills.isEmpty()) {
+                    for (KeyValue record : sortedTable()) {
+                        write(record, writers);
+                    }
+                } else {
+                    spill();
+                    try (KWayMergeIterator merge = KWayMergeIterator.open(spills)) {
+                        combineSorted(merge, writers);
+                    }
+                }
+            } finally {
+                closeAll(writers);
+            }
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+        releaseBuffers();
+        return new TreeMap<>(outputs);
+    }
+
+    // Cierra todos los writers aunque alguno falle; propaga el primer error
+    private static void closeAll(Map<Integer, IntermediateFileWriter> writers) throws IOException {
+        IOException failure = null;
+        for (IntermediateFileWriter writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Descarta la recolección: libera la tabla y elimina volcados y runs de salida.
+     * Debe llamarse si collect() o finish() fallan para no dejar archivos huérfanos
+     */
+    public void abort() {
+        releaseBuffers();
+        for (Path output : outputs.values()) {
+            deleteQuietly(output);
+        }
+        outputs.clear();
+        partitionRecords.clear();
+    }
+
+    // Vacía la tabla y elimina los volcados, que no son salida de la tarea
+    private void releaseBuffers() {
+        table.clear();
+        memoryUsedBytes = 0;
+        for (Path spill : spills) {
+            deleteQuietly(spill);
+        }
+        spills.clear();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error eliminando " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Vuelca la tabla como run ordenado y la vacía
+    private void spill() throws IOException {
+        if (table.isEmpty()) {
+            return;
+        }
+        Path spillFile = outputDir.resolve(filePrefix + "_spill_" + spills.size() + ".run");
+        spills.add(spillFile); // Registrado antes de escribir: abort() también borra un volcado a medias
+        try (IntermediateFileWriter writer = new IntermediateFileWriter(spillFile)) {
+            for (KeyValue record : sortedTable()) {
+                writer.append(record.getKey(), record.getValue());
+            }
+        }
+        spillCount++;
+        table.clear();
+        memoryUsedBytes = 0;
+    }
+
+    private List<KeyValue> sortedTable() {
+        List<KeyValue> records = new ArrayList<>(table.size());
+        for (Map.Entry<Key, byte[]> entry : table.entrySet()) {
+            records.add(new KeyValue(entry.getKey().bytes, entry.getValue()));
+        }
+        records.sort(null);
+        return records;
+    }
+
+    // Combina claves iguales consecutivas de la mezcla de volcados
+    private void combineSorted(Iterator<KeyValue> merged, Map<Integer, IntermediateFileWriter> writers)
+            throws IOException {
+        byte[] currentKey = null;
+        byte[] currentValue = null;
+        while (merged.hasNext()) {
+            KeyValue record = merged.next();
+            if (currentKey != null && Arrays.equals(currentKey, record.getKey())) {
+                currentValue = combiner.combine(currentValue, record.getValue());
+            } else {
+                if (currentKey != null) {
+                    write(new KeyValue(currentKey, currentValue), writers);
+                }
+                currentKey = record.getKey();
+                currentValue = record.getValue();
+            }
+        }
+        if (currentKey != null) {
+            write(new KeyValue(currentKey, currentValue), writers);
+        }
+    }
+
+    private void write(KeyValue record, Map<Integer, IntermediateFileWriter> writers) throws IOException {
+        int partition = partitioner.getPartition(record.getKey(), numPartitions);
+        IntermediateFileWriter writer = writers.get(partition);
+        if (writer == null) {
+            Path output = outputDir.resolve(filePrefix + "_reducer_" + partition + ".run");
+            writer = new IntermediateFileWriter(output);
+            writers.put(partition, writer);
+            outputs.put(partition, output);
+        }
+        writer.append(record.getKey(), record.getValue());
+        partitionRecords.merge(partition, 1L, Long::sum);
+        recordsWritten++;
+    }
+
+    public long getRecordsCollected() {
+        return recordsCollected;
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Obtiene los registros escritos para un reducer
+     * @param partition ID del reducer
+     * @return Registros en el run de ese reducer
+     */
+    public long getPartitionRecordCount(int partition) {
+        return partitionRecords.getOrDefault(partition, 0L);
+    }
+
+    public int getSpillCount() {
+        return spillCount;
+    }
+
+    // Clave de la tabla hash con igualdad por contenido
+    private static final class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        private Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.gridmr.master.shuffle;
+
+import java.util.Arrays;
+
+/**
+ * HashPartitioner - Reparte las claves por hash (orden arbitrario entre reducers)
+ */
+public class HashPartitioner implements Partitioner {
+
+    @Override
+    public int getPartition(byte[] key, int numPartitions) {
+        return (Arrays.hashCode(key) & Integer.MAX_VALUE) % numPartitions;
+    }
+}
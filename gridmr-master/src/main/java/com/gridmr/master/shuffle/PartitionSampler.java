@@ -0,0 +1,130 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.io.KeyValue;
+import com.gridmr.master.io.RecordReader;
+import com.gridmr.master.model.DataChunk;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * PartitionSampler - Calcula puntos de corte para TotalOrderPartitioner muestreando la entrada
+ *
+ * Antes de la fase Map se leen unas pocas líneas de un subconjunto de chunks
+ * repartido por toda la entrada (muestreo reservoir sobre el inicio de cada chunk)
+ * y se eligen los cuantiles de la muestra ordenada. La lectura está acotada:
+ * nunca se recorre más de SCAN_FACTOR veces el número de muestras por chunk.
+ */
+public class PartitionSampler {
+
+    private static final int DEFAULT_MAX_SAMPLES = 10000;
+    private static final int DEFAULT_MAX_CHUNKS = 64;
+    private static final int SCAN_FACTOR = 10;
+
+    /**
+     * Abre un lector de líneas sobre un chunk
+     */
+    public interface RecordSource {
+        RecordReader<Long, String> open(DataChunk chunk) throws IOException;
+    }
+
+    private final RecordSource source;
+    private final int maxSamples;
+    private final int maxChunks;
+
+    public PartitionSampler(RecordSource source) {
+        this(source, DEFAULT_MAX_SAMPLES, DEFAULT_MAX_CHUNKS);
+    }
+
+    /**
+     * @param source Origen de los registros de cada chunk
+     * @param maxSamples Número total de muestras
+     * @param maxChunks Número máximo de chunks a leer
+     */
+    public PartitionSampler(RecordSource source, int maxSamples, int maxChunks) {
+        if (maxSamples <= 0 || maxChunks <= 0) {
+            throw new IllegalArgumentException("maxSamples y maxChunks deben ser positivos");
+        }
+        this.source = source;
+        this.maxSamples = maxSamples;
+        this.maxChunks = maxChunks;
+    }
+
+    /**
+     * Calcula los puntos de corte para un número de reducers
+     * @param chunks Chunks de entrada del trabajo
+     * @param numPartitions Número de reducers
+     * @return Puntos de corte ordenados y sin repetir (puede haber menos de numPartitions - 1)
+     */
+    public List<String> sampleSplitPoints(List<DataChunk> chunks, int numPartitions) throws IOException {
+        List<String> splitPoints = new ArrayList<>();
+        if (numPartitions <= 1 || chunks.isEmpty()) {
+            return splitPoints;
+        }
+
+        List<byte[]> samples = sample(chunks);
+        if (samples.isEmpty()) {
+            return splitPoints;
+        }
+        samples.sort(KeyValue::compareKeys);
+
+        // Cuantiles de la muestra; las claves repetidas no generan cortes vacíos
+        byte[] previous = null;
+        for (int i = 1; i < numPartitions; i++) {
+            byte[] candidate = samples.get((int) ((long) i * samples.size() / numPartitions));
+            if (previous == null || KeyValue.compareKeys(previous, candidate) < 0) {
+                splitPoints.add(new String(candidate, StandardCharsets.UTF_8));
+                previous = candidate;
+            }
+        }
+        return splitPoints;
+    }
+
+    private List<byte[]> sample(List<DataChunk> chunks) throws IOException {
+        // Chunks repartidos uniformemente por la entrada
+        int selected = Math.min(maxChunks, chunks.size());
+        List<DataChunk> sampledChunks = new ArrayList<>(selected);
+        for (int i = 0; i < selected; i++) {
+            sampledChunks.add(chunks.get((int) ((long) i * chunks.size() / selected)));
+        }
+        int samplesPerChunk = Math.max(1, (maxSamples + selected - 1) / selected);
+
+        try {
+            return sampledChunks.parallelStream()
+                .map(chunk -> sampleChunk(chunk, samplesPerChunk))
+                .collect(ArrayList<byte[]>::new, ArrayList::addAll, ArrayList::addAll);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Muestreo reservoir sobre las primeras samplesPerChunk * SCAN_FACTOR líneas del chunk
+    private Collection<byte[]> sampleChunk(DataChunk chunk, int samplesPerChunk) {
+        List<byte[]> reservoir = new ArrayList<>(samplesPerChunk);
+        Random random = new Random(chunk.getChunkId().hashCode());
+        long scanLimit = (long) samplesPerChunk * SCAN_FACTOR;
+
+        try (RecordReader<Long, String> reader = source.open(chunk)) {
+            long seen = 0;
+            while (seen < scanLimit && reader.nextKeyValue()) {
+                byte[] key = reader.getCurrentValue().getBytes(StandardCharsets.UTF_8);
+                if (reservoir.size() < samplesPerChunk) {
+                    reservoir.add(key);
+                } else {
+                    long slot = (long) (random.nextDouble() * (seen + 1));
+                    if (slot < samplesPerChunk) {
+                        reservoir.set((int) slot, key);
+                    }
+                }
+                seen++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return reservoir;
+    }
+}
@@ -0,0 +1,45 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.model.DataChunk;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PartitionStatistics - Tamaño de la entrada de un reducer (suma de sus segmentos)
+ */
+public class PartitionStatistics {
+
+    private final int partitionId;
+    private final List<DataChunk> segments;
+    private final long totalBytes;
+    private final long totalRecords;
+
+    public PartitionStatistics(int partitionId, List<DataChunk> segments) {
+        this.partitionId = partitionId;
+        this.segments = Collections.unmodifiableList(segments);
+        long bytes = 0;
+        long records = 0;
+        for (DataChunk segment : segments) {
+            bytes += segment.getSizeBytes();
+            records += segment.getRecordCount();
+        }
+        this.totalBytes = bytes;
+        this.totalRecords = records;
+    }
+
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    public List<DataChunk> getSegments() {
+        return segments;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getTotalRecords() {
+        return totalRecords;
+    }
+}
@@ -0,0 +1,31 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.model.Job;
+
+/**
+ * Partitioner - Decide a qué reducer va cada clave de la salida Map
+ */
+public interface Partitioner {
+
+    String HASH = "HASH";
+    String TOTAL_ORDER = "TOTAL_ORDER";
+
+    /**
+     * @param key Clave del registro
+     * @param numPartitions Número de reducers
+     * @return Reducer destino en [0, numPartitions)
+     */
+    int getPartition(byte[] key, int numPartitions);
+
+    /**
+     * Obtiene el partitioner configurado en un trabajo
+     * @param job Trabajo
+     * @return Partitioner por rangos si el trabajo tiene puntos de corte, hash en otro caso
+     */
+    static Partitioner forJob(Job job) {
+        if (TOTAL_ORDER.equals(job.getPartitioner()) && !job.getPartitionSplitPoints().isEmpty()) {
+            return new TotalOrderPartitioner(job.getPartitionSplitPoints());
+        }
+        return new HashPartitioner();
+    }
+}
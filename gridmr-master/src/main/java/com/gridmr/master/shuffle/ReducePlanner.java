@@ -0,0 +1,107 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.model.DataChunk;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReducePlanner - Detecta particiones desbalanceadas y las divide antes de la fase Reduce
+ *
+ * Una partición es sesgada si ocupa más de SKEW_FACTOR veces la media y supera
+ * MIN_SKEWED_PARTITION_BYTES. Sus segmentos (uno por tarea Map) se reparten en
+ * sub-tareas de tamaño cercano a la media y una tarea de mezcla final combina
+ * sus salidas. Como cada segmento ya agrupa una parte de la clave caliente, esto
+ * equivale a "salar" la clave por tarea Map sin cambiar la salida de los Map.
+ */
+public class ReducePlanner {
+
+    private static final double SKEW_FACTOR = 2.0;
+    private static final long MIN_SKEWED_PARTITION_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_SPLITS_PER_PARTITION = 8;
+
+    /**
+     * Plan de una partición: un grupo de segmentos por sub-tarea
+     */
+    public static class PartitionPlan {
+        private final int partitionId;
+        private final List<List<String>> segmentGroups;
+
+        private PartitionPlan(int partitionId, List<List<String>> segmentGroups) {
+            this.partitionId = partitionId;
+            this.segmentGroups = segmentGroups;
+        }
+
+        public int getPartitionId() {
+            return partitionId;
+        }
+
+        public List<List<String>> getSegmentGroups() {
+            return segmentGroups;
+        }
+
+        public boolean isSplit() {
+            return segmentGroups.size() > 1;
+        }
+    }
+
+    /**
+     * Planifica la fase Reduce
+     * @param statistics Estadísticas por reducer (los reducers sin datos pueden faltar)
+     * @param numReducers Número de reducers del trabajo
+     * @return Un plan por reducer, en orden
+     */
+    public List<PartitionPlan> plan(Map<Integer, PartitionStatistics> statistics, int numReducers) {
+        long totalBytes = 0;
+        for (PartitionStatistics partition : statistics.values()) {
+            totalBytes += partition.getTotalBytes();
+        }
+        long meanBytes = numReducers > 0 ? totalBytes / numReducers : 0;
+
+        List<PartitionPlan> plans = new ArrayList<>(numReducers);
+        for (int partitionId = 0; partitionId < numReducers; partitionId++) {
+            PartitionStatistics partition = statistics.get(partitionId);
+            if (partition == null || !isSkewed(partition, meanBytes)) {
+                plans.add(new PartitionPlan(partitionId, Collections.singletonList(Collections.emptyList())));
+                continue;
+            }
+
+            int splits = (int) Math.min(MAX_SPLITS_PER_PARTITION,
+                Math.min(partition.getSegments().size(), (partition.getTotalBytes() + meanBytes - 1) / meanBytes));
+            plans.add(new PartitionPlan(partitionId, groupSegments(partition.getSegments(), splits)));
+        }
+        return plans;
+    }
+
+    private boolean isSkewed(PartitionStatistics partition, long meanBytes) {
+        return meanBytes > 0
+            && partition.getSegments().size() > 1
+            && partition.getTotalBytes() > MIN_SKEWED_PARTITION_BYTES
+            && partition.getTotalBytes() > SKEW_FACTOR * meanBytes;
+    }
+
+    // Reparto greedy (el segmento más grande al grupo con menos bytes)
+    private List<List<String>> groupSegments(List<DataChunk> segments, int groups) {
+        List<DataChunk> sorted = new ArrayList<>(segments);
+        sorted.sort(Comparator.comparingLong(DataChunk::getSizeBytes).reversed());
+
+        List<List<String>> segmentGroups = new ArrayList<>(groups);
+        long[] groupBytes = new long[groups];
+        for (int i = 0; i < groups; i++) {
+            segmentGroups.add(new ArrayList<>());
+        }
+        for (DataChunk segment : sorted) {
+            int lightest = 0;
+            for (int i = 1; i < groups; i++) {
+                if (groupBytes[i] < groupBytes[lightest]) {
+                    lightest = i;
+                }
+            }
+            segmentGroups.get(lightest).add(segment.getChunkId());
+            groupBytes[lightest] += segment.getSizeBytes();
+        }
+        return segmentGroups;
+    }
+}
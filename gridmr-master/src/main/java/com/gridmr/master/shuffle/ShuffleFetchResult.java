@@ -0,0 +1,42 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.model.DataChunk;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ShuffleFetchResult - Respuesta a una petición incremental de segmentos de un reducer
+ */
+public class ShuffleFetchResult {
+
+    private final List<DataChunk> segments;
+    private final List<String> invalidatedSegmentIds;
+    private final int nextCursor;
+    private final boolean complete;
+
+    public ShuffleFetchResult(List<DataChunk> segments, List<String> invalidatedSegmentIds, int nextCursor, boolean complete) {
+        this.segments = Collections.unmodifiableList(segments);
+        this.invalidatedSegmentIds = Collections.unmodifiableList(invalidatedSegmentIds);
+        this.nextCursor = nextCursor;
+        this.complete = complete;
+    }
+
+    public List<DataChunk> getSegments() {
+        return segments;
+    }
+
+    // Segmentos reemplazados por un reintento del Map: el reducer debe descartarlos antes de agregar los nuevos
+    public List<String> getInvalidatedSegmentIds() {
+        return invalidatedSegmentIds;
+    }
+
+    // Cursor a enviar en la siguiente petición
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    // true si la fase Map terminó y no quedan segmentos: el reducer puede hacer la mezcla final
+    public boolean isComplete() {
+        return complete;
+    }
+}
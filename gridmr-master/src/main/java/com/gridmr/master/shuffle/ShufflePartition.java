@@ -0,0 +1,169 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.model.DataChunk;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShufflePartition - Segmentos Map de un reducer en orden de llegada
+ *
+ * Es un log de solo-agregar, así los reducers pueden pedir "lo nuevo desde el
+ * cursor N" mientras la fase Map sigue en curso. Un reintento del Map agrega su
+ * segmento al final e invalida la posición anterior: un reducer que ya pasó esa
+ * posición recibe el segmento nuevo junto con los IDs que debe descartar.
+ *
+ * Si la partición se divide entre sub-tareas (ReducePlanner) cada segmento queda
+ * asignado a un grupo; los que llegan después van al grupo con menos bytes.
+ */
+public class ShufflePartition {
+
+    private final List<DataChunk> log;
+    private final List<Integer> groups;
+    private final List<List<String>> supersededIds; // Segmentos anteriores de la misma tarea (por posición)
+    private final Map<String, Integer> positionByTask;
+    private long[] groupBytes; // null = partición sin dividir
+
+    public ShufflePartition() {
+        this.log = new ArrayList<>();
+        this.groups = new ArrayList<>();
+        this.supersededIds = new ArrayList<>();
+        this.positionByTask = new HashMap<>();
+    }
+
+    /**
+     * Agrega el segmento de una tarea Map; si la tarea ya tenía uno, el anterior
+     * queda invalidado y el nuevo va al mismo grupo
+     */
+    public synchronized void put(DataChunk segment) {
+        Integer previousPosition = positionByTask.get(segment.getSourceTaskId());
+        List<String> superseded = null;
+        int group = -1;
+        if (previousPosition != null) {
+            superseded = new ArrayList<>();
+            if (supersededIds.get(previousPosition) != null) {
+                superseded.addAll(supersededIds.get(previousPosition));
+            }
+            DataChunk previous = log.get(previousPosition);
+            if (previous != null) {
+                superseded.add(previous.getChunkId());
+            }
+            group = groups.get(previousPosition);
+            invalidate(previousPosition);
+        }
+        
+        if (groupBytes != null) {
+            if (group >= 0) {
+                groupBytes[group] += segment.getSizeBytes();
+            } else {
+                group = assignToLightestGroup(segment);
+            }
+        }
+        positionByTask.put(segment.getSourceTaskId(), log.size());
+        log.add(segment);
+        groups.add(group);
+        supersededIds.add(superseded);
+    }
+
+    /**
+     * Quita un segmento si sigue siendo el vigente de su tarea (la posición queda vacía)
+     */
+    public synchronized void remove(DataChunk segment) {
+        Integer position = positionByTask.get(segment.getSourceTaskId());
+        if (position != null && log.get(position) == segment) {
+            invalidate(position);
+        }
+    }
+
+    private void invalidate(int position) {
+        DataChunk segment = log.set(position, null);
+        if (segment != null && groupBytes != null && groups.get(position) >= 0) {
+            groupBytes[groups.get(position)] -= segment.getSizeBytes();
+        }
+    }
+
+    /**
+     * Segmentos vigentes de la partición
+     */
+    public synchronized List<DataChunk> getSegments() {
+        List<DataChunk> segments = new ArrayList<>(log.size());
+        for (DataChunk segment : log) {
+            if (segment != null) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Divide la partición entre sub-tareas
+     * @param segmentGroups IDs de segmento de cada grupo (los no listados van al grupo más liviano)
+     */
+    public synchronized void split(List<List<String>> segmentGroups) {
+        Map<String, Integer> groupByChunk = new HashMap<>();
+        for (int group = 0; group < segmentGroups.size(); group++) {
+            for (String chunkId : segmentGroups.get(group)) {
+                groupByChunk.put(chunkId, group);
+            }
+        }
+
+        groupBytes = new long[segmentGroups.size()];
+        for (int position = 0; position < log.size(); position++) {
+            DataChunk segment = log.get(position);
+            if (segment == null) {
+                groups.set(position, -1);
+                continue;
+            }
+            Integer group = groupByChunk.get(segment.getChunkId());
+            if (group == null) {
+                groups.set(position, assignToLightestGroup(segment));
+            } else {
+                groups.set(position, group);
+                groupBytes[group] += segment.getSizeBytes();
+            }
+        }
+    }
+
+    /**
+     * Devuelve los segmentos nuevos desde un cursor
+     * @param group Sub-tarea que pide (-1 = toda la partición)
+     * @param cursor Posición desde la que leer (0 al empezar)
+     * @param maxSegments Máximo de segmentos a devolver
+     * @param producersDone true si ya no llegarán más segmentos
+     * @return Segmentos, IDs a descartar, cursor siguiente y si la partición está completa
+     */
+    public synchronized ShuffleFetchResult fetch(int group, int cursor, int maxSegments, boolean producersDone) {
+        List<DataChunk> segments = new ArrayList<>();
+        List<String> invalidated = null;
+        int position = Math.max(0, cursor);
+        while (position < log.size() && segments.size() < maxSegments) {
+            DataChunk segment = log.get(position);
+            if (segment != null && (group < 0 || groups.get(position) == group)) {
+                segments.add(segment);
+                // Reintento: el reducer pudo haber recibido las versiones anteriores
+                if (supersededIds.get(position) != null) {
+                    if (invalidated == null) {
+                        invalidated = new ArrayList<>();
+                    }
+                    invalidated.addAll(supersededIds.get(position));
+                }
+            }
+            position++;
+        }
+        return new ShuffleFetchResult(segments, invalidated != null ? invalidated : Collections.emptyList(),
+                                      position, producersDone && position >= log.size());
+    }
+
+    private int assignToLightestGroup(DataChunk segment) {
+        int lightest = 0;
+        for (int i = 1; i < groupBytes.length; i++) {
+            if (groupBytes[i] < groupBytes[lightest]) {
+                lightest = i;
+            }
+        }
+        groupBytes[lightest] += segment.getSizeBytes();
+        return lightest;
+    }
+}
@@ -0,0 +1,39 @@
+package com.gridmr.master.shuffle;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SumCombiner - Suma valores enteros en texto decimal (conteos)
+ */
+public class SumCombiner implements Combiner {
+
+    @Override
+    public byte[] combine(byte[] left, byte[] right) {
+        long sum = parseLong(left) + parseLong(right);
+        return Long.toString(sum).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Evita crear un String por valor: los conteos son dígitos ASCII
+    private static long parseLong(byte[] value) {
+        if (value.length == 0) {
+            throw new NumberFormatException("Valor vacío no numérico");
+        }
+        int i = 0;
+        boolean negative = value[0] == '-';
+        if (negative || value[0] == '+') {
+            i++;
+        }
+        if (i == value.length) {
+            throw new NumberFormatException("Valor no numérico: " + new String(value, StandardCharsets.US_ASCII));
+        }
+        long result = 0;
+        for (; i < value.length; i++) {
+            int digit = value[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Valor no numérico: " + new String(value, StandardCharsets.UTF_8));
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.gridmr.master.shuffle;
+
+import com.gridmr.master.io.KeyValue;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * TotalOrderPartitioner - Reparte las claves por rangos ordenados
+ *
+ * Con puntos de corte p0 < p1 < ... el reducer i recibe las claves en [p(i-1), p(i)),
+ * así que concatenar las salidas de los reducers en orden da un resultado
+ * globalmente ordenado (SORT) y cada reducer ordena su tramo en paralelo.
+ */
+public class TotalOrderPartitioner implements Partitioner {
+
+    private final byte[][] splitPoints;
+
+    /**
+     * @param splitPoints Puntos de corte ordenados (numReducers - 1 como máximo)
+     */
+    public TotalOrderPartitioner(List<String> splitPoints) {
+        this.splitPoints = new byte[splitPoints.size()][];
+        for (int i = 0; i < splitPoints.size(); i++) {
+            this.splitPoints[i] = splitPoints.get(i).getBytes(StandardCharsets.UTF_8);
+            if (i > 0 && KeyValue.compareKeys(this.splitPoints[i - 1], this.splitPoints[i]) >= 0) {
+                throw new IllegalArgumentException("Puntos de corte no ordenados en la posición " + i);
+            }
+        }
+    }
+
+    @Override
+    public int getPartition(byte[] key, int numPartitions) {
+        // Número de puntos de corte <= key (una clave igual al corte va al rango superior)
+        int low = 0;
+        int high = splitPoints.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (KeyValue.compareKeys(splitPoints[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Math.min(low, numPartitions - 1);
+    }
+}